@@ -0,0 +1,238 @@
+package org.fusionyaml.library;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import org.fusionyaml.library.object.YamlElement;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of parsed documents, which lets a {@link FusionYAML} skip parsing files and
+ * {@link String}s it already parsed. A file is cached under its canonical path along with
+ * its size and last modification time, and is parsed again once either of them changes.
+ * A {@link String} is cached under a hash of its contents.
+ * <p>
+ * The least recently used documents are evicted once the cache holds more than the
+ * maximum number of documents, or once the total size of the YAML they were parsed from
+ * goes over the maximum number of bytes. The cached trees are never handed out: each
+ * lookup returns a deep copy, which can be modified freely.
+ * <p>
+ * A {@link DocumentCache} is thread-safe and can be shared by several {@link FusionYAML}
+ * instances, as long as they parse documents the same way.
+ *
+ * @see FusionYAML.Builder#documentCache(DocumentCache)
+ */
+public final class DocumentCache {
+
+    private final int maxEntries;
+    private final long maxBytes;
+
+    // in access order, so that the first entry is the least recently used one
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private DocumentCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Loads a document parsed from a source
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        /**
+         * @return The document
+         * @throws IOException If an IO error occurred
+         */
+        YamlElement load() throws IOException;
+
+    }
+
+    private static final class Entry {
+
+        private final long size;
+        private final long modified;
+        private final long weight;
+        private final YamlElement element;
+
+        private Entry(long size, long modified, long weight, YamlElement element) {
+            this.size = size;
+            this.modified = modified;
+            this.weight = weight;
+            this.element = element;
+        }
+
+    }
+
+    /**
+     * Gets a copy of the document parsed from the file. If it isn't cached, or the file
+     * changed since it was, the {@link Loader} is called and the document it returns is
+     * cached.
+     *
+     * @param file   The file
+     * @param loader Parses the document from the file
+     * @return A copy of the document
+     * @throws IOException If an IO error occurred
+     */
+    public YamlElement get(File file, Loader loader) throws IOException {
+        File canonical = file.getCanonicalFile();
+        long size = canonical.length();
+        long modified = canonical.lastModified();
+        return get(canonical, size, modified, size, loader);
+    }
+
+    /**
+     * Gets a copy of the document parsed from the raw YAML {@link String}. If it isn't
+     * cached, the {@link Loader} is called and the document it returns is cached.
+     *
+     * @param raw    The raw YAML {@link String}
+     * @param loader Parses the document from the {@link String}
+     * @return A copy of the document
+     * @throws IOException If an IO error occurred
+     */
+    public YamlElement get(String raw, Loader loader) throws IOException {
+        HashCode hash = Hashing.murmur3_128().hashUnencodedChars(raw);
+        return get(hash, raw.length(), 0, raw.length(), loader);
+    }
+
+    private YamlElement get(Object key, long size, long modified, long weight, Loader loader) throws IOException {
+        YamlElement cached = null;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.size == size && entry.modified == modified) {
+                hits++;
+                cached = entry.element;
+            } else misses++;
+        }
+        // copies and loads are done outside the lock, so that they don't hold up other lookups
+        if (cached != null)
+            return cached.deepCopy();
+        YamlElement element = loader.load();
+        // the cached tree is only ever read, so it is kept frozen in its most compact form
+        put(key, new Entry(size, modified, weight, element.freeze()));
+        return element;
+    }
+
+    private synchronized void put(Object key, Entry entry) {
+        Entry previous = entries.remove(key);
+        if (previous != null)
+            bytes -= previous.weight;
+        // a document larger than the whole cache would only evict everything else
+        if (entry.weight > maxBytes)
+            return;
+        entries.put(key, entry);
+        bytes += entry.weight;
+        Iterator<Map.Entry<Object, Entry>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            bytes -= eldest.weight;
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes the document parsed from the file from the cache
+     *
+     * @param file The file
+     * @throws IOException If the canonical path of the file can't be resolved
+     */
+    public synchronized void invalidate(File file) throws IOException {
+        Entry entry = entries.remove(file.getCanonicalFile());
+        if (entry != null)
+            bytes -= entry.weight;
+    }
+
+    /**
+     * Removes every document from the cache. The counters are kept.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * @return The number of documents cached
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return The total size of the YAML the cached documents were parsed from, in bytes
+     * for files and in characters for {@link String}s
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return The number of lookups that found the document cached
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * @return The number of lookups that had to parse the document
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * @return The number of documents evicted to make room for others
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    public static class Builder {
+
+        private int maxEntries = 128;
+        private long maxBytes = 64L << 20;
+
+        /**
+         * @param maxEntries The maximum number of documents cached. Defaults to 128.
+         * @return this object
+         */
+        public Builder setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * @param maxBytes The maximum total size of the YAML the cached documents were parsed
+         *                 from. The trees take several times more memory than their YAML.
+         *                 Defaults to 64 MiB.
+         * @return this object
+         */
+        public Builder setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * Builds a {@link DocumentCache} object
+         *
+         * @return The {@link DocumentCache}
+         * @throws IllegalArgumentException If a maximum isn't positive
+         */
+        public DocumentCache build() {
+            if (maxEntries <= 0 || maxBytes <= 0)
+                throw new IllegalArgumentException("The maximums must be positive");
+            return new DocumentCache(maxEntries, maxBytes);
+        }
+
+    }
+
+}
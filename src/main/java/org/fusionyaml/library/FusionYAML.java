@@ -27,8 +27,12 @@ import org.fusionyaml.library.internal.YamlDumper;
 import org.fusionyaml.library.internal.YamlLoader;
 import org.fusionyaml.library.io.DocumentReader;
 import org.fusionyaml.library.io.DocumentWriter;
+import org.fusionyaml.library.io.MappedFileReader;
 import org.fusionyaml.library.io.MultiDocumentReader;
 import org.fusionyaml.library.io.MultiDocumentWriter;
+import org.fusionyaml.library.io.Utf8Writer;
+import org.fusionyaml.library.io.YamlReader;
+import org.fusionyaml.library.object.ElementInterner;
 import org.fusionyaml.library.object.YamlElement;
 import org.fusionyaml.library.object.YamlNull;
 import org.fusionyaml.library.object.YamlObject;
@@ -39,7 +43,13 @@ import org.yaml.snakeyaml.Yaml;
 
 import java.io.*;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 
 /**
@@ -64,24 +74,36 @@ public class FusionYAML {
     private static final Gson GSON_DEFAULT = new GsonBuilder().create();
     private static final Gson GSON_PRETTY_PRINTING = new GsonBuilder().setPrettyPrinting().create();
     private static final YamlOptions YAML_DEFAULT_OPTIONS = new YamlOptions();
+    private static final FusionYAML DEFAULT = new FusionYAML();
     
     // Constant object fields
     private final Map<Type, TypeAdapter> classTypeAdapterMap;
     private final YamlOptions options;
     
-    private final Yaml yaml;
-    private final YamlDumper dumper = new YamlDumper();
+    private final YamlDumper dumper;
     private final Converter converter = new Converter();
-    private final YamlLoader loader = new YamlLoader();
+    private final YamlLoader loader;
+    private final DocumentCache documentCache;
+    private final StringInterner stringInterner;
+    private final ElementInterner elementInterner;
     
     public FusionYAML(YamlOptions options) {
         this(options, new HashMap<>(10));
     }
     
     FusionYAML(YamlOptions options, Map<Type, TypeAdapter> adapterMap) {
+        this(options, adapterMap, null, null, null);
+    }
+    
+    FusionYAML(YamlOptions options, Map<Type, TypeAdapter> adapterMap, DocumentCache documentCache,
+               StringInterner stringInterner, ElementInterner elementInterner) {
         classTypeAdapterMap = adapterMap;
+        this.documentCache = documentCache;
+        this.stringInterner = stringInterner;
+        this.elementInterner = elementInterner;
+        this.loader = new YamlLoader(stringInterner, elementInterner);
         this.options = options != null ? options : YAML_DEFAULT_OPTIONS;
-        this.yaml = new Yaml(options == null ? YAML_DEFAULT_OPTIONS.dumperOptions() : options.dumperOptions());
+        this.dumper = new YamlDumper(this.options);
         classTypeAdapterMap.put(Collection.class, new CollectionTypeAdapter<>(this));
         classTypeAdapterMap.put(Map.class, new MapTypeAdapter<>(this));
         classTypeAdapterMap.put(Number.class, new PrimitiveTypeAdapter(this));
@@ -114,6 +136,59 @@ public class FusionYAML {
         return options;
     }
 
+    /**
+     * @return The {@link DocumentCache} parsed documents are cached in, or {@code null}
+     * if they aren't cached
+     */
+    public DocumentCache getDocumentCache() {
+        return documentCache;
+    }
+
+    /**
+     * @return The {@link StringInterner} mapping keys and string values are interned with
+     * while loading, or {@code null} if they aren't interned
+     */
+    public StringInterner getStringInterner() {
+        return stringInterner;
+    }
+
+    /**
+     * @return The {@link ElementInterner} equal objects, arrays and scalars are shared
+     * with while loading, or {@code null} if they aren't shared
+     */
+    public ElementInterner getElementInterner() {
+        return elementInterner;
+    }
+
+    // Makes the reader intern strings and elements with this instance's interners
+    private <R extends YamlReader> R withInterner(R reader) {
+        reader.setStringInterner(stringInterner);
+        reader.setElementInterner(elementInterner);
+        return reader;
+    }
+
+    /**
+     * Gets the {@link YamlDumper} used by this instance's writers. It converts the
+     * options once and keeps a snakeyaml {@link Yaml} for each thread, so that
+     * they aren't built again every time something is written.
+     *
+     * @return The {@link YamlDumper}
+     */
+    public YamlDumper getDumper() {
+        return dumper;
+    }
+
+    /**
+     * Gets a shared {@link FusionYAML} with the default options and {@link TypeAdapter}s.
+     * It is thread-safe and is used whenever no {@link FusionYAML} is passed in, rather
+     * than creating a new one each time.
+     *
+     * @return The default {@link FusionYAML}
+     */
+    public static FusionYAML getDefault() {
+        return DEFAULT;
+    }
+
     private static <T> TypeAdapter<T> getTypeAdapter(Map<Type, TypeAdapter> classTypeAdapterMap, Type as) {
         TypeAdapter adapter = null;
         int lpsCount = -1;
@@ -167,19 +242,86 @@ public class FusionYAML {
      * {@link YamlParseFailedException} may be thrown if an error
      * occurred while parsing or if the parser can't construe elements in the string.
      * {@link IOException} may also be thrown if an IO error occurred.
+     * <p>
+     * If {@link YamlOptions#isLazyLoading()} is enabled, the mappings and sequences
+     * in the document are only built the first time they are accessed.
      *
      * @param reader The reader from which the contents will be extracted
      * @return A {@link YamlObject} loaded from the reader
      * @throws YamlParseFailedException If an IO error had occurred while reading
      */
     public YamlElement fromYAML(Reader reader) throws YamlParseFailedException {
-        try (DocumentReader docReader = new DocumentReader(reader)) {
-            return docReader.readDocument();
+        try (DocumentReader docReader = withInterner(new DocumentReader(reader))) {
+            return options.isLazyLoading() ? docReader.readDocumentLazily() : docReader.readDocument();
+        } catch (IOException e) {
+            throw new YamlParseFailedException(e);
+        }
+    }
+
+    /**
+     * Opens a {@link Reader} for the file, which is a {@link MappedFileReader} if
+     * {@link YamlOptions#isMemoryMappedInput()} is enabled. Either way, the file is
+     * decoded as UTF-8, which files are written in.
+     *
+     * @param file The file
+     * @return A {@link Reader} for the file
+     * @throws YamlParseFailedException If the file can't be opened
+     */
+    public Reader openReader(File file) {
+        try {
+            return options.isMemoryMappedInput() ? new MappedFileReader(file)
+                    : new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new YamlParseFailedException(e);
+        }
+    }
+
+    /**
+     * Reads only the sections of the document that are included in the
+     * {@link PathProjection}. Everything else is skipped while parsing, so loading
+     * a small part of a large document is much cheaper than loading all of it.
+     *
+     * @param reader     The reader from which the contents will be extracted
+     * @param projection The sections to load
+     * @return A {@link YamlObject} containing only the included sections
+     * @throws YamlParseFailedException If an error had occurred while reading
+     */
+    public YamlObject fromYAML(Reader reader, PathProjection projection) throws YamlParseFailedException {
+        try (DocumentReader docReader = withInterner(new DocumentReader(reader))) {
+            return docReader.readDocument(projection);
         } catch (IOException e) {
             throw new YamlParseFailedException(e);
         }
     }
 
+    /**
+     * Reads only the sections of the document in the file that are included in
+     * the {@link PathProjection}
+     *
+     * @param file       The file
+     * @param projection The sections to load
+     * @return A {@link YamlObject} containing only the included sections
+     * @throws YamlParseFailedException If an error had occurred while reading
+     * @see #fromYAML(Reader, PathProjection)
+     */
+    public YamlObject fromYAML(File file, PathProjection projection) throws YamlParseFailedException {
+        return fromYAML(openReader(file), projection);
+    }
+
+    /**
+     * Reads only the sections of the raw YAML {@link String} that are included in
+     * the {@link PathProjection}
+     *
+     * @param raw        The raw YAML {@link String}
+     * @param projection The sections to load
+     * @return A {@link YamlObject} containing only the included sections
+     * @throws YamlParseFailedException If an error had occurred while reading
+     * @see #fromYAML(Reader, PathProjection)
+     */
+    public YamlObject fromYAML(String raw, PathProjection projection) throws YamlParseFailedException {
+        return fromYAML(new StringReader(raw), projection);
+    }
+
     private static Type adjPrimitive(Type type) {
         if (type.getTypeName().equals("int")) return Integer.class;
         if (type.getTypeName().equals("double")) return Double.class;
@@ -206,14 +348,28 @@ public class FusionYAML {
      * {@link YamlParseFailedException} may be thrown if an error
      * occurred while parsing. If the raw YAML {@link String} violates the YAML syntax,
      * {@link YamlParseFailedException} will be thrown.
+     * <p>
+     * If a {@link DocumentCache} is set, a copy of the cached document is returned
+     * when the same {@link String} was already parsed.
      *
      * @param raw The raw YAML {@link String}
      * @return The {@link YamlElement} loaded from a raw YAML {@link String}
      * @throws YamlParseFailedException If an error had occurred while reading
      */
     public YamlElement fromYAML(String raw) throws YamlParseFailedException {
+        if (documentCache != null) {
+            try {
+                return documentCache.get(raw, () -> parse(raw));
+            } catch (IOException e) {
+                throw new YamlParseFailedException(e);
+            }
+        }
+        return parse(raw);
+    }
+
+    private YamlElement parse(String raw) {
         try {
-            try (DocumentReader reader = new DocumentReader(raw)) {
+            try (DocumentReader reader = withInterner(new DocumentReader(raw))) {
                 return reader.readDocument();
             }
         } catch (Exception e) {
@@ -288,15 +444,65 @@ public class FusionYAML {
 
     /**
      * Reads a {@link YamlElement} from the file.
+     * <p>
+     * If {@link YamlOptions#isParallelParsing()} is enabled, the top-level entries
+     * of a document whose root is a mapping are parsed in parallel. See
+     * {@link #fromYAMLParallel(File, Executor)}. Lazy loading takes precedence over
+     * parallel parsing, since the latter builds the whole document. If {@link YamlOptions#isMemoryMappedInput()}
+     * is enabled, the file is memory-mapped and decoded as UTF-8.
+     * <p>
+     * If a {@link DocumentCache} is set, a copy of the cached document is returned
+     * as long as the file didn't change since it was parsed. Cached documents are
+     * never loaded lazily.
      *
      * @param file The file
      * @return A {@link YamlElement}, representative of the data
      * in the file.
      */
     public YamlElement fromYAML(File file) {
-        try {
-            return this.fromYAML(new FileReader(file));
-        } catch (FileNotFoundException e) {
+        if (documentCache != null) {
+            // the whole document is cached, so it isn't loaded lazily
+            try {
+                return documentCache.get(file, () -> options.isParallelParsing()
+                        ? fromYAMLParallel(file, ForkJoinPool.commonPool()) : parse(openReader(file)));
+            } catch (IOException e) {
+                throw new YamlParseFailedException(e);
+            }
+        }
+        if (options.isParallelParsing() && !options.isLazyLoading())
+            return fromYAMLParallel(file, ForkJoinPool.commonPool());
+        return this.fromYAML(openReader(file));
+    }
+
+    private YamlElement parse(Reader reader) {
+        try (DocumentReader docReader = withInterner(new DocumentReader(reader))) {
+            return docReader.readDocument();
+        } catch (IOException e) {
+            throw new YamlParseFailedException(e);
+        }
+    }
+
+    /**
+     * Reads a {@link YamlElement} from the file, parsing the top-level entries of
+     * the document in parallel on the {@link Executor} passed in. The entries are
+     * kept in the order they appear in. If splitting the document isn't safe,
+     * for instance because its root isn't a mapping or because it contains
+     * anchors and aliases, the document is parsed serially.
+     *
+     * @param file     The file
+     * @param executor The {@link Executor} the entries are parsed on
+     * @return A {@link YamlElement}, representative of the data
+     * in the file.
+     */
+    public YamlElement fromYAMLParallel(File file, Executor executor) {
+        try (Reader reader = openReader(file)) {
+            StringBuilder builder = new StringBuilder((int) Math.min(file.length(), Integer.MAX_VALUE - 8));
+            char[] chars = new char[8192];
+            int read;
+            while ((read = reader.read(chars)) != -1)
+                builder.append(chars, 0, read);
+            return loader.loadParallel(builder.toString(), executor);
+        } catch (IOException e) {
             throw new YamlParseFailedException(e);
         }
     }
@@ -328,14 +534,13 @@ public class FusionYAML {
     }
 
     /**
-     * Converts a {@link YamlElement} to a dumpable {@link Object} and then utilize
-     * snakeyaml's dumper to dump the object
+     * Dumps a {@link YamlElement} to a YAML {@link String}
      *
      * @param element The element
      * @return A YAML string
      */
     public String toYAML(YamlElement element) {
-        return yaml.dump((element));
+        return dumper.dump(element);
     }
 
     /**
@@ -348,7 +553,7 @@ public class FusionYAML {
      * @return The JSON {@link String} converted from a YAML {@link String}
      */
     public String toJSON(String yaml, Gson gson) {
-        Object load = this.yaml.load(yaml);
+        Object load = dumper.getYaml().load(yaml);
         return gson.toJson(load);
     }
 
@@ -390,6 +595,40 @@ public class FusionYAML {
         }
     }
 
+    /**
+     * Dumps a {@link YamlElement} to an {@link OutputStream}, encoded as UTF-8. The
+     * {@link OutputStream} is flushed, but left open.
+     *
+     * @param element The element
+     * @param out     The {@link OutputStream}
+     */
+    public void toYAML(YamlElement element, OutputStream out) {
+        toYAML(element, new Utf8Writer(out, false));
+    }
+
+    /**
+     * Dumps a {@link YamlElement} to a {@link WritableByteChannel}, encoded as UTF-8.
+     * The {@link WritableByteChannel} is left open.
+     *
+     * @param element The element
+     * @param channel The {@link WritableByteChannel}
+     */
+    public void toYAML(YamlElement element, WritableByteChannel channel) {
+        toYAML(element, new Utf8Writer(channel, false));
+    }
+
+    /**
+     * Dumps a {@link YamlElement} into a {@link ByteBuffer}, encoded as UTF-8. The
+     * bytes are put at the buffer's position. If the buffer doesn't have enough
+     * space left, a {@link java.nio.BufferOverflowException} is thrown.
+     *
+     * @param element The element
+     * @param buffer  The {@link ByteBuffer}
+     */
+    public void toYAML(YamlElement element, ByteBuffer buffer) {
+        toYAML(element, new Utf8Writer(buffer));
+    }
+
     /**
      * Converts a {@link YamlElement} to a JSON {@link String}. The method also requires a {@link Gson} instance, which
      * will be used to convert the {@link YamlElement} object to a JSON {@link String}.
@@ -498,7 +737,7 @@ public class FusionYAML {
      */
     public Iterable<YamlElement> fromMultidocYAML(Reader reader) {
         try {
-            try (MultiDocumentReader multiDocumentReader = new MultiDocumentReader(reader)) {
+            try (MultiDocumentReader multiDocumentReader = withInterner(new MultiDocumentReader(reader))) {
                 return multiDocumentReader.readDocuments();
             }
         } catch (IOException e) {
@@ -514,11 +753,7 @@ public class FusionYAML {
      * document.
      */
     public Iterable<YamlElement> fromMultidocYAML(File file) {
-        try {
-            return this.fromMultidocYAML(new FileReader(file));
-        } catch (FileNotFoundException e) {
-            throw new YamlParseFailedException(e);
-        }
+        return this.fromMultidocYAML(openReader(file));
     }
 
     /**
@@ -531,6 +766,135 @@ public class FusionYAML {
         return fromMultidocYAML(new StringReader(string));
     }
 
+    /**
+     * Lazily reads multiple yaml documents from the reader. A document is only
+     * parsed when the returned {@link Stream} pulls it, so only one document is
+     * held in memory at a time. Closing the {@link Stream} closes the reader.
+     *
+     * @param reader The reader
+     * @return A {@link Stream} of {@link YamlElement}s, each representing a
+     * document.
+     */
+    public Stream<YamlElement> streamMultidocYAML(Reader reader) {
+        return withInterner(new MultiDocumentReader(reader)).stream();
+    }
+
+    /**
+     * Lazily reads multiple documents from the file. A document is only parsed
+     * when the returned {@link Stream} pulls it. Closing the {@link Stream} closes
+     * the file.
+     *
+     * @param file A file to read from
+     * @return A {@link Stream} of {@link YamlElement}s, each representing a
+     * document.
+     */
+    public Stream<YamlElement> streamMultidocYAML(File file) {
+        return withInterner(new MultiDocumentReader(file)).stream();
+    }
+
+    /**
+     * Lazily reads multiple documents from a string.
+     *
+     * @param string The string to read from
+     * @return A {@link Stream} of {@link YamlElement}s, each representing a document.
+     */
+    public Stream<YamlElement> streamMultidocYAML(String string) {
+        return withInterner(new MultiDocumentReader(string)).stream();
+    }
+
+    /**
+     * Lazily reads multiple yaml documents from the reader and deserializes each
+     * of them into an object of type {@link T}. A document is only parsed and
+     * deserialized when the returned {@link Stream} pulls it. Closing the
+     * {@link Stream} closes the reader.
+     *
+     * @param reader The reader
+     * @param type   The type to deserialize each document into
+     * @param <T>    The type
+     * @return A {@link Stream} of deserialized documents
+     */
+    public <T> Stream<T> streamMultidocYAML(Reader reader, Type type) {
+        return withInterner(new MultiDocumentReader(reader)).deserializeStream(type, this);
+    }
+
+    /**
+     * Lazily reads multiple documents from the file and deserializes each of
+     * them into an object of type {@link T}. Closing the {@link Stream} closes
+     * the file.
+     *
+     * @param file The file to read from
+     * @param type The type to deserialize each document into
+     * @param <T>  The type
+     * @return A {@link Stream} of deserialized documents
+     */
+    public <T> Stream<T> streamMultidocYAML(File file, Type type) {
+        return withInterner(new MultiDocumentReader(file)).deserializeStream(type, this);
+    }
+
+    /**
+     * Reads multiple yaml documents from the reader, parsing the documents in
+     * parallel on the {@link Executor} passed in. The documents are returned in
+     * the order they appear in.
+     *
+     * @param reader   The reader
+     * @param executor The {@link Executor} the documents are parsed on
+     * @return A {@link List} of {@link YamlElement}s, each representing a document.
+     */
+    public List<YamlElement> fromMultidocYAMLParallel(Reader reader, Executor executor) {
+        try {
+            try (MultiDocumentReader multiDocumentReader = withInterner(new MultiDocumentReader(reader))) {
+                return multiDocumentReader.readDocumentsParallel(executor);
+            }
+        } catch (IOException e) {
+            throw new YamlParseFailedException(e);
+        }
+    }
+
+    /**
+     * Reads multiple yaml documents from the reader, parsing the documents in
+     * parallel on the common {@link ForkJoinPool}.
+     *
+     * @param reader The reader
+     * @return A {@link List} of {@link YamlElement}s, each representing a document.
+     */
+    public List<YamlElement> fromMultidocYAMLParallel(Reader reader) {
+        return fromMultidocYAMLParallel(reader, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Reads multiple documents from the file, parsing the documents in parallel
+     * on the {@link Executor} passed in.
+     *
+     * @param file     A file to read from
+     * @param executor The {@link Executor} the documents are parsed on
+     * @return A {@link List} of {@link YamlElement}s, each representing a document.
+     */
+    public List<YamlElement> fromMultidocYAMLParallel(File file, Executor executor) {
+        return this.fromMultidocYAMLParallel(openReader(file), executor);
+    }
+
+    /**
+     * Reads multiple documents from the file, parsing the documents in parallel
+     * on the common {@link ForkJoinPool}.
+     *
+     * @param file A file to read from
+     * @return A {@link List} of {@link YamlElement}s, each representing a document.
+     */
+    public List<YamlElement> fromMultidocYAMLParallel(File file) {
+        return fromMultidocYAMLParallel(file, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Reads multiple documents from a string, parsing the documents in parallel
+     * on the common {@link ForkJoinPool}.
+     *
+     * @param string The string to read from
+     * @return A {@link List} of {@link YamlElement}s, each representing a document.
+     */
+    public List<YamlElement> fromMultidocYAMLParallel(String string) {
+        return loader.loadDocumentsParallel(string);
+    }
+
     /**
      * Writes multiple documents included in the {@link Iterable} object passed
      * in to the {@link Writer} passed in.
@@ -583,6 +947,10 @@ public class FusionYAML {
         
         // An instance of YamlOption's builder
         private final YamlOptions.Builder builder;
+
+        private DocumentCache documentCache;
+        private StringInterner stringInterner;
+        private ElementInterner elementInterner;
         
         public Builder() {
             ctaMap = new LinkedHashMap<>();
@@ -598,6 +966,9 @@ public class FusionYAML {
             if (builder != null) {
                 this.ctaMap = builder.ctaMap;
                 this.builder = builder.builder;
+                this.documentCache = builder.documentCache;
+                this.stringInterner = builder.stringInterner;
+                this.elementInterner = builder.elementInterner;
             } else {
                 this.ctaMap = new LinkedHashMap<>();
                 this.builder = new YamlOptions.Builder();
@@ -779,13 +1150,84 @@ public class FusionYAML {
             return this;
         }
 
+        /**
+         * @param parallelParsing Whether the top-level entries of large documents read
+         *                        from files are parsed in parallel or not
+         * @return This instance
+         */
+        public Builder parallelParsing(boolean parallelParsing) {
+            builder.setParallelParsing(parallelParsing);
+            return this;
+        }
+
+        /**
+         * @param memoryMappedInput Whether files are memory-mapped when read or not. They
+         *                          are decoded as UTF-8 either way
+         * @return This instance
+         */
+        public Builder memoryMappedInput(boolean memoryMappedInput) {
+            builder.setMemoryMappedInput(memoryMappedInput);
+            return this;
+        }
+
+        /**
+         * @param lazyLoading Whether the mappings and sequences of loaded documents are
+         *                    only built the first time they are accessed or not
+         * @return This instance
+         */
+        public Builder lazyLoading(boolean lazyLoading) {
+            builder.setLazyLoading(lazyLoading);
+            return this;
+        }
+
+        /**
+         * @param binarySnapshots Whether file configurations keep a binary snapshot of the
+         *                        loaded tree next to the file, loaded instead of the file
+         *                        as long as it doesn't change, or not
+         * @return This instance
+         */
+        public Builder binarySnapshots(boolean binarySnapshots) {
+            builder.setBinarySnapshots(binarySnapshots);
+            return this;
+        }
+
+        /**
+         * @param documentCache The {@link DocumentCache} parsed files and {@link String}s are
+         *                      cached in, or {@code null} to parse them every time
+         * @return This instance
+         */
+        public Builder documentCache(DocumentCache documentCache) {
+            this.documentCache = documentCache;
+            return this;
+        }
+
+        /**
+         * @param stringInterner The {@link StringInterner} mapping keys and string values are
+         *                       interned with while loading, or {@code null} to intern nothing
+         * @return This instance
+         */
+        public Builder stringInterner(StringInterner stringInterner) {
+            this.stringInterner = stringInterner;
+            return this;
+        }
+
+        /**
+         * @param elementInterner The {@link ElementInterner} equal objects, arrays and scalars
+         *                        are shared with while loading, or {@code null} to share nothing
+         * @return This instance
+         */
+        public Builder elementInterner(ElementInterner elementInterner) {
+            this.elementInterner = elementInterner;
+            return this;
+        }
+
         /**
          * Builds a {@link FusionYAML} object
          *
          * @return A new {@link FusionYAML} instance
          */
         public FusionYAML build() {
-            return new FusionYAML(builder.build(), ctaMap);
+            return new FusionYAML(builder.build(), ctaMap, documentCache, stringInterner, elementInterner);
         }
 
     }
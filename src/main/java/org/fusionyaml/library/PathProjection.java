@@ -0,0 +1,123 @@
+package org.fusionyaml.library;
+
+import com.google.common.base.Splitter;
+
+import java.util.*;
+
+/**
+ * A set of paths to the sections of a document that should be loaded. When a
+ * document is loaded with a {@link PathProjection}, only the sections under those
+ * paths are built and everything else is skipped while parsing.
+ * <p>
+ * Each path is a list of keys, each of which is a child of the previous one. A
+ * {@code *} matches any key. For example, {@code PathProjection.of("database.*", "features.flags")}
+ * loads all of {@code database} and the {@code flags} under {@code features}.
+ * <p>
+ * A {@link PathProjection} is immutable. Each key in a path leads to another
+ * {@link PathProjection}, which can be retrieved with {@link #child(String)}.
+ */
+public final class PathProjection {
+
+    private static final String WILDCARD = "*";
+    private static final PathProjection ALL = new PathProjection(true);
+
+    private final Map<String, PathProjection> children = new HashMap<>();
+    private PathProjection wildcard;
+    private boolean all;
+
+    private PathProjection(boolean all) {
+        this.all = all;
+    }
+
+    /**
+     * Creates a {@link PathProjection} from paths whose keys are separated by {@code '.'}
+     *
+     * @param paths The paths
+     * @return The {@link PathProjection}
+     */
+    public static PathProjection of(String... paths) {
+        return of('.', paths);
+    }
+
+    /**
+     * Creates a {@link PathProjection} from paths whose keys are separated by the
+     * separator passed in
+     *
+     * @param separator The separator
+     * @param paths     The paths
+     * @return The {@link PathProjection}
+     */
+    public static PathProjection of(char separator, String... paths) {
+        List<List<String>> split = new ArrayList<>(paths.length);
+        for (String path : paths)
+            split.add(Splitter.on(separator).splitToList(path));
+        return of(split);
+    }
+
+    /**
+     * Creates a {@link PathProjection} from paths, each expressed as a {@link List}
+     * of keys
+     *
+     * @param paths The paths
+     * @return The {@link PathProjection}
+     */
+    public static PathProjection of(Collection<List<String>> paths) {
+        PathProjection root = new PathProjection(false);
+        for (List<String> path : paths) {
+            PathProjection projection = root;
+            for (String key : path) {
+                if (projection.all)
+                    break;
+                projection = projection.add(key);
+            }
+            projection.all = true;
+        }
+        return root;
+    }
+
+    private PathProjection add(String key) {
+        if (WILDCARD.equals(key)) {
+            if (wildcard == null)
+                wildcard = new PathProjection(false);
+            return wildcard;
+        }
+        return children.computeIfAbsent(key, k -> new PathProjection(false));
+    }
+
+    /**
+     * Gets the projection of the children of the key passed in. If the key
+     * matches both a {@code *} and the key itself, both are merged.
+     *
+     * @param key The key
+     * @return The projection under the key, or {@code null} if the key isn't
+     * included
+     */
+    public PathProjection child(String key) {
+        if (all)
+            return ALL;
+        PathProjection child = children.get(key);
+        if (child == null)
+            return wildcard;
+        return wildcard == null ? child : union(child, wildcard);
+    }
+
+    /**
+     * @return Whether everything under this projection is included or not
+     */
+    public boolean includesAll() {
+        return all;
+    }
+
+    private static PathProjection union(PathProjection first, PathProjection second) {
+        if (first.all || second.all)
+            return ALL;
+        PathProjection union = new PathProjection(false);
+        union.children.putAll(first.children);
+        second.children.forEach((key, child) -> union.children.merge(key, child, PathProjection::union));
+        if (first.wildcard == null || second.wildcard == null)
+            union.wildcard = first.wildcard != null ? first.wildcard : second.wildcard;
+        else union.wildcard = union(first.wildcard, second.wildcard);
+        return union;
+    }
+
+}
@@ -0,0 +1,103 @@
+package org.fusionyaml.library;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A table of canonical {@link String}s, used while loading documents so that equal
+ * mapping keys, and optionally equal short string values, share a single {@link String}
+ * instead of each occurrence being its own copy. A sequence of thousands of mappings
+ * with the same keys then holds each key once.
+ * <p>
+ * A {@link StringInterner} can be used for a single load, by passing it to a reader,
+ * or for every load of a {@link FusionYAML} instance, by passing it to
+ * {@link FusionYAML.Builder#stringInterner(StringInterner)}. Once the table holds the
+ * maximum number of strings, the strings already in it are still shared but no new
+ * ones are added. Documents loaded lazily aren't interned.
+ * <p>
+ * A {@link StringInterner} is thread-safe.
+ */
+public final class StringInterner {
+
+    private final ConcurrentHashMap<String, String> table = new ConcurrentHashMap<>();
+    private final LongAdder deduplicated = new LongAdder();
+    private final int maxValueLength;
+    private final int maxSize;
+
+    /**
+     * Creates a {@link StringInterner} that only interns mapping keys, and holds up to
+     * 65536 of them
+     */
+    public StringInterner() {
+        this(0, 65536);
+    }
+
+    /**
+     * @param maxValueLength The maximum length of the string values interned. If it is
+     *                       zero, only mapping keys are interned.
+     * @param maxSize        The maximum number of strings held
+     * @throws IllegalArgumentException If the maximum length is negative or the maximum
+     *                                  number of strings isn't positive
+     */
+    public StringInterner(int maxValueLength, int maxSize) {
+        if (maxValueLength < 0 || maxSize <= 0)
+            throw new IllegalArgumentException("Invalid maximum length or size");
+        this.maxValueLength = maxValueLength;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param key A mapping key
+     * @return The canonical {@link String} equal to the key
+     */
+    public String internKey(String key) {
+        return intern(key);
+    }
+
+    /**
+     * @param value A string value
+     * @return The canonical {@link String} equal to the value, or the value itself if
+     * it is too long to be interned
+     */
+    public String internValue(String value) {
+        return value.length() <= maxValueLength ? intern(value) : value;
+    }
+
+    private String intern(String str) {
+        String canonical = table.get(str);
+        if (canonical == null) {
+            if (table.size() >= maxSize)
+                return str;
+            canonical = table.putIfAbsent(str, str);
+            if (canonical == null)
+                return str;
+        }
+        if (canonical != str)
+            deduplicated.increment();
+        return canonical;
+    }
+
+    /**
+     * @return The number of {@link String}s that were replaced by an equal one already
+     * in the table
+     */
+    public long getDeduplicatedCount() {
+        return deduplicated.sum();
+    }
+
+    /**
+     * @return The number of {@link String}s in the table
+     */
+    public int size() {
+        return table.size();
+    }
+
+    /**
+     * Removes every {@link String} from the table. The count of deduplicated strings
+     * is kept.
+     */
+    public void clear() {
+        table.clear();
+    }
+
+}
@@ -28,6 +28,10 @@ public class YamlOptions {
     private DumperOptions.LineBreak lineBreak = DumperOptions.LineBreak.UNIX;
     private DumperOptions.NonPrintableStyle nonPrintableStyle = DumperOptions.NonPrintableStyle.BINARY;
     private DumperOptions.FlowStyle flowStyle = DumperOptions.FlowStyle.BLOCK;
+    private boolean parallelParsing = false;
+    private boolean memoryMappedInput = false;
+    private boolean lazyLoading = false;
+    private boolean binarySnapshots = false;
 
     public YamlOptions() {
         options = new DumperOptions();
@@ -100,6 +104,22 @@ public class YamlOptions {
         return flowStyle;
     }
 
+    public boolean isParallelParsing() {
+        return parallelParsing;
+    }
+
+    public boolean isMemoryMappedInput() {
+        return memoryMappedInput;
+    }
+
+    public boolean isLazyLoading() {
+        return lazyLoading;
+    }
+
+    public boolean isBinarySnapshots() {
+        return binarySnapshots;
+    }
+
     DumperOptions dumperOptions() {
         return options;
     }
@@ -270,6 +290,48 @@ public class YamlOptions {
             options.options.setDefaultFlowStyle(flowStyle);
             return this;
         }
+
+        /**
+         * @param parallelParsing If set to true, the top-level entries of large documents read
+         *                        from files are parsed in parallel whenever it's safe to do so
+         * @return This object
+         */
+        public Builder setParallelParsing(boolean parallelParsing) {
+            options.parallelParsing = parallelParsing;
+            return this;
+        }
+
+        /**
+         * @param memoryMappedInput If set to true, files are memory-mapped when read rather than
+         *                          read through a {@link java.io.FileInputStream}. They are decoded
+         *                          as UTF-8 either way
+         * @return This object
+         */
+        public Builder setMemoryMappedInput(boolean memoryMappedInput) {
+            options.memoryMappedInput = memoryMappedInput;
+            return this;
+        }
+
+        /**
+         * @param lazyLoading If set to true, the mappings and sequences of loaded documents are
+         *                    only built the first time they are accessed
+         * @return This object
+         */
+        public Builder setLazyLoading(boolean lazyLoading) {
+            options.lazyLoading = lazyLoading;
+            return this;
+        }
+
+        /**
+         * @param binarySnapshots If set to true, file configurations keep a binary snapshot of
+         *                        the loaded tree next to the file, which is loaded instead of
+         *                        parsing the file as long as the file doesn't change
+         * @return This object
+         */
+        public Builder setBinarySnapshots(boolean binarySnapshots) {
+            options.binarySnapshots = binarySnapshots;
+            return this;
+        }
     
         public YamlOptions build() {
             return options;
@@ -289,6 +351,8 @@ public class YamlOptions {
                 (this.lineBreak == options2.lineBreak) && (this.maxKeyLength == options2.maxKeyLength)
                 && (this.nonPrintableStyle == options2.nonPrintableStyle) && (this.scalarStyle == options2.scalarStyle)
                 && (this.timeZone.getID().equals(options2.timeZone.getID())) && (this.version == options2.getVersion())
-                && (this.width == options2.width);
+                && (this.width == options2.width) && (this.parallelParsing == options2.parallelParsing)
+                && (this.memoryMappedInput == options2.memoryMappedInput) && (this.lazyLoading == options2.lazyLoading)
+                && (this.binarySnapshots == options2.binarySnapshots);
     }
 }
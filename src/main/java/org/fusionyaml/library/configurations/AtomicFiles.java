@@ -0,0 +1,85 @@
+package org.fusionyaml.library.configurations;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+
+/**
+ * Replaces files by writing a temporary file next to them, which is then moved over
+ * them. A temporary file is only readable and writable by its owner, so it is given
+ * the permissions, the owner and the group of the file it replaces before the move.
+ * Once moved, the directory is forced to the storage device where it can be, so that
+ * the new file survives a crash.
+ */
+final class AtomicFiles {
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * Creates a temporary file next to the target
+     *
+     * @param target The file that will be replaced
+     * @return The temporary file
+     * @throws IOException If the file couldn't be created
+     */
+    static Path createTempFile(Path target) throws IOException {
+        return Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+    }
+
+    /**
+     * Gives the temporary file the permissions, the owner and the group of another file,
+     * and moves it over the target, atomically if the file system supports it. The
+     * contents of the temporary file should be forced to the storage device already.
+     *
+     * @param temp   The temporary file, once written
+     * @param target The file that is replaced
+     * @param like   The file the attributes are taken from, or {@code null} to take them
+     *               from the target
+     * @throws IOException If the file couldn't be given its permissions or moved
+     */
+    static void replace(Path temp, Path target, Path like) throws IOException {
+        Path attributes = like != null ? like : target;
+        if (Files.exists(attributes))
+            copyAttributes(attributes, temp);
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        forceDirectory(target.getParent());
+    }
+
+    // Makes the rename durable. Directories can't be opened on some platforms, such as Windows
+    private static void forceDirectory(Path directory) {
+        if (directory == null)
+            return;
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+
+    // Only POSIX file systems are handled, elsewhere the temporary file already inherits the access of its directory
+    private static void copyAttributes(Path from, Path to) throws IOException {
+        PosixFileAttributeView source = Files.getFileAttributeView(from, PosixFileAttributeView.class);
+        PosixFileAttributeView copy = Files.getFileAttributeView(to, PosixFileAttributeView.class);
+        if (source == null || copy == null)
+            return;
+        PosixFileAttributes attributes = source.readAttributes();
+        copy.setPermissions(attributes.permissions());
+        try {
+            copy.setGroup(attributes.group());
+            copy.setOwner(attributes.owner());
+        } catch (IOException ignored) {
+            // only privileged users can give files away, the file then stays owned by whoever writes it
+        }
+    }
+
+}
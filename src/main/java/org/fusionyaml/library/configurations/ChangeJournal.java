@@ -0,0 +1,345 @@
+package org.fusionyaml.library.configurations;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.fusionyaml.library.PathProjection;
+import org.fusionyaml.library.exceptions.YamlException;
+import org.fusionyaml.library.object.*;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An append-only log of the changes made to a {@link YamlObject}, kept in a file next to
+ * the one of a {@link FileConfiguration}. Each change is appended as a single line of JSON,
+ * either {@code {"set":[path],"value":value}} or {@code {"remove":[path]}}, so that
+ * changing a key costs a write of the size of the change rather than of the whole file.
+ * <p>
+ * Replaying the journal on top of the file it belongs to gives back the changed contents.
+ * A line that was only partly written, because the process died while appending it, is
+ * dropped when the journal is replayed.
+ */
+@SuppressWarnings("deprecation")
+final class ChangeJournal implements org.fusionyaml.library.events.EntryChangeListener, Closeable {
+
+    private static final String SET = "set";
+    private static final String REMOVE = "remove";
+    private static final String VALUE = "value";
+    // JSON can't express NaN, so it is written as an object with this single key
+    private static final String NAN = "\u0000NaN";
+
+    private final File file;
+    private FileChannel channel;
+    private int entries;
+    private long size;
+    private boolean failed;
+
+    /**
+     * @param file The journal file, which doesn't have to exist
+     */
+    ChangeJournal(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @param file The file of a {@link FileConfiguration}
+     * @return The journal file kept next to it
+     */
+    static File journalFile(File file) {
+        return new File(file.getPath() + ".journal");
+    }
+
+    /**
+     * Applies the changes in the journal to the {@link YamlObject}. A partly written last
+     * line is cut off the journal. If a {@link PathProjection} is passed in, the changes
+     * to paths it doesn't include are skipped.
+     *
+     * @param object     The {@link YamlObject} the changes are applied to
+     * @param projection The sections of the file that are loaded, or {@code null}
+     * @throws IOException If an IO error occurred
+     */
+    void replay(YamlObject object, PathProjection projection) throws IOException {
+        entries = 0;
+        size = 0;
+        if (!file.exists())
+            return;
+        long length = repair();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty())
+                    continue;
+                apply(object, line, projection);
+                entries++;
+            }
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new YamlException("The journal " + file + " is corrupted", e);
+        }
+        size = length;
+    }
+
+    // Cuts off what follows the last line break, which is a line that was only partly written
+    private long repair() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long length = raf.length();
+            byte[] block = new byte[4096];
+            long end = length;
+            while (end > 0) {
+                int read = (int) Math.min(block.length, end);
+                raf.seek(end - read);
+                raf.readFully(block, 0, read);
+                for (int i = read - 1; i >= 0; i--) {
+                    if (block[i] == '\n') {
+                        long valid = end - read + i + 1;
+                        if (valid != length)
+                            raf.setLength(valid);
+                        return valid;
+                    }
+                }
+                end -= read;
+            }
+            raf.setLength(0);
+            return 0;
+        }
+    }
+
+    private void apply(YamlObject object, String line, PathProjection projection) throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(line));
+        List<String> path = null;
+        YamlElement value = YamlNull.NULL;
+        boolean remove = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (SET.equals(name) || REMOVE.equals(name)) {
+                remove = REMOVE.equals(name);
+                path = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext())
+                    path.add(reader.nextString());
+                reader.endArray();
+            } else if (VALUE.equals(name)) {
+                value = readElement(reader);
+            } else reader.skipValue();
+        }
+        reader.endObject();
+        if (path == null || path.isEmpty() || !includes(projection, path))
+            return;
+        if (remove)
+            object.remove(path);
+        else object.set(path, value);
+    }
+
+    private static boolean includes(PathProjection projection, List<String> path) {
+        for (String key : path) {
+            if (projection == null || projection.includesAll())
+                return true;
+            projection = projection.child(key);
+        }
+        return projection != null;
+    }
+
+    /**
+     * Appends the change to the journal
+     *
+     * @param object The {@link YamlObject} where the data is modified
+     * @param path   The path to the object
+     * @param value  The value the path contains, or {@code null} if the path was removed
+     * @throws YamlException If the change couldn't be appended
+     */
+    @Override
+    public void onChange(YamlObject object, List<String> path, Object value) {
+        try {
+            StringWriter line = new StringWriter();
+            JsonWriter writer = new JsonWriter(line);
+            writer.beginObject();
+            writer.name(value == null ? REMOVE : SET);
+            writer.beginArray();
+            for (String key : path)
+                writer.value(key);
+            writer.endArray();
+            if (value != null) {
+                writer.name(VALUE);
+                writeElement(writer, (YamlElement) value);
+            }
+            writer.endObject();
+            line.write('\n');
+            append(line.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            failed = true;
+            throw new YamlException("Couldn't append the change to the journal " + file, e);
+        }
+    }
+
+    private void append(byte[] bytes) throws IOException {
+        if (channel == null)
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        entries++;
+        size += bytes.length;
+    }
+
+    private static void writeElement(JsonWriter writer, YamlElement element) throws IOException {
+        if (element == null || element.isYamlNull()) {
+            writer.nullValue();
+        } else if (element.isYamlObject()) {
+            writer.beginObject();
+            for (Map.Entry<String, YamlElement> entry : element.getAsYamlObject().entrySet()) {
+                writer.name(entry.getKey());
+                writeElement(writer, entry.getValue());
+            }
+            writer.endObject();
+        } else if (element.isYamlArray()) {
+            writer.beginArray();
+            for (YamlElement item : element.getAsYamlArray())
+                writeElement(writer, item);
+            writer.endArray();
+        } else {
+            Object value = element.getAsYamlPrimitive().getValue();
+            if (value instanceof Boolean)
+                writer.value((Boolean) value);
+            else if (value instanceof Number)
+                writeNumber(writer, (Number) value);
+            else writer.value(value.toString());
+        }
+    }
+
+    // Infinities are written as numbers too large to be represented, which are read back as infinities
+    private static void writeNumber(JsonWriter writer, Number number) throws IOException {
+        if (number instanceof Double || number instanceof Float) {
+            double value = number.doubleValue();
+            if (Double.isNaN(value)) {
+                writer.beginObject().name(NAN).value(true).endObject();
+                return;
+            }
+            if (Double.isInfinite(value)) {
+                writer.jsonValue(value > 0 ? "1e999" : "-1e999");
+                return;
+            }
+        }
+        writer.value(number);
+    }
+
+    private static YamlElement readElement(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                YamlObject object = new YamlObject();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String key = reader.nextName();
+                    if (NAN.equals(key)) {
+                        reader.skipValue();
+                        reader.endObject();
+                        return new YamlPrimitive(Double.NaN);
+                    }
+                    object.set(key, readElement(reader));
+                }
+                reader.endObject();
+                return object;
+            case BEGIN_ARRAY:
+                YamlArray array = new YamlArray();
+                reader.beginArray();
+                while (reader.peek() != JsonToken.END_ARRAY)
+                    array.add(readElement(reader));
+                reader.endArray();
+                return array;
+            case BOOLEAN:
+                return new YamlPrimitive(reader.nextBoolean());
+            case NUMBER:
+                return new YamlPrimitive(toNumber(reader.nextString()));
+            case STRING:
+                return new YamlPrimitive(reader.nextString());
+            case NULL:
+                reader.nextNull();
+                return YamlNull.NULL;
+            default:
+                throw new IllegalStateException("Unexpected " + reader.peek() + " in the journal");
+        }
+    }
+
+    // Integers are read back the way the loader would construct them
+    private static Number toNumber(String str) {
+        if (str.indexOf('.') == -1 && str.indexOf('e') == -1 && str.indexOf('E') == -1) {
+            BigInteger integer = new BigInteger(str);
+            if (integer.bitLength() < 32)
+                return integer.intValue();
+            if (integer.bitLength() < 64)
+                return integer.longValue();
+            return integer;
+        }
+        return Double.parseDouble(str);
+    }
+
+    /**
+     * Forces the appended changes to the storage device
+     *
+     * @throws IOException If an IO error occurred
+     */
+    void sync() throws IOException {
+        if (channel != null)
+            channel.force(false);
+    }
+
+    /**
+     * Empties the journal, once the changes in it were written to the file it belongs to
+     *
+     * @throws IOException If an IO error occurred
+     */
+    void clear() throws IOException {
+        if (channel != null)
+            channel.truncate(0);
+        else if (file.exists())
+            Files.write(file.toPath(), new byte[0]);
+        entries = 0;
+        size = 0;
+        failed = false;
+    }
+
+    /**
+     * @return The number of changes in the journal
+     */
+    int getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return The size of the journal in bytes
+     */
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * @return Whether a change couldn't be appended, in which case the journal no longer
+     * holds all of the changes
+     */
+    boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Closes the journal file. Changes appended afterwards reopen it.
+     *
+     * @throws IOException If an IO error occurred
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+}
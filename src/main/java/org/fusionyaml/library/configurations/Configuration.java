@@ -21,6 +21,7 @@ import org.fusionyaml.library.events.ConfigurationChangeListener;
 import org.fusionyaml.library.events.FileSaveListener;
 import org.fusionyaml.library.events.Listener;
 import org.fusionyaml.library.exceptions.YamlDeserializationException;
+import org.fusionyaml.library.io.Utf8Writer;
 import org.fusionyaml.library.object.YamlElement;
 import org.fusionyaml.library.object.YamlNull;
 import org.fusionyaml.library.object.YamlObject;
@@ -31,8 +32,10 @@ import org.yaml.snakeyaml.DumperOptions;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.lang.reflect.Type;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
 
 
@@ -98,6 +101,32 @@ public interface Configuration {
      */
     void save(Writer writer) throws IOException;
 
+    /**
+     * Writes the contents into the {@link OutputStream}, encoded as UTF-8. The
+     * {@link OutputStream} is flushed, but left open.
+     *
+     * @param out The {@link OutputStream}
+     * @throws IOException If an IO error occurs
+     */
+    default void save(@NotNull OutputStream out) throws IOException {
+        try (Utf8Writer writer = new Utf8Writer(out, false)) {
+            save(writer);
+        }
+    }
+
+    /**
+     * Writes the contents into the {@link WritableByteChannel}, encoded as UTF-8.
+     * The {@link WritableByteChannel} is left open.
+     *
+     * @param channel The {@link WritableByteChannel}
+     * @throws IOException If an IO error occurs
+     */
+    default void save(@NotNull WritableByteChannel channel) throws IOException {
+        try (Utf8Writer writer = new Utf8Writer(channel, false)) {
+            save(writer);
+        }
+    }
+
     /**
      * Sets the value in the path. If the path didn't exist, a new path will be created with the
      * value set to it. If the path does exist, the value in the path will be changed into the new
@@ -15,28 +15,93 @@ limitations under the License.
 */
 package org.fusionyaml.library.configurations;
 
+import org.fusionyaml.library.DocumentCache;
 import org.fusionyaml.library.FusionYAML;
+import org.fusionyaml.library.PathProjection;
 import org.fusionyaml.library.exceptions.YamlException;
 import org.fusionyaml.library.io.DocumentReader;
+import org.fusionyaml.library.io.MappedFileReader;
+import org.fusionyaml.library.io.Utf8Writer;
+import org.fusionyaml.library.object.ElementInterner;
 import org.fusionyaml.library.object.YamlElement;
 import org.fusionyaml.library.object.YamlObject;
+import org.jetbrains.annotations.NotNull;
 import org.yaml.snakeyaml.DumperOptions;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class is a synchronized class that converts {@link File} data into {@link YamlObject} data.
  * You can then retrieve and update file data in this class. To save the file, you can simple call
  * {@link #save()}
+ * <p>
+ * If write-behind is enabled with {@link #enableWriteBehind(WriteBehindPolicy)}, changes
+ * aren't written right away. The configuration is marked dirty when it is modified and
+ * the file is written from a background thread once the {@link WriteBehindPolicy} says so,
+ * which coalesces bursts of changes into a single write. Call {@link #flushNow()} to write
+ * pending changes right away, and {@link #close()} to write them and stop.
+ * <p>
+ * If the journal is enabled with {@link #enableJournal()}, saving appends the changes made
+ * since the previous save to a journal kept next to the file instead, and the file itself
+ * is only rewritten once the journal grows too large. Loading the file replays the journal
+ * on top of it.
  */
-public class FileConfiguration extends YamlConfiguration {
+public class FileConfiguration extends YamlConfiguration implements Closeable {
+
+    /**
+     * The scheduler write-behind saves run on, unless another one is passed in
+     */
+    private static final class DefaultScheduler {
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "FusionYAML write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 
     /**
      * The file
      */
     private final File file;
 
+    /**
+     * The sections of the file that are loaded, or {@code null} if the whole file is loaded
+     */
+    private final PathProjection projection;
+
+    // Write-behind state, guarded by this object
+    private WriteBehindPolicy writeBehind;
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> scheduled;
+    private boolean dirty;
+    private int pendingChanges;
+    private long firstChange;
+    private long lastChange;
+    // Why the last write made in the background failed, until a write succeeds
+    private IOException flushFailure;
+
+    // Journal state, guarded by this object
+    private ChangeJournal journal;
+    private int maxJournalEntries;
+    private long baseSize;
+    // A snapshot of the contents as the file and the journal hold them, or null if unknown
+    private YamlObject saved;
+
+    // Held while the file is written, so that older contents never overwrite newer ones
+    private final Object saveLock = new Object();
+
     /**
      * This constructor requires a {@link File} instance. The {@link File} contents will then
      * be copied into a {@link YamlObject}, which gives the user the ability to modify and
@@ -50,26 +115,464 @@ public class FileConfiguration extends YamlConfiguration {
      * @throws YamlException If the parser map returns null
      */
     public FileConfiguration(File file, FusionYAML yaml) throws IOException, YamlException {
+        this(file, yaml, null);
+    }
+
+    /**
+     * Loads only the sections of the {@link File} included in the {@link PathProjection}.
+     * Everything else in the file is skipped while parsing.
+     * <p>
+     * Since the other sections aren't loaded, {@link #save()} can't be used as it
+     * would erase them from the file.
+     *
+     * @param file       The file that will get the included sections copied
+     * @param yaml       a {@link FusionYAML} object
+     * @param projection The sections to load, or {@code null} to load the whole file
+     * @throws IOException   If an IO error occurred
+     * @throws YamlException If the parser map returns null
+     */
+    public FileConfiguration(File file, FusionYAML yaml, PathProjection projection) throws IOException, YamlException {
         super(yaml);
         this.file = file;
+        this.projection = projection;
         this.reload();
     }
     
     public FileConfiguration(File file) throws IOException, YamlException {
-        this(file, new FusionYAML());
+        this(file, FusionYAML.getDefault());
     }
     
-    public void reload() throws IOException {
-        try (DocumentReader reader = new DocumentReader(file)) {
-            YamlElement element = reader.readDocument();
-            if (element.isYamlNull())
-                object = new YamlObject();
-            else object = element.getAsYamlObject();
-        }
+    /**
+     * Reads the file again, discarding any unsaved changes. If the {@link FusionYAML}'s
+     * options enable memory-mapped input, the file is memory-mapped and decoded as UTF-8.
+     * If they enable lazy loading, the sections of the file are only built the first
+     * time they are accessed.
+     * <p>
+     * If the options enable binary snapshots, the tree is loaded from the snapshot kept
+     * next to the file as long as the file didn't change since it was taken. Otherwise,
+     * the file is parsed and a new snapshot is taken.
+     * <p>
+     * If the {@link FusionYAML} has a {@link DocumentCache}, a copy of the cached tree is
+     * used as long as the file didn't change since it was parsed.
+     * <p>
+     * If there is a journal next to the file, the changes in it are applied on top of
+     * the file's contents.
+     * <p>
+     * If a {@link org.fusionyaml.library.events.ConfigurationChangeListener} is set, it is
+     * called for each path whose value differs from the one before reloading.
+     *
+     * @throws IOException If an IO error occurred
+     */
+    public synchronized void reload() throws IOException {
+        YamlObject previous = object;
+        DocumentCache cache = fusionYAML.getDocumentCache();
+        YamlElement element;
+        if (cache != null && projection == null)
+            element = cache.get(file, () -> load(false));
+        else element = load(fusionYAML.getYamlOptions().isLazyLoading());
+        if (element.isYamlNull())
+            object = new YamlObject();
+        else object = element.getAsYamlObject();
+        baseSize = file.length();
+        ChangeJournal replayed = journal != null ? journal : new ChangeJournal(ChangeJournal.journalFile(file));
+        replayed.replay(object, projection);
+        saved = journal != null ? object.snapshot() : null;
+        dirty = false;
+        pendingChanges = 0;
+        flushFailure = null;
+        reloaded(previous);
     }
     
+    private YamlElement load(boolean lazily) throws IOException {
+        SnapshotCache snapshot = projection == null && fusionYAML.getYamlOptions().isBinarySnapshots()
+                ? new SnapshotCache(file) : null;
+        YamlElement element = snapshot != null ? snapshot.load() : null;
+        if (element != null) {
+            ElementInterner interner = fusionYAML.getElementInterner();
+            return interner != null ? interner.intern(element) : element;
+        }
+        try (DocumentReader reader = fusionYAML.getYamlOptions().isMemoryMappedInput()
+                ? new DocumentReader(new MappedFileReader(file)) : new DocumentReader(file)) {
+            reader.setStringInterner(fusionYAML.getStringInterner());
+            reader.setElementInterner(fusionYAML.getElementInterner());
+            // a snapshot needs the whole tree, which is faster to build at once than lazily
+            if (projection != null)
+                element = reader.readDocument(projection);
+            else element = lazily && snapshot == null ? reader.readDocumentLazily() : reader.readDocument();
+        }
+        if (snapshot != null)
+            snapshot.store(element);
+        return element;
+    }
+
+    /**
+     * Saves the data to the file. If write-behind is enabled, the configuration is
+     * only marked dirty and the file is written once the {@link WriteBehindPolicy}
+     * says so, but if the last write made in the background failed, its failure is
+     * thrown. If the journal is enabled, the changes made since the previous save are
+     * appended to the journal, which is forced to the storage device; the file is only
+     * rewritten if the journal grew too large.
+     *
+     * @throws IOException           If an IO error occurred
+     * @throws IllegalStateException If only some sections of the file were loaded
+     */
     public void save() throws IOException {
-        this.save(file);
+        if (projection != null)
+            throw new IllegalStateException("Only some sections of " + file + " were loaded, saving would erase the others");
+        synchronized (this) {
+            if (writeBehind != null) {
+                // changes made through set() were counted already, and others can't be
+                markDirty();
+                if (flushFailure != null)
+                    throw flushFailure;
+                return;
+            }
+            if (journal == null) {
+                Path journalFile = ChangeJournal.journalFile(file).toPath();
+                if (!Files.exists(journalFile)) {
+                    this.save(file);
+                    return;
+                }
+                // the file now holds every change, which must not be replayed on top of it, but
+                // the journal only goes once the file is on the storage device
+                writeAtomically(object);
+                Files.deleteIfExists(journalFile);
+                return;
+            }
+            if (journalChanges() && !isJournalFull())
+                return;
+        }
+        compact();
+    }
+
+    // Appends the changes made since the previous save to the journal and forces it to the
+    // storage device. Returns false if they can't be, in which case the file has to be rewritten
+    private boolean journalChanges() throws IOException {
+        if (saved == null || journal.isFailed())
+            return false;
+        YamlObject current = object.snapshot();
+        try {
+            // nested objects and arrays may have been modified directly, so the whole tree is compared
+            saved.diff(object, (path, value) -> journal.onChange(object, path, value));
+        } catch (YamlException e) {
+            return false;
+        }
+        saved = current;
+        journal.sync();
+        return !journal.isFailed();
+    }
+
+    /**
+     * Sets the value in the path. If write-behind is enabled, the configuration is
+     * marked dirty and the change is written later on.
+     *
+     * @param path  The path to the value
+     * @param value The value the path contains
+     */
+    @Override
+    public synchronized void set(@NotNull List<String> path, YamlElement value) {
+        super.set(path, value);
+        if (writeBehind != null)
+            changed();
+    }
+
+    /**
+     * Takes the snapshot while holding the lock changes are made with, so that it can
+     * be read from any thread while the configuration keeps changing.
+     *
+     * @return The snapshot
+     */
+    @Override
+    public synchronized YamlConfiguration snapshot() {
+        return super.snapshot();
+    }
+
+    /**
+     * Freezes a snapshot of the configuration, so that the lock changes are made with
+     * is only held while the snapshot is taken, and not while the tree is copied.
+     *
+     * @return The frozen configuration
+     */
+    @Override
+    public YamlConfiguration freeze() {
+        return snapshot().freeze();
+    }
+
+    /**
+     * Enables the journal, which is compacted once it holds 10000 changes or
+     * grows larger than the file.
+     *
+     * @throws IllegalStateException If only some sections of the file were loaded, or
+     *                               write-behind is enabled
+     * @see #enableJournal(int)
+     */
+    public void enableJournal() {
+        enableJournal(10000);
+    }
+
+    /**
+     * Enables the journal. From now on, {@link #save()} appends the changes made since the
+     * previous save to a journal next to the file, named after it with {@code .journal} added,
+     * instead of rewriting the whole file. When the journal holds the maximum number of changes
+     * or grows larger than the file, it is compacted: the file is rewritten with every change
+     * and the journal is emptied.
+     * <p>
+     * The changes are found by comparing the contents with a snapshot taken at the previous
+     * save, so changes made straight to the {@link YamlObject} returned by {@link #toYamlObject()},
+     * or to the objects and arrays in it, are journaled too. Since the changes made before the
+     * journal is enabled can't be told apart, the first save afterwards rewrites the file.
+     *
+     * @param maxEntries The number of changes after which the journal is compacted
+     * @throws IllegalArgumentException If the maximum number of changes isn't positive
+     * @throws IllegalStateException    If only some sections of the file were loaded, or
+     *                                  write-behind is enabled
+     */
+    public synchronized void enableJournal(int maxEntries) {
+        if (maxEntries <= 0)
+            throw new IllegalArgumentException("The maximum number of changes must be positive");
+        if (projection != null)
+            throw new IllegalStateException("Only some sections of " + file + " were loaded, saving would erase the others");
+        if (writeBehind != null)
+            throw new IllegalStateException("Write-behind is enabled");
+        if (journal == null) {
+            journal = new ChangeJournal(ChangeJournal.journalFile(file));
+            try {
+                // finds out how many changes the journal already holds
+                journal.replay(new YamlObject(), null);
+            } catch (IOException e) {
+                journal = null;
+                throw new YamlException("Couldn't read the journal of " + file, e);
+            }
+            saved = null;
+        }
+        maxJournalEntries = maxEntries;
+    }
+
+    /**
+     * @return Whether the journal is enabled or not
+     */
+    public synchronized boolean isJournaling() {
+        return journal != null;
+    }
+
+    /**
+     * Rewrites the file with every change in the journal and empties the journal. If
+     * the journal isn't enabled, nothing happens.
+     *
+     * @throws IOException If an IO error occurred
+     */
+    public void compact() throws IOException {
+        synchronized (saveLock) {
+            synchronized (this) {
+                if (journal == null)
+                    return;
+                // the file and its directory entry are forced before the journal is emptied, so
+                // that a crash in between leaves the changes in one of them
+                writeAtomically(object);
+                journal.clear();
+                baseSize = file.length();
+                saved = object.snapshot();
+            }
+        }
+    }
+
+    // Rewriting the file once the journal is as large as it keeps the IO done per change bounded
+    private boolean isJournalFull() {
+        return journal.getEntries() >= maxJournalEntries || journal.getSize() > baseSize;
+    }
+
+    /**
+     * Enables write-behind on the default scheduler, which runs on a single daemon
+     * thread shared by all {@link FileConfiguration}s.
+     *
+     * @param policy The {@link WriteBehindPolicy}
+     * @throws IllegalStateException If only some sections of the file were loaded
+     */
+    public void enableWriteBehind(@NotNull WriteBehindPolicy policy) {
+        enableWriteBehind(policy, DefaultScheduler.INSTANCE);
+    }
+
+    /**
+     * Enables write-behind. Modifying the configuration marks it dirty, and the
+     * file is written on the scheduler passed in once the {@link WriteBehindPolicy}
+     * says so. Only changes made through this configuration's methods are tracked.
+     * A {@link org.fusionyaml.library.events.FileSaveListener} is called on the scheduler
+     * once a write made there is done.
+     *
+     * @param policy    The {@link WriteBehindPolicy}
+     * @param scheduler The scheduler the file is written on
+     * @throws IllegalStateException If only some sections of the file were loaded
+     */
+    public synchronized void enableWriteBehind(@NotNull WriteBehindPolicy policy, @NotNull ScheduledExecutorService scheduler) {
+        if (projection != null)
+            throw new IllegalStateException("Only some sections of " + file + " were loaded, saving would erase the others");
+        if (journal != null)
+            throw new IllegalStateException("The journal is enabled");
+        this.writeBehind = policy;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @return Whether write-behind is enabled or not
+     */
+    public synchronized boolean isWriteBehind() {
+        return writeBehind != null;
+    }
+
+    /**
+     * @return Whether there are changes that haven't been written to the file yet
+     */
+    public synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Writes the pending changes to the file right away, on the calling thread. If
+     * there are none, nothing is written.
+     *
+     * @throws IOException If an IO error occurred, or if the last write made in the
+     *                     background failed and the changes weren't written since
+     */
+    public void flushNow() throws IOException {
+        synchronized (this) {
+            if (scheduled != null) {
+                scheduled.cancel(false);
+                scheduled = null;
+            }
+        }
+        flush();
+        synchronized (this) {
+            if (flushFailure != null)
+                throw flushFailure;
+        }
+    }
+
+    /**
+     * Writes the pending changes to the file and disables write-behind. If the journal
+     * is enabled, the changes made since the previous save are appended to it, and it is
+     * forced to the storage device, closed and disabled. Further
+     * changes are only written when {@link #save()} is called.
+     *
+     * @throws IOException If an IO error occurred
+     */
+    @Override
+    public void close() throws IOException {
+        boolean compact;
+        synchronized (this) {
+            writeBehind = null;
+            scheduler = null;
+            compact = journal != null && (!journalChanges() || isJournalFull());
+        }
+        if (compact)
+            compact();
+        synchronized (this) {
+            if (journal != null) {
+                try {
+                    journal.close();
+                } finally {
+                    journal = null;
+                    saved = null;
+                }
+            }
+        }
+        flushNow();
+    }
+
+    // Counts a change toward the maximum number of pending changes, and marks the configuration dirty
+    private void changed() {
+        pendingChanges++;
+        markDirty();
+    }
+
+    // Marks the configuration dirty and schedules a write if none is scheduled
+    private void markDirty() {
+        long now = System.nanoTime();
+        if (!dirty) {
+            dirty = true;
+            firstChange = now;
+        }
+        lastChange = now;
+        if (pendingChanges >= writeBehind.getMaxPendingChanges()) {
+            if (scheduled == null || scheduled.getDelay(TimeUnit.NANOSECONDS) > 0) {
+                if (scheduled != null)
+                    scheduled.cancel(false);
+                scheduled = scheduler.schedule(this::flushScheduled, 0, TimeUnit.NANOSECONDS);
+            }
+        } else if (scheduled == null)
+            scheduled = scheduler.schedule(this::flushScheduled, writeBehind.getDelayNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    // Runs on the scheduler. If changes were made since the write was scheduled, it is pushed back.
+    private void flushScheduled() {
+        synchronized (this) {
+            scheduled = null;
+            if (writeBehind == null || !dirty)
+                return;
+            long due = Math.min(lastChange + writeBehind.getDelayNanos(), firstChange + writeBehind.getMaxDelayNanos());
+            long wait = due - System.nanoTime();
+            if (wait > 0 && pendingChanges < writeBehind.getMaxPendingChanges()) {
+                scheduled = scheduler.schedule(this::flushScheduled, wait, TimeUnit.NANOSECONDS);
+                return;
+            }
+        }
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            // the changes are still pending, so the write is tried again later on, and
+            // the failure is thrown by the next save(), flushNow() or close()
+            synchronized (this) {
+                flushFailure = e instanceof IOException ? (IOException) e : new IOException("Couldn't write " + file, e);
+                if (writeBehind != null && scheduled == null)
+                    scheduled = scheduler.schedule(this::flushScheduled, writeBehind.getDelayNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private void flush() throws IOException {
+        synchronized (saveLock) {
+            YamlObject snapshot;
+            synchronized (this) {
+                if (!dirty)
+                    return;
+                snapshot = object.snapshot();
+                dirty = false;
+                pendingChanges = 0;
+            }
+            try {
+                writeAtomically(snapshot);
+                Files.deleteIfExists(ChangeJournal.journalFile(file).toPath());
+                synchronized (this) {
+                    flushFailure = null;
+                }
+            } catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    if (!dirty) {
+                        dirty = true;
+                        firstChange = lastChange = System.nanoTime();
+                    }
+                }
+                throw e;
+            }
+        }
+    }
+
+    // Writes to a temporary file next to the file, which is forced to the storage device and
+    // then replaces the file with the same permissions. The FileSaveListener is called afterwards
+    private void writeAtomically(YamlObject contents) throws IOException {
+        Path target = file.getAbsoluteFile().toPath();
+        Path temp = AtomicFiles.createTempFile(target);
+        Writer writer;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                writer = new Utf8Writer(channel, false);
+                new YamlConfiguration(contents, fusionYAML).save(writer);
+                channel.force(true);
+            }
+            AtomicFiles.replace(temp, target, null);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        saved(writer);
     }
 
     public File getFile() {
@@ -25,7 +25,7 @@ public class InputStreamConfiguration extends YamlConfiguration {
     }
     
     public InputStreamConfiguration(InputStream stream) throws IOException {
-        this(stream, new FusionYAML());
+        this(stream, FusionYAML.getDefault());
     }
 
     /**
@@ -36,12 +36,16 @@ public class InputStreamConfiguration extends YamlConfiguration {
      * @throws IOException If an IO error occurred
      */
     public void reload(InputStream stream) throws IOException {
+        YamlObject previous = object;
         try (DocumentReader reader = new DocumentReader(new InputStreamReader(stream))) {
+            reader.setStringInterner(fusionYAML.getStringInterner());
+            reader.setElementInterner(fusionYAML.getElementInterner());
             YamlElement element = reader.readDocument();
             if (element.isYamlNull())
                 this.object = new YamlObject();
             else this.object = element.getAsYamlObject();
         }
+        reloaded(previous);
     }
     
     public InputStream getStream() {
@@ -72,7 +72,7 @@ public class ObjectConfiguration extends YamlConfiguration {
     }
 
     public ObjectConfiguration(Object o) {
-        this(o, new FusionYAML());
+        this(o, FusionYAML.getDefault());
     }
 
     /**
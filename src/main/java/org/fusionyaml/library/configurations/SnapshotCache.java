@@ -0,0 +1,96 @@
+package org.fusionyaml.library.configurations;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import org.fusionyaml.library.exceptions.YamlParseFailedException;
+import org.fusionyaml.library.io.YamlSnapshot;
+import org.fusionyaml.library.object.YamlElement;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A {@link YamlSnapshot} of a {@link FileConfiguration}'s file, kept next to it with
+ * {@code .fyb} added to its name. The snapshot is preceded by the size, the last
+ * modification time and a hash of the file it was taken from, and is only loaded if
+ * the file still matches all three.
+ */
+final class SnapshotCache {
+
+    private static final int KEY_SIZE = 8 + 8 + 16;
+
+    private final File source;
+    private final File snapshot;
+    // the key of the source, as it was before it was last loaded
+    private byte[] key;
+
+    /**
+     * @param source The file of a {@link FileConfiguration}
+     */
+    SnapshotCache(File source) {
+        this.source = source;
+        this.snapshot = new File(source.getPath() + ".fyb");
+    }
+
+    /**
+     * Loads the snapshot, if it was taken from the file as it is now. The file is
+     * hashed either way, so that {@link #store(YamlElement)} can be called with the
+     * element parsed from it.
+     *
+     * @return The element in the snapshot, or {@code null} if there is none or it is stale
+     * @throws IOException If the file couldn't be read
+     */
+    YamlElement load() throws IOException {
+        key = key();
+        if (!snapshot.isFile())
+            return null;
+        byte[] bytes = Files.readAllBytes(snapshot.toPath());
+        if (bytes.length < KEY_SIZE || !ByteBuffer.wrap(bytes, 0, KEY_SIZE).equals(ByteBuffer.wrap(key)))
+            return null;
+        try {
+            return YamlSnapshot.read(bytes, KEY_SIZE, bytes.length - KEY_SIZE);
+        } catch (YamlParseFailedException e) {
+            // a corrupted snapshot is taken again
+            return null;
+        }
+    }
+
+    /**
+     * Takes a snapshot of the element parsed from the file, keyed with the file as it was
+     * when {@link #load()} was called. The snapshot is written to a temporary file which
+     * then replaces the previous one. Failing to write it doesn't fail the load, the file
+     * is just parsed again next time.
+     *
+     * @param element The element parsed from the file
+     */
+    void store(YamlElement element) {
+        if (key == null)
+            return;
+        Path target = snapshot.getAbsoluteFile().toPath();
+        Path temp = null;
+        try {
+            temp = AtomicFiles.createTempFile(target);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                out.write(key);
+                YamlSnapshot.write(element, out);
+            }
+            // the snapshot holds the contents of the file, so it is only readable by whoever can read the file
+            AtomicFiles.replace(temp, target, source.getAbsoluteFile().toPath());
+        } catch (IOException ignored) {
+        } finally {
+            if (temp != null)
+                temp.toFile().delete();
+        }
+    }
+
+    // The size and modification time are read first, so that a change made while hashing makes the key stale
+    private byte[] key() throws IOException {
+        long size = source.length();
+        long modified = source.lastModified();
+        HashCode hash = com.google.common.io.Files.asByteSource(source).hash(Hashing.murmur3_128());
+        return ByteBuffer.allocate(KEY_SIZE).putLong(size).putLong(modified).put(hash.asBytes()).array();
+    }
+
+}
@@ -63,7 +63,7 @@ public class WebConfiguration extends YamlConfiguration {
     }
     
     public WebConfiguration(URL url) throws YamlException, IOException {
-        this(url, new FusionYAML());
+        this(url, FusionYAML.getDefault());
     }
     
     /**
@@ -88,12 +88,16 @@ public class WebConfiguration extends YamlConfiguration {
     }
 
     public void reload() throws IOException {
+        YamlObject previous = object;
         try (DocumentReader reader = new DocumentReader(new InputStreamReader(url.openStream()))) {
+            reader.setStringInterner(fusionYAML.getStringInterner());
+            reader.setElementInterner(fusionYAML.getElementInterner());
             YamlElement element = reader.readDocument();
             if (element.isYamlNull())
                 object = new YamlObject();
             else this.object = element.getAsYamlObject();
         }
+        reloaded(previous);
     }
 
     /**
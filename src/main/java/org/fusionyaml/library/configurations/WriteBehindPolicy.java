@@ -0,0 +1,113 @@
+package org.fusionyaml.library.configurations;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when a {@link FileConfiguration} in write-behind mode writes its changes
+ * to the file. Changes are coalesced: the file is written once no change was made for
+ * the delay, once the oldest unsaved change is older than the maximum delay, or once
+ * the maximum number of pending changes is reached, whichever comes first.
+ *
+ * @see FileConfiguration#enableWriteBehind(WriteBehindPolicy)
+ */
+public final class WriteBehindPolicy {
+
+    private long delayNanos = TimeUnit.SECONDS.toNanos(1);
+    private long maxDelayNanos = TimeUnit.SECONDS.toNanos(10);
+    private int maxPendingChanges = Integer.MAX_VALUE;
+
+    private WriteBehindPolicy() {
+    }
+
+    /**
+     * Creates a {@link WriteBehindPolicy} that writes the file once no change was made
+     * for the delay passed in. The other limits are left to their defaults.
+     *
+     * @param delay The delay
+     * @param unit  The {@link TimeUnit} of the delay
+     * @return The {@link WriteBehindPolicy}
+     */
+    public static WriteBehindPolicy of(long delay, TimeUnit unit) {
+        return new Builder().setDelay(delay, unit).build();
+    }
+
+    /**
+     * @return How long no change has to be made before the file is written, in nanoseconds
+     */
+    public long getDelayNanos() {
+        return delayNanos;
+    }
+
+    /**
+     * @return How long the oldest unsaved change can wait before the file is written,
+     * in nanoseconds
+     */
+    public long getMaxDelayNanos() {
+        return maxDelayNanos;
+    }
+
+    /**
+     * @return How many changes can be pending before the file is written
+     */
+    public int getMaxPendingChanges() {
+        return maxPendingChanges;
+    }
+
+    public static class Builder {
+
+        private final WriteBehindPolicy policy = new WriteBehindPolicy();
+
+        /**
+         * @param delay How long no change has to be made before the file is written.
+         *              Defaults to one second.
+         * @param unit  The {@link TimeUnit} of the delay
+         * @return this object
+         */
+        public Builder setDelay(long delay, TimeUnit unit) {
+            policy.delayNanos = unit.toNanos(delay);
+            return this;
+        }
+
+        /**
+         * @param maxDelay How long the oldest unsaved change can wait before the file is
+         *                 written, even if changes keep being made. Defaults to ten seconds.
+         * @param unit     The {@link TimeUnit} of the maximum delay
+         * @return this object
+         */
+        public Builder setMaxDelay(long maxDelay, TimeUnit unit) {
+            policy.maxDelayNanos = unit.toNanos(maxDelay);
+            return this;
+        }
+
+        /**
+         * @param maxPendingChanges How many changes can be pending before the file is
+         *                          written right away. Unlimited by default.
+         * @return this object
+         */
+        public Builder setMaxPendingChanges(int maxPendingChanges) {
+            policy.maxPendingChanges = maxPendingChanges;
+            return this;
+        }
+
+        /**
+         * Builds a {@link WriteBehindPolicy} object
+         *
+         * @return The {@link WriteBehindPolicy}
+         * @throws IllegalArgumentException If a delay is negative or the maximum number
+         *                                  of pending changes isn't positive
+         */
+        public WriteBehindPolicy build() {
+            if (policy.delayNanos < 0 || policy.maxDelayNanos < 0)
+                throw new IllegalArgumentException("The delays can't be negative");
+            if (policy.maxPendingChanges <= 0)
+                throw new IllegalArgumentException("The maximum number of pending changes must be positive");
+            WriteBehindPolicy built = new WriteBehindPolicy();
+            built.delayNanos = policy.delayNanos;
+            built.maxDelayNanos = Math.max(policy.delayNanos, policy.maxDelayNanos);
+            built.maxPendingChanges = policy.maxPendingChanges;
+            return built;
+        }
+
+    }
+
+}
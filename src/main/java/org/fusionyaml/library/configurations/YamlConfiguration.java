@@ -16,7 +16,6 @@ limitations under the License.
 package org.fusionyaml.library.configurations;
 
 import com.google.common.base.Splitter;
-import com.google.common.io.Files;
 import org.fusionyaml.library.FusionYAML;
 import org.fusionyaml.library.YamlOptions;
 import org.fusionyaml.library.events.ConfigurationChangeListener;
@@ -25,6 +24,7 @@ import org.fusionyaml.library.events.Listener;
 import org.fusionyaml.library.exceptions.YamlDeserializationException;
 import org.fusionyaml.library.internal.Converter;
 import org.fusionyaml.library.io.DocumentWriter;
+import org.fusionyaml.library.io.Utf8Writer;
 import org.fusionyaml.library.io.YamlWriter;
 import org.fusionyaml.library.object.YamlElement;
 import org.fusionyaml.library.object.YamlNull;
@@ -37,7 +37,6 @@ import org.yaml.snakeyaml.Yaml;
 
 import java.io.*;
 import java.lang.reflect.Type;
-import java.nio.charset.Charset;
 import java.util.*;
 
 /**
@@ -215,7 +214,7 @@ public class YamlConfiguration implements Configuration {
     }
     
     public YamlConfiguration(YamlObject obj) {
-        this(obj, new FusionYAML());
+        this(obj, FusionYAML.getDefault());
     }
     
     /**
@@ -247,9 +246,9 @@ public class YamlConfiguration implements Configuration {
     public void save(DumperOptions options, @NotNull File file) throws IOException {
         Object obj = converter.toSnakeYAML(object);
         Yaml yaml = new Yaml((options != null) ? options : defOptions);
-        String data;
-        data = yaml.dump(obj);
-        Files.write(data, file, Charset.defaultCharset());
+        try (Writer writer = new Utf8Writer(file)) {
+            yaml.dump(obj, writer);
+        }
         if (saveListener != null)
             saveListener.onSave(this, new FileWriter(file));
     }
@@ -266,8 +265,7 @@ public class YamlConfiguration implements Configuration {
         try (YamlWriter docWriter = new DocumentWriter(writer, buffer)) {
             docWriter.write(object, fusionYAML);
         }
-        if (saveListener != null)
-            saveListener.onSave(this, writer);
+        saved(writer);
     }
 
     /**
@@ -279,7 +277,7 @@ public class YamlConfiguration implements Configuration {
      */
     @Override
     public void save(@NotNull File file) throws IOException {
-        save(new FileWriter(file), nearestBuff(file.length()));
+        save(new Utf8Writer(file), nearestBuff(file.length()));
     }
 
     /**
@@ -290,7 +288,7 @@ public class YamlConfiguration implements Configuration {
      */
     @Override
     public void save(@NotNull Writer writer) throws IOException {
-        save(writer, 65536);
+        save(writer, 8192);
     }
 
     private static int nearestBuff(long num) {
@@ -374,15 +372,15 @@ public class YamlConfiguration implements Configuration {
             return;
         }
         if (value == null) {
-            object.set(path, null);
+            set(path, (YamlElement) null);
             return;
         }
         if (!Utilities.isPrimitive(value) && !(value instanceof Map) && !(value instanceof Collection)) {
-            object.set(path, fusionYAML.serialize(value, value.getClass()));
+            set(path, fusionYAML.serialize(value, value.getClass()));
             return;
         }
         YamlElement converted = converter.toElement(value);
-        object.set(path, converted);
+        set(path, converted);
         if (changeListener != null)
             changeListener.onChange(this, path, value);
     }
@@ -489,6 +487,57 @@ public class YamlConfiguration implements Configuration {
         set(path, null);
     }
 
+    /**
+     * Takes a read-only snapshot of the configuration in constant time. The snapshot
+     * holds the values the configuration holds now, and isn't affected by later changes.
+     * Setting a value in it throws an {@link UnsupportedOperationException}.
+     *
+     * @return The snapshot
+     * @see YamlObject#snapshot()
+     */
+    public YamlConfiguration snapshot() {
+        return new YamlConfiguration(object.snapshot(), fusionYAML);
+    }
+
+    /**
+     * Freezes the configuration into an immutable one, which can be read from any number
+     * of threads without locking or copying it. Setting a value in it throws an
+     * {@link UnsupportedOperationException}.
+     *
+     * @return The frozen configuration
+     * @see YamlObject#freeze()
+     */
+    public YamlConfiguration freeze() {
+        return new YamlConfiguration(object.freeze(), fusionYAML);
+    }
+
+    /**
+     * Called once the contents were saved through the {@link Writer}. If there is a
+     * {@link FileSaveListener}, it is called with the {@link Writer}.
+     *
+     * @param writer The {@link Writer} the contents were saved through, which is closed
+     */
+    protected void saved(Writer writer) {
+        FileSaveListener listener = saveListener;
+        if (listener != null)
+            listener.onSave(this, writer);
+    }
+
+    /**
+     * Called once the configuration was reloaded. If there is a {@link ConfigurationChangeListener},
+     * it is called for each path whose value changed, with the new value, or {@code null} if
+     * the path was removed.
+     *
+     * @param previous The {@link YamlObject} the configuration held before it was reloaded,
+     *                 or {@code null} if it was loaded for the first time
+     * @see YamlObject#diff(YamlObject, java.util.function.BiConsumer)
+     */
+    protected void reloaded(YamlObject previous) {
+        ConfigurationChangeListener listener = changeListener;
+        if (listener != null && previous != null)
+            previous.diff(object, (path, value) -> listener.onChange(this, path, value));
+    }
+
     /**
      * @return Gets the {@link YamlObject} for the configuration
      */
@@ -35,7 +35,7 @@ public interface EntryChangeListener extends Listener {
      *
      * @param object The {@link YamlObject} where the data is modified
      * @param path The path to the object
-     * @param value The value the path contains
+     * @param value The value the path contains, or {@code null} if the path was removed
      */
     void onChange(YamlObject object, List<String> path, Object value);
 
@@ -57,7 +57,7 @@ public final class Converter {
     public YamlElement toElement(Object snakeyaml) {
         if (snakeyaml == null) return YamlNull.NULL;
         if (snakeyaml instanceof YamlElement) return (YamlElement) snakeyaml;
-        if (isYamlPrimitive(snakeyaml)) return new YamlPrimitive(snakeyaml);
+        if (isYamlPrimitive(snakeyaml)) return YamlPrimitive.of(snakeyaml);
         if (snakeyaml instanceof List) return new YamlArray(toListOfElements((List<Object>) snakeyaml));
         if (snakeyaml instanceof Map) {
             YamlObject object = new YamlObject();
@@ -117,7 +117,7 @@ public final class Converter {
      */
     public List<Object> toSnakeYAMLList(Collection<YamlElement> elements) {
         List<Object> objects = new LinkedList<>();
-        elements.forEach(this::toSnakeYAML);
+        elements.forEach(element -> objects.add(toSnakeYAML(element)));
         return objects;
     }
     
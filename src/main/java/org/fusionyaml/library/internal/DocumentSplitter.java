@@ -0,0 +1,263 @@
+package org.fusionyaml.library.internal;
+
+import java.util.Arrays;
+
+/**
+ * Finds where documents start in a multi-document YAML stream without
+ * parsing it. A document starts at a {@code ---} marker in the first column,
+ * or at the directives ({@code %YAML}, {@code %TAG}) preceding the marker.
+ * <p>
+ * The YAML specification forbids document markers at the start of a line within
+ * any content, including block and quoted scalars, so the documents found this
+ * way can be parsed independently from each other. Similarly, the top-level entries
+ * of a block mapping can be found by looking for keys in the first column.
+ */
+public final class DocumentSplitter {
+
+    private DocumentSplitter() {
+    }
+
+    /**
+     * Finds the offsets where documents start. The first offset is always {@code 0},
+     * and each document ends where the next one starts.
+     *
+     * @param yaml The YAML text
+     * @return The offsets where documents start, in ascending order
+     */
+    public static int[] split(CharSequence yaml) {
+        int[] starts = new int[16];
+        int count = 1;
+        int length = yaml.length();
+        // the start of the directives preceding the next marker, or -1 if there aren't any
+        int directives = -1;
+        int line = 0;
+        while (line < length) {
+            int end = lineEnd(yaml, line);
+            char first = yaml.charAt(line);
+            if (first == '%') {
+                if (directives == -1)
+                    directives = line;
+            } else if (isDocumentStart(yaml, line, end)) {
+                int start = directives != -1 ? directives : line;
+                if (start > 0 && start != starts[count - 1]) {
+                    if (count == starts.length)
+                        starts = Arrays.copyOf(starts, count * 2);
+                    starts[count++] = start;
+                }
+                directives = -1;
+            } else if (!isBlankOrComment(yaml, line, end)) {
+                directives = -1;
+            }
+            line = end + 1;
+        }
+        return Arrays.copyOf(starts, count);
+    }
+
+    /**
+     * Finds the offsets where the top-level entries of a document, whose root is
+     * a block mapping, start. Each entry starts at a key in the first column and
+     * ends where the next one starts, so consecutive entries can be parsed
+     * independently from the rest of the document. Lines within quoted scalars,
+     * flow collections and block scalars are never taken as keys.
+     * <p>
+     * {@code null} is returned whenever splitting may change the result, which is
+     * when the document contains anchors or aliases (which may refer to another
+     * entry), the root isn't a block mapping, a quoted scalar or a flow collection
+     * isn't closed, or there are tags, complex or merge keys, directives or document
+     * markers in the first column.
+     *
+     * @param yaml The YAML text
+     * @return The offsets where the entries start, in ascending order, or {@code null}
+     * if the document can't be safely split
+     */
+    public static int[] splitEntries(CharSequence yaml) {
+        if (hasAnchorsOrAliases(yaml))
+            return null;
+        int[] starts = new int[16];
+        int count = 0;
+        int length = yaml.length();
+        Scanner scanner = new Scanner(yaml);
+        int line = 0;
+        while (line < length) {
+            int end = lineEnd(yaml, line);
+            char first = yaml.charAt(line);
+            if (scanner.inContent()) {
+                // the line continues a quoted scalar or a flow collection
+            } else if (first == '-' && !isDocumentStart(yaml, line, end) && (end == line + 1 || isBlank(yaml.charAt(line + 1)))) {
+                // a sequence entry, which belongs to the key before it
+                if (count == 0)
+                    return null;
+            } else if (!isBlank(first) && first != '#') {
+                if (!isKey(yaml, line, end))
+                    return null;
+                if (count == starts.length)
+                    starts = Arrays.copyOf(starts, count * 2);
+                starts[count++] = line;
+            }
+            if (scanner.scan(line, end)) {
+                // the block scalar holds the lines indented more than the one it starts on
+                int indent = indentation(yaml, line, end);
+                line = end + 1;
+                while (line < length) {
+                    end = lineEnd(yaml, line);
+                    if (!isBlankOrComment(yaml, line, end) && indentation(yaml, line, end) <= indent)
+                        break;
+                    line = end + 1;
+                }
+                continue;
+            }
+            line = end + 1;
+        }
+        if (count == 0 || scanner.inContent())
+            return null;
+        // leading comments belong to the first entry
+        starts[0] = 0;
+        return Arrays.copyOf(starts, count);
+    }
+
+    private static int indentation(CharSequence yaml, int start, int end) {
+        int i = start;
+        while (i < end && yaml.charAt(i) == ' ')
+            i++;
+        return i - start;
+    }
+
+    // Whether the line is a plain implicit key followed by ':'
+    private static boolean isKey(CharSequence yaml, int start, int end) {
+        char first = yaml.charAt(start);
+        if ("-?:,[]{}#&*!|>'\"%@`<.".indexOf(first) != -1)
+            return false;
+        for (int i = start + 1; i < end; i++) {
+            char c = yaml.charAt(i);
+            if (c == '#' && isBlank(yaml.charAt(i - 1)))
+                return false;
+            if (c == ':' && (i + 1 == end || isBlank(yaml.charAt(i + 1))))
+                return true;
+        }
+        return false;
+    }
+
+    // Conservative: anything that looks like an anchor or an alias, even within quotes
+    private static boolean hasAnchorsOrAliases(CharSequence yaml) {
+        int length = yaml.length();
+        for (int i = 0; i < length - 1; i++) {
+            char c = yaml.charAt(i);
+            if ((c == '&' || c == '*') && !isBlank(yaml.charAt(i + 1))
+                    && (i == 0 || " \t\n[{,:-".indexOf(yaml.charAt(i - 1)) != -1))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean isBlank(char c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+
+    private static int lineEnd(CharSequence yaml, int from) {
+        int length = yaml.length();
+        for (int i = from; i < length; i++) {
+            if (yaml.charAt(i) == '\n')
+                return i;
+        }
+        return length;
+    }
+
+    private static boolean isDocumentStart(CharSequence yaml, int start, int end) {
+        if (end - start < 3 || yaml.charAt(start) != '-' || yaml.charAt(start + 1) != '-' || yaml.charAt(start + 2) != '-')
+            return false;
+        if (end - start == 3)
+            return true;
+        char next = yaml.charAt(start + 3);
+        return next == ' ' || next == '\t' || next == '\r';
+    }
+
+    private static boolean isBlankOrComment(CharSequence yaml, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = yaml.charAt(i);
+            if (c == '#')
+                return true;
+            if (c != ' ' && c != '\t' && c != '\r')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Keeps track of the quoted scalars and flow collections spanning several lines,
+     * one line at a time
+     */
+    private static final class Scanner {
+
+        private final CharSequence yaml;
+        // the quote of the scalar the scanner is in, or 0
+        private char quote;
+        // the depth of the flow collections the scanner is in
+        private int flow;
+
+        private Scanner(CharSequence yaml) {
+            this.yaml = yaml;
+        }
+
+        /**
+         * @return Whether the scanner is within a quoted scalar or a flow collection
+         */
+        private boolean inContent() {
+            return quote != 0 || flow > 0;
+        }
+
+        /**
+         * Scans a line
+         *
+         * @param start The offset of the line
+         * @param end   The offset of the end of the line
+         * @return Whether the line starts a block scalar
+         */
+        private boolean scan(int start, int end) {
+            for (int i = start; i < end; i++) {
+                char c = yaml.charAt(i);
+                if (quote == '"') {
+                    if (c == '\\')
+                        i++;
+                    else if (c == '"')
+                        quote = 0;
+                    continue;
+                }
+                if (quote == '\'') {
+                    if (c == '\'' && i + 1 < end && yaml.charAt(i + 1) == '\'')
+                        i++;
+                    else if (c == '\'')
+                        quote = 0;
+                    continue;
+                }
+                // indicators only start a token after a blank, at the start of a line, or within a flow collection
+                boolean tokenStart = i == start || isBlank(yaml.charAt(i - 1))
+                        || (flow > 0 && "[{,:".indexOf(yaml.charAt(i - 1)) != -1);
+                if (c == '#' && (i == start || isBlank(yaml.charAt(i - 1))))
+                    return false;
+                if (!tokenStart && flow == 0)
+                    continue;
+                if (c == '"' || c == '\'') {
+                    if (tokenStart)
+                        quote = c;
+                } else if (c == '[' || c == '{') {
+                    flow++;
+                } else if ((c == ']' || c == '}') && flow > 0) {
+                    flow--;
+                } else if ((c == '|' || c == '>') && flow == 0 && isBlockHeader(i + 1, end)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Whether the rest of a block scalar header only holds indicators and a comment
+        private boolean isBlockHeader(int from, int end) {
+            int i = from;
+            while (i < end && (yaml.charAt(i) == '+' || yaml.charAt(i) == '-' || Character.isDigit(yaml.charAt(i))))
+                i++;
+            return i == end || isBlankOrComment(yaml, i, end) && isBlank(yaml.charAt(i));
+        }
+
+    }
+
+}
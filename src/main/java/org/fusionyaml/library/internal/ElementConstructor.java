@@ -0,0 +1,547 @@
+package org.fusionyaml.library.internal;
+
+import org.fusionyaml.library.PathProjection;
+import org.fusionyaml.library.StringInterner;
+import org.fusionyaml.library.exceptions.YamlParseFailedException;
+import org.fusionyaml.library.object.*;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.events.*;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.io.Reader;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Builds {@link YamlElement}s straight from snakeyaml's parse events. Unlike
+ * loading through {@link Yaml#load(Reader)} and then calling {@link Converter#toElement(Object)},
+ * no intermediate java object graph (maps, lists and boxed scalars) is created,
+ * so a document is only held in memory once.
+ * <p>
+ * Scalars are resolved the same way snakeyaml's constructor resolves them. Anchors,
+ * aliases and merge keys ({@code <<}) are supported. An alias is loaded as a copy of
+ * the anchored element, as it used to be when converting snakeyaml objects.
+ * <p>
+ * This class is not thread-safe. Creating one is cheap though, since the snakeyaml
+ * {@link Yaml} used for parsing is reused by each thread.
+ */
+public final class ElementConstructor {
+
+    private static final Map<String, Boolean> BOOL_VALUES = new HashMap<>();
+
+    static {
+        BOOL_VALUES.put("yes", Boolean.TRUE);
+        BOOL_VALUES.put("no", Boolean.FALSE);
+        BOOL_VALUES.put("true", Boolean.TRUE);
+        BOOL_VALUES.put("false", Boolean.FALSE);
+        BOOL_VALUES.put("on", Boolean.TRUE);
+        BOOL_VALUES.put("off", Boolean.FALSE);
+    }
+
+    // Building a Yaml is costly and it isn't thread-safe, so each thread reuses its own
+    private static final ThreadLocal<Yaml> YAML = ThreadLocal.withInitial(Yaml::new);
+    // The resolver is only read from once it is built
+    private static final Resolver RESOLVER = new Resolver();
+    private static final Converter CONVERTER = new Converter();
+
+    private final Map<String, YamlElement> anchors = new HashMap<>();
+    private final StringInterner interner;
+    private final ElementInterner elements;
+
+    public ElementConstructor() {
+        this(null);
+    }
+
+    /**
+     * @param interner The {@link StringInterner} mapping keys and string values are
+     *                 interned with, or {@code null}
+     */
+    public ElementConstructor(StringInterner interner) {
+        this(interner, null);
+    }
+
+    /**
+     * @param interner The {@link StringInterner} mapping keys and string values are
+     *                 interned with, or {@code null}
+     * @param elements The {@link ElementInterner} equal objects, arrays and scalars are
+     *                 shared with, or {@code null}
+     */
+    public ElementConstructor(StringInterner interner, ElementInterner elements) {
+        this.interner = interner;
+        this.elements = elements;
+    }
+
+    /**
+     * Parses the YAML found in the {@link Reader} lazily. Events are only read
+     * from the {@link Reader} when they are requested.
+     *
+     * @param reader The {@link Reader}
+     * @return An {@link Iterator} of parse events
+     */
+    public Iterator<Event> parse(Reader reader) {
+        return YAML.get().parse(reader).iterator();
+    }
+
+    /**
+     * Loads a single document from the {@link Reader}. If the stream is empty,
+     * {@link YamlNull#NULL} is returned.
+     *
+     * @param reader The {@link Reader}
+     * @return The loaded document
+     * @throws YamlParseFailedException If the stream contains more than one document
+     */
+    public YamlElement load(Reader reader) {
+        Iterator<Event> events = parse(reader);
+        YamlElement document = nextDocument(events);
+        if (document == null)
+            return YamlNull.NULL;
+        if (nextDocument(events) != null)
+            throw new YamlParseFailedException("expected a single document in the stream");
+        return document;
+    }
+
+    /**
+     * Loads only the sections of a single document that are included in the
+     * {@link PathProjection}. The events of the other sections are skipped without
+     * building anything, unless they define anchors, which are needed to resolve
+     * aliases in the included sections.
+     * <p>
+     * Sections that are included by a path but aren't mappings all the way down
+     * to the end of the path are left out. If the root of the document isn't
+     * a mapping, an empty {@link YamlObject} is returned.
+     *
+     * @param reader     The {@link Reader}
+     * @param projection The sections to load
+     * @return A {@link YamlObject} containing only the included sections
+     * @throws YamlParseFailedException If the stream contains more than one document
+     */
+    public YamlObject load(Reader reader, PathProjection projection) {
+        Iterator<Event> events = parse(reader);
+        YamlObject document = null;
+        while (events.hasNext()) {
+            Event event = events.next();
+            if (!event.is(Event.ID.DocumentStart))
+                continue;
+            if (document != null)
+                throw new YamlParseFailedException("expected a single document in the stream");
+            anchors.clear();
+            Event next = events.next();
+            if (next.is(Event.ID.DocumentEnd)) {
+                document = new YamlObject();
+                continue;
+            }
+            YamlElement projected = projection.includesAll() ? construct(next, events) : constructProjected(next, events, projection);
+            document = projected != null && projected.isYamlObject() ? projected.getAsYamlObject() : new YamlObject();
+            // DocumentEnd
+            events.next();
+        }
+        return document != null ? document : new YamlObject();
+    }
+
+    /**
+     * Loads all of the documents found in the {@link Reader}
+     *
+     * @param reader The {@link Reader}
+     * @return The loaded documents
+     */
+    public List<YamlElement> loadAll(Reader reader) {
+        Iterator<Event> events = parse(reader);
+        List<YamlElement> documents = new ArrayList<>();
+        YamlElement document;
+        while ((document = nextDocument(events)) != null)
+            documents.add(document);
+        return documents;
+    }
+
+    /**
+     * Lazily loads the documents found in the {@link Reader}. A document is only
+     * parsed when the returned {@link Iterator} is asked for it, so only one
+     * document is held in memory at a time.
+     *
+     * @param reader The {@link Reader}
+     * @return An {@link Iterator} of documents
+     */
+    public Iterator<YamlElement> iterate(Reader reader) {
+        Iterator<Event> events = parse(reader);
+        return new Iterator<YamlElement>() {
+            private YamlElement next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null)
+                    next = nextDocument(events);
+                return next != null;
+            }
+
+            @Override
+            public YamlElement next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                YamlElement document = next;
+                next = null;
+                return document;
+            }
+        };
+    }
+
+    /**
+     * Constructs the next document in the event stream. Anchors defined in
+     * previous documents are forgotten.
+     *
+     * @param events The parse events
+     * @return The next document, or {@code null} if there aren't any documents left
+     */
+    public YamlElement nextDocument(Iterator<Event> events) {
+        while (events.hasNext()) {
+            Event event = events.next();
+            if (!event.is(Event.ID.DocumentStart))
+                continue;
+            anchors.clear();
+            YamlElement document = YamlNull.NULL;
+            Event next = events.next();
+            if (!next.is(Event.ID.DocumentEnd)) {
+                document = construct(next, events);
+                // DocumentEnd
+                events.next();
+            }
+            return document;
+        }
+        return null;
+    }
+
+    /**
+     * Constructs the node starting at the given event. The events that follow it
+     * are consumed until the end of the node.
+     *
+     * @param event  The first event of the node
+     * @param events The rest of the parse events
+     * @return The constructed {@link YamlElement}
+     */
+    public YamlElement construct(Event event, Iterator<Event> events) {
+        if (event.is(Event.ID.Alias)) {
+            String anchor = ((AliasEvent) event).getAnchor();
+            YamlElement anchored = anchors.get(anchor);
+            if (anchored == null)
+                throw new YamlParseFailedException("found undefined alias " + anchor);
+            // sharing an element leaves it untouched, like copying it would
+            return elements != null ? elements.intern(anchored) : anchored.deepCopy();
+        }
+        if (event.is(Event.ID.Scalar)) {
+            ScalarEvent scalar = (ScalarEvent) event;
+            Object value = constructScalar(scalar);
+            if (interner != null && value instanceof String)
+                value = interner.internValue((String) value);
+            return register(scalar.getAnchor(), share(toElement(value)));
+        }
+        if (event.is(Event.ID.SequenceStart))
+            return constructSequence((SequenceStartEvent) event, events);
+        if (event.is(Event.ID.MappingStart))
+            return constructMapping((MappingStartEvent) event, events);
+        throw new YamlParseFailedException("unexpected event " + event);
+    }
+
+    /**
+     * Resolves the scalar's tag and converts its value to the matching java
+     * object, which is either {@code null}, a {@link Boolean}, a {@link Number} or
+     * a {@link String}.
+     *
+     * @param event The scalar event
+     * @return The value of the scalar
+     */
+    public Object constructScalar(ScalarEvent event) {
+        return constructScalar(event, resolveTag(event));
+    }
+
+    private static Object constructScalar(ScalarEvent event, Tag tag) {
+        return constructScalar(event.getValue(), tag);
+    }
+
+    /**
+     * Converts the value of a scalar to the java object matching its resolved tag
+     *
+     * @param value The value of the scalar
+     * @param tag   The resolved {@link Tag}
+     * @return The value of the scalar
+     */
+    static Object constructScalar(String value, Tag tag) {
+        if (tag.equals(Tag.NULL))
+            return null;
+        if (tag.equals(Tag.BOOL)) {
+            Boolean bool = BOOL_VALUES.get(value.toLowerCase(Locale.ENGLISH));
+            return bool != null ? bool : value;
+        }
+        try {
+            if (tag.equals(Tag.INT))
+                return constructInt(value);
+            if (tag.equals(Tag.FLOAT))
+                return constructFloat(value);
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            throw new YamlParseFailedException("can't construct a number from " + value, e);
+        }
+        return value;
+    }
+
+    /**
+     * Resolves the tag of a scalar
+     *
+     * @param event The scalar event
+     * @return The resolved {@link Tag}
+     */
+    public Tag resolveTag(ScalarEvent event) {
+        String tag = event.getTag();
+        if (tag == null || tag.equals("!"))
+            return RESOLVER.resolve(NodeId.scalar, event.getValue(), event.getImplicit().canOmitTagInPlainScalar());
+        return new Tag(tag);
+    }
+
+    private YamlElement constructSequence(SequenceStartEvent start, Iterator<Event> events) {
+        Event event;
+        if (start.getAnchor() != null) {
+            // registered before its items are built, since they may refer to it
+            YamlArray array = new YamlArray();
+            register(start.getAnchor(), array);
+            while (!(event = events.next()).is(Event.ID.SequenceEnd))
+                array.add(construct(event, events));
+            return share(array);
+        }
+        List<YamlElement> items = new ArrayList<>();
+        while (!(event = events.next()).is(Event.ID.SequenceEnd))
+            items.add(construct(event, events));
+        return share(YamlArray.of(items));
+    }
+
+    private YamlElement constructMapping(MappingStartEvent start, Iterator<Event> events) {
+        YamlObject object = new YamlObject();
+        register(start.getAnchor(), object);
+        Event event;
+        while (!(event = events.next()).is(Event.ID.MappingEnd)) {
+            String key;
+            if (event.is(Event.ID.Scalar)) {
+                ScalarEvent scalar = (ScalarEvent) event;
+                Tag tag = resolveTag(scalar);
+                if (tag.equals(Tag.MERGE)) {
+                    merge(object, construct(events.next(), events));
+                    continue;
+                }
+                Object value = constructScalar(scalar, tag);
+                register(scalar.getAnchor(), toElement(value));
+                key = String.valueOf(value);
+            } else key = toKey(construct(event, events));
+            if (interner != null)
+                key = interner.internKey(key);
+            object.set(key, construct(events.next(), events));
+        }
+        return share(object);
+    }
+
+    // Builds the included part of a node, or returns null if nothing in it is included
+    private YamlElement constructProjected(Event event, Iterator<Event> events, PathProjection projection) {
+        if (!event.is(Event.ID.MappingStart) || ((MappingStartEvent) event).getAnchor() != null) {
+            // aliases elsewhere need the whole anchored mapping, and an alias the mapping it refers to
+            YamlElement element = isAnchored(event) || event.is(Event.ID.Alias) ? construct(event, events) : skip(event, events);
+            return element != null ? project(element, projection) : null;
+        }
+        YamlObject object = new YamlObject();
+        // the keys found so far, including those of entries that aren't included
+        Set<String> keys = new HashSet<>();
+        while (!(event = events.next()).is(Event.ID.MappingEnd)) {
+            String key;
+            if (event.is(Event.ID.Scalar)) {
+                ScalarEvent scalar = (ScalarEvent) event;
+                Tag tag = resolveTag(scalar);
+                if (tag.equals(Tag.MERGE)) {
+                    mergeProjected(object, keys, construct(events.next(), events), projection);
+                    continue;
+                }
+                Object value = constructScalar(scalar, tag);
+                register(scalar.getAnchor(), toElement(value));
+                key = String.valueOf(value);
+            } else key = toKey(construct(event, events));
+            if (interner != null)
+                key = interner.internKey(key);
+            PathProjection child = projection.child(key);
+            Event value = events.next();
+            YamlElement element;
+            if (child == null)
+                element = skip(value, events);
+            else element = child.includesAll() ? construct(value, events) : constructProjected(value, events, child);
+            // an explicit key overrides a merged one, even if nothing in it is included
+            keys.add(key);
+            if (element != null)
+                object.set(key, element);
+            else if (object.containsKey(key))
+                object.remove(key);
+        }
+        return object.size() == 0 ? null : object;
+    }
+
+    // Skips a node without building it, except for the anchored nodes in it.
+    // Returns null, so that it can be used where a projected node is expected
+    private YamlElement skip(Event event, Iterator<Event> events) {
+        if (isAnchored(event)) {
+            construct(event, events);
+            return null;
+        }
+        if (event.is(Event.ID.MappingStart) || event.is(Event.ID.SequenceStart)) {
+            Event next;
+            while (!(next = events.next()).is(Event.ID.MappingEnd) && !next.is(Event.ID.SequenceEnd))
+                skip(next, events);
+        }
+        return null;
+    }
+
+    private static boolean isAnchored(Event event) {
+        return !event.is(Event.ID.Alias) && event instanceof NodeEvent && ((NodeEvent) event).getAnchor() != null;
+    }
+
+    // Keeps the part of an already built element that is included in the projection
+    private static YamlElement project(YamlElement element, PathProjection projection) {
+        if (projection.includesAll())
+            return element;
+        if (!element.isYamlObject())
+            return null;
+        YamlObject object = new YamlObject();
+        element.getAsYamlObject().forEach((key, value) -> {
+            PathProjection child = projection.child(key);
+            YamlElement projected = child != null ? project(value, child) : null;
+            if (projected != null)
+                object.set(key, projected);
+        });
+        return object.size() == 0 ? null : object;
+    }
+
+    // Merged entries never override the keys found before them, even those whose entries aren't included
+    private void mergeProjected(YamlObject object, Set<String> keys, YamlElement merged, PathProjection projection) {
+        if (merged.isYamlArray()) {
+            for (YamlElement element : merged.getAsYamlArray())
+                mergeProjected(object, keys, element, projection);
+        } else if (merged.isYamlObject()) {
+            merged.getAsYamlObject().forEach((k, v) -> {
+                if (!keys.add(k))
+                    return;
+                PathProjection child = projection.child(k);
+                YamlElement projected = child != null ? project(v, child) : null;
+                if (projected != null)
+                    object.set(k, projected);
+            });
+        } else merge(object, merged);
+    }
+
+    // Merged entries never override the ones already present
+    private void merge(YamlObject object, YamlElement merged) {
+        if (merged.isYamlObject()) {
+            merged.getAsYamlObject().forEach((k, v) -> {
+                if (!object.containsKey(k))
+                    object.set(k, v);
+            });
+        } else if (merged.isYamlArray()) {
+            for (YamlElement element : merged.getAsYamlArray())
+                merge(object, element);
+        } else throw new YamlParseFailedException("expected a mapping or a list of mappings for merging, but found " + merged);
+    }
+
+    /**
+     * Converts a constructed mapping key to the {@link String} used as the key
+     * of a {@link YamlObject}
+     *
+     * @param key The key
+     * @return The key as a {@link String}
+     */
+    public String toKey(YamlElement key) {
+        if (key.isYamlPrimitive())
+            return key.getAsYamlPrimitive().getValue().toString();
+        return String.valueOf(CONVERTER.toSnakeYAML(key));
+    }
+
+    // Shares the element with the equal ones already loaded, if they are shared
+    private YamlElement share(YamlElement element) {
+        return elements != null ? elements.intern(element) : element;
+    }
+
+    private YamlElement register(String anchor, YamlElement element) {
+        if (anchor != null)
+            anchors.put(anchor, element);
+        return element;
+    }
+
+    private static YamlElement toElement(Object value) {
+        return value == null ? YamlNull.NULL : YamlPrimitive.of(value);
+    }
+
+    // Mirrors snakeyaml's SafeConstructor.ConstructYamlInt
+    private static Number constructInt(String value) {
+        value = value.replace("_", "");
+        int sign = +1;
+        char first = value.charAt(0);
+        if (first == '-') {
+            sign = -1;
+            value = value.substring(1);
+        } else if (first == '+') {
+            value = value.substring(1);
+        }
+        if ("0".equals(value))
+            return 0;
+        if (value.startsWith("0b"))
+            return createNumber(sign, value.substring(2), 2);
+        if (value.startsWith("0x"))
+            return createNumber(sign, value.substring(2), 16);
+        if (value.startsWith("0"))
+            return createNumber(sign, value.substring(1), 8);
+        if (value.indexOf(':') != -1) {
+            String[] digits = value.split(":");
+            int bes = 1;
+            int val = 0;
+            for (int i = 0, j = digits.length; i < j; i++) {
+                val += Long.parseLong(digits[j - i - 1]) * bes;
+                bes *= 60;
+            }
+            return createNumber(sign, String.valueOf(val), 10);
+        }
+        return createNumber(sign, value, 10);
+    }
+
+    private static Number createNumber(int sign, String number, int radix) {
+        if (sign < 0)
+            number = "-" + number;
+        try {
+            return Integer.valueOf(number, radix);
+        } catch (NumberFormatException e) {
+            try {
+                return Long.valueOf(number, radix);
+            } catch (NumberFormatException e1) {
+                return new BigInteger(number, radix);
+            }
+        }
+    }
+
+    // Mirrors snakeyaml's SafeConstructor.ConstructYamlFloat
+    private static Double constructFloat(String value) {
+        value = value.replace("_", "").toLowerCase(Locale.ENGLISH);
+        int sign = +1;
+        char first = value.charAt(0);
+        if (first == '-') {
+            sign = -1;
+            value = value.substring(1);
+        } else if (first == '+') {
+            value = value.substring(1);
+        }
+        if (".inf".equals(value))
+            return sign == -1 ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        if (".nan".equals(value))
+            return Double.NaN;
+        if (value.indexOf(':') != -1) {
+            String[] digits = value.split(":");
+            int bes = 1;
+            double val = 0.0;
+            for (int i = 0, j = digits.length; i < j; i++) {
+                val += Double.parseDouble(digits[j - i - 1]) * bes;
+                bes *= 60;
+            }
+            return sign * val;
+        }
+        return Double.parseDouble(value) * sign;
+    }
+
+}
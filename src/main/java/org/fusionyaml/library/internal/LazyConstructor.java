@@ -0,0 +1,285 @@
+package org.fusionyaml.library.internal;
+
+import org.fusionyaml.library.exceptions.YamlParseFailedException;
+import org.fusionyaml.library.object.*;
+import org.yaml.snakeyaml.events.*;
+import org.yaml.snakeyaml.nodes.Tag;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.*;
+
+/**
+ * Loads YAML into {@link LazyYamlObject}s and {@link LazyYamlArray}s. The document
+ * is parsed once, building the scalars of the root and only recording where each
+ * nested mapping or sequence is found in the text. A mapping or a sequence is then
+ * parsed again from its {@link Span} of the text, one level at a time, the first time
+ * it is accessed. Only the text of the document and a small {@link Span} per mapping
+ * or sequence not accessed yet are kept in memory, and only the mappings and
+ * sequences that are actually used are ever built.
+ * <p>
+ * Scalars are resolved the same way an {@link ElementConstructor} resolves them,
+ * and merge keys ({@code <<}) are supported. A document whose sections can't be
+ * parsed on their own, since it holds anchors, aliases, tagged mappings or sequences,
+ * tag directives or characters outside of the Basic Multilingual Plane, is loaded
+ * eagerly instead.
+ */
+public final class LazyConstructor {
+
+    /**
+     * Loads a single document from the {@link Reader}. If the stream is empty,
+     * {@link YamlNull#NULL} is returned.
+     *
+     * @param reader The {@link Reader}
+     * @return The loaded document, whose mappings and sequences are built lazily
+     * @throws YamlParseFailedException If the stream can't be read or contains more
+     *                                  than one document
+     */
+    public YamlElement load(Reader reader) {
+        String source = read(reader);
+        if (isSplittable(source)) {
+            try {
+                return loadLazily(source);
+            } catch (NotSplittable e) {
+                // loaded eagerly below
+            }
+        }
+        return new ElementConstructor().load(new StringReader(source));
+    }
+
+    private static String read(Reader reader) {
+        StringBuilder builder = new StringBuilder();
+        char[] chars = new char[8192];
+        try {
+            int read;
+            while ((read = reader.read(chars)) != -1)
+                builder.append(chars, 0, read);
+        } catch (IOException e) {
+            throw new YamlParseFailedException(e);
+        }
+        // marks don't count the byte order mark
+        if (builder.length() > 0 && builder.charAt(0) == '\uFEFF')
+            builder.deleteCharAt(0);
+        return builder.toString();
+    }
+
+    // Marks count code points, which are only the same as chars within the Basic Multilingual Plane
+    private static boolean isSplittable(String source) {
+        for (int i = 0; i < source.length(); i++) {
+            if (Character.isSurrogate(source.charAt(i)))
+                return false;
+        }
+        return true;
+    }
+
+    private static YamlElement loadLazily(String source) {
+        Iterator<Event> events = new ElementConstructor().parse(new StringReader(source));
+        YamlElement document = null;
+        while (events.hasNext()) {
+            Event event = events.next();
+            if (!event.is(Event.ID.DocumentStart))
+                continue;
+            if (document != null)
+                throw new YamlParseFailedException("expected a single document in the stream");
+            Map<String, String> tags = ((DocumentStartEvent) event).getTags();
+            if (tags != null && !tags.isEmpty())
+                throw new NotSplittable();
+            Event next = events.next();
+            if (next.is(Event.ID.DocumentEnd)) {
+                document = YamlNull.NULL;
+                continue;
+            }
+            // the root is built right away, since it is needed anyway
+            checkSplittable(next);
+            if (next.is(Event.ID.MappingStart)) {
+                Map<String, YamlElement> entries = new LinkedHashMap<>();
+                constructMapping(source, 0, events, entries);
+                YamlObject object = new YamlObject(entries.size());
+                entries.forEach(object::set);
+                document = object;
+            } else if (next.is(Event.ID.SequenceStart)) {
+                List<YamlElement> items = new ArrayList<>();
+                constructSequence(source, 0, events, items);
+                document = YamlArray.of(items);
+            } else document = toElement(source, 0, next, events, new ElementConstructor());
+            // DocumentEnd
+            events.next();
+        }
+        return document != null ? document : YamlNull.NULL;
+    }
+
+    /**
+     * Parses the entries of a mapping from its {@link Span} and puts them into the {@link Map}
+     *
+     * @param span The {@link Span} of the mapping
+     * @param map  The {@link Map} the entries are put in
+     */
+    public static void constructMapping(Span span, Map<String, YamlElement> map) {
+        constructMapping(span.source, span.start - span.column, span.parse(), map);
+    }
+
+    /**
+     * Parses the items of a sequence from its {@link Span} and adds them to the {@link List}
+     *
+     * @param span The {@link Span} of the sequence
+     * @param list The {@link List} the items are added to
+     */
+    public static void constructSequence(Span span, List<YamlElement> list) {
+        constructSequence(span.source, span.start - span.column, span.parse(), list);
+    }
+
+    // Builds the entries of the mapping whose start event was just read. Offsets of
+    // the events are relative to base in the source
+    private static void constructMapping(String source, int base, Iterator<Event> events, Map<String, YamlElement> map) {
+        ElementConstructor constructor = new ElementConstructor();
+        Event event;
+        while (!(event = events.next()).is(Event.ID.MappingEnd)) {
+            String key;
+            if (event.is(Event.ID.Scalar)) {
+                ScalarEvent scalar = (ScalarEvent) event;
+                checkSplittable(scalar);
+                Tag tag = constructor.resolveTag(scalar);
+                if (tag.equals(Tag.MERGE)) {
+                    merge(map, construct(events.next(), events, constructor));
+                    continue;
+                }
+                key = String.valueOf(ElementConstructor.constructScalar(scalar.getValue(), tag));
+            } else key = constructor.toKey(construct(event, events, constructor));
+            map.put(key, toElement(source, base, events.next(), events, constructor));
+        }
+    }
+
+    private static void constructSequence(String source, int base, Iterator<Event> events, List<YamlElement> list) {
+        ElementConstructor constructor = new ElementConstructor();
+        Event event;
+        while (!(event = events.next()).is(Event.ID.SequenceEnd))
+            list.add(toElement(source, base, event, events, constructor));
+    }
+
+    // Builds a scalar, or records the span of a mapping or a sequence and skips its events
+    private static YamlElement toElement(String source, int base, Event event, Iterator<Event> events,
+                                         ElementConstructor constructor) {
+        checkSplittable(event);
+        if (event.is(Event.ID.Scalar)) {
+            ScalarEvent scalar = (ScalarEvent) event;
+            Object value = ElementConstructor.constructScalar(scalar.getValue(), constructor.resolveTag(scalar));
+            return value == null ? YamlNull.NULL : YamlPrimitive.of(value);
+        }
+        boolean mapping = event.is(Event.ID.MappingStart);
+        int size = 0;
+        int depth = 1;
+        Event next;
+        do {
+            next = events.next();
+            checkSplittable(next);
+            if (next.is(Event.ID.MappingEnd) || next.is(Event.ID.SequenceEnd)) {
+                depth--;
+                continue;
+            }
+            if (depth == 1)
+                size++;
+            if (next.is(Event.ID.MappingStart) || next.is(Event.ID.SequenceStart))
+                depth++;
+        } while (depth > 0);
+        // a block collection ends where the next token starts, a flow one after its closing bracket
+        int start = event.getStartMark().getIndex();
+        int end = ((CollectionStartEvent) event).isFlow() ? next.getEndMark().getIndex() : next.getStartMark().getIndex();
+        Span span = new Span(source, base + start, base + end, event.getStartMark().getColumn(), mapping ? size / 2 : size);
+        return mapping ? new LazyYamlObject(span) : new LazyYamlArray(span);
+    }
+
+    // Builds a whole node, typically a merged mapping or a complex key, once checked that it can be
+    private static YamlElement construct(Event event, Iterator<Event> events, ElementConstructor constructor) {
+        checkSplittable(event);
+        return constructor.construct(event, new Iterator<Event>() {
+            @Override
+            public boolean hasNext() {
+                return events.hasNext();
+            }
+
+            @Override
+            public Event next() {
+                Event next = events.next();
+                checkSplittable(next);
+                return next;
+            }
+        });
+    }
+
+    // Anchors and aliases may refer to other sections, and tags of collections may need the whole node
+    private static void checkSplittable(Event event) {
+        if (event.is(Event.ID.Alias))
+            throw new NotSplittable();
+        if (event instanceof NodeEvent && ((NodeEvent) event).getAnchor() != null)
+            throw new NotSplittable();
+        if (event instanceof CollectionStartEvent && ((CollectionStartEvent) event).getTag() != null)
+            throw new NotSplittable();
+    }
+
+    // Merged entries never override the ones already present
+    private static void merge(Map<String, YamlElement> map, YamlElement merged) {
+        if (merged.isYamlObject()) {
+            merged.getAsYamlObject().forEach(map::putIfAbsent);
+        } else if (merged.isYamlArray()) {
+            for (YamlElement element : merged.getAsYamlArray())
+                merge(map, element);
+        } else throw new YamlParseFailedException("expected a mapping or a list of mappings for merging, but found " + merged);
+    }
+
+    /**
+     * Where a mapping or a sequence that isn't built yet is found in the text of a
+     * document. A {@link Span} only holds a few offsets and the text, which is shared
+     * by every {@link Span} of the document.
+     */
+    public static final class Span {
+
+        private final String source;
+        private final int start;
+        private final int end;
+        private final int column;
+        private final int size;
+
+        private Span(String source, int start, int end, int column, int size) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+            this.column = column;
+            this.size = size;
+        }
+
+        /**
+         * @return The number of entries or items in the mapping or the sequence
+         */
+        public int size() {
+            return size;
+        }
+
+        // Parses the text of the span, indented as it is in the document, up to the start of the collection
+        private Iterator<Event> parse() {
+            StringBuilder text = new StringBuilder(column + end - start);
+            for (int i = 0; i < column; i++)
+                text.append(' ');
+            text.append(source, start, end);
+            Iterator<Event> events = new ElementConstructor().parse(new StringReader(text.toString()));
+            // StreamStart, DocumentStart, and the start of the collection
+            events.next();
+            events.next();
+            events.next();
+            return events;
+        }
+
+    }
+
+    // Thrown when a document can't be split into sections parsed on their own
+    private static final class NotSplittable extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private NotSplittable() {
+            super(null, null, false, false);
+        }
+
+    }
+
+}
@@ -1,41 +1,89 @@
 package org.fusionyaml.library.internal;
 
-import org.fusionyaml.library.FusionYAML;
+import org.fusionyaml.library.YamlOptions;
+import org.fusionyaml.library.exceptions.YamlException;
+import org.fusionyaml.library.io.YamlEmitter;
 import org.fusionyaml.library.object.YamlElement;
 import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.Yaml;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.io.Writer;
 
 /**
- * Dumps {@link YamlElement} through snakeyaml's dumper
+ * Dumps {@link YamlElement}s with a {@link YamlEmitter}, and other objects through
+ * snakeyaml's dumper. The {@link DumperOptions} are converted from the {@link YamlOptions}
+ * once, and each thread reuses its own snakeyaml {@link Yaml}, since building one is
+ * costly and it isn't thread-safe.
  */
 public final class YamlDumper {
-    
+
     private final Converter converter = new Converter();
-    
+    private final ThreadLocal<Yaml> yaml;
+    private final YamlEmitter emitter;
+
+    /**
+     * @param options The {@link YamlOptions} the elements are dumped with
+     */
+    public YamlDumper(YamlOptions options) {
+        DumperOptions dumperOptions = converter.toDumperOptions(options);
+        this.yaml = ThreadLocal.withInitial(() -> new Yaml(dumperOptions));
+        this.emitter = new YamlEmitter(options);
+    }
+
     /**
      * Dumps the element to a {@link String}
      *
-     * @param element    The element
-     * @param fusionYAML The {@link FusionYAML} object
+     * @param element The element
      * @return A YAML {@link String}
      */
-    public String dump(YamlElement element, FusionYAML fusionYAML) {
-        DumperOptions options = converter.toDumperOptions(fusionYAML.getYamlOptions());
-        return new Yaml(options).dump(converter.toSnakeYAML(element));
+    public String dump(YamlElement element) {
+        StringWriter writer = new StringWriter();
+        try {
+            emitter.emit(element, writer);
+        } catch (IOException e) {
+            throw new YamlException(e);
+        }
+        return writer.toString();
     }
-    
+
     /**
      * Dumps the element to a {@link Writer}
      *
-     * @param writer     The writer
-     * @param element    The {@link YamlElement}
-     * @param fusionYAML The {@link FusionYAML} object
+     * @param writer  The writer
+     * @param element The {@link YamlElement}
+     * @throws IOException If an IO error occurred
      */
-    public void dump(Writer writer, YamlElement element, FusionYAML fusionYAML) {
-        DumperOptions options = converter.toDumperOptions(fusionYAML.getYamlOptions());
-        new Yaml(options).dump(converter.toSnakeYAML(element), writer);
+    public void dump(Writer writer, YamlElement element) throws IOException {
+        emitter.emit(element, writer);
     }
-    
+
+    /**
+     * Dumps the element to a {@link Writer} as a document surrounded with the document
+     * start and end markers
+     *
+     * @param writer  The writer
+     * @param element The {@link YamlElement}
+     * @throws IOException If an IO error occurred
+     */
+    public void dumpDocument(Writer writer, YamlElement element) throws IOException {
+        emitter.emitDocument(element, writer);
+    }
+
+    /**
+     * @return The {@link YamlEmitter} the elements are dumped with
+     */
+    public YamlEmitter getEmitter() {
+        return emitter;
+    }
+
+    /**
+     * @return The calling thread's {@link Yaml}, configured with the options
+     * passed in when this dumper was created
+     */
+    public Yaml getYaml() {
+        return yaml.get();
+    }
+
 }
@@ -1,20 +1,59 @@
 package org.fusionyaml.library.internal;
 
 import org.fusionyaml.library.FusionYAML;
+import org.fusionyaml.library.StringInterner;
+import org.fusionyaml.library.exceptions.YamlException;
+import org.fusionyaml.library.exceptions.YamlParseFailedException;
+import org.fusionyaml.library.object.ElementInterner;
 import org.fusionyaml.library.object.YamlElement;
-import org.yaml.snakeyaml.Yaml;
+import org.fusionyaml.library.object.YamlObject;
 
 import java.io.Reader;
 import java.io.StringReader;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
- * Loads YAML through snakeyaml's loader
+ * Loads YAML through snakeyaml's parser. The {@link YamlElement}s are
+ * built directly from the parse events by an {@link ElementConstructor}
  */
 public final class YamlLoader {
     
-    private final Converter converter = new Converter();
+    // Streams smaller than this aren't worth splitting
+    private static final int MIN_PARALLEL_LENGTH = 65536;
+
+    private final StringInterner interner;
+    private final ElementInterner elements;
+
+    public YamlLoader() {
+        this(null);
+    }
+
+    /**
+     * @param interner The {@link StringInterner} mapping keys and string values are
+     *                 interned with, or {@code null}
+     */
+    public YamlLoader(StringInterner interner) {
+        this(interner, null);
+    }
+
+    /**
+     * @param interner The {@link StringInterner} mapping keys and string values are
+     *                 interned with, or {@code null}
+     * @param elements The {@link ElementInterner} equal objects, arrays and scalars are
+     *                 shared with, or {@code null}
+     */
+    public YamlLoader(StringInterner interner, ElementInterner elements) {
+        this.interner = interner;
+        this.elements = elements;
+    }
     
     /**
      * Loads a {@link YamlElement} given a {@link Reader}
@@ -24,8 +63,7 @@ public final class YamlLoader {
      * @return The loaded {@link YamlElement}
      */
     public YamlElement load(Reader reader, FusionYAML fusionYAML) {
-        return converter.toElement(new Yaml(converter.toDumperOptions(fusionYAML.getYamlOptions()))
-                .load(reader));
+        return new ElementConstructor(interner, elements).load(reader);
     }
     
     /**
@@ -45,7 +83,7 @@ public final class YamlLoader {
      * @return The loaded {@link YamlElement}
      */
     public YamlElement load(Reader reader) {
-        return load(reader, new FusionYAML());
+        return load(reader, FusionYAML.getDefault());
     }
     
     /**
@@ -56,11 +94,18 @@ public final class YamlLoader {
      * @return The loaded documents
      */
     public List<YamlElement> loadDocuments(Reader reader, FusionYAML fusionYAML) {
-        Iterable<Object> objects = new Yaml(converter.toDumperOptions(fusionYAML.getYamlOptions()))
-                .loadAll(reader);
-        List<YamlElement> elements = new LinkedList<>();
-        objects.forEach(o -> elements.add(converter.toElement(o)));
-        return elements;
+        return new ElementConstructor(interner, elements).loadAll(reader);
+    }
+    
+    /**
+     * Lazily loads multiple documents given a {@link Reader}. The next document
+     * is only parsed when it is requested from the {@link Iterator}.
+     *
+     * @param reader The reader
+     * @return An {@link Iterator} of documents
+     */
+    public Iterator<YamlElement> iterateDocuments(Reader reader) {
+        return new ElementConstructor(interner, elements).iterate(reader);
     }
     
     /**
@@ -80,8 +125,127 @@ public final class YamlLoader {
      * @return The loaded documents
      */
     public List<YamlElement> loadDocuments(Reader reader) {
-        return loadDocuments(reader, new FusionYAML());
+        return loadDocuments(reader, FusionYAML.getDefault());
+    }
+    
+    /**
+     * Loads a single document, parsing its top-level entries in parallel on the
+     * {@link Executor} passed in. The entries are found by a {@link DocumentSplitter}
+     * and are put back together in the order they appear in. If the document can't
+     * be safely split, for instance because its root isn't a mapping or because
+     * it contains anchors, it is parsed serially. It is parsed serially as well if
+     * any of the entries fails to parse, so that errors are reported as they would
+     * be by a serial load.
+     *
+     * @param yaml     The {@link String}
+     * @param executor The {@link Executor} the entries are parsed on
+     * @return The loaded {@link YamlElement}
+     * @throws YamlParseFailedException If the document can't be parsed
+     */
+    public YamlElement loadParallel(String yaml, Executor executor) {
+        int[] starts = yaml.length() < MIN_PARALLEL_LENGTH ? null : DocumentSplitter.splitEntries(yaml);
+        List<YamlElement> chunks = starts == null ? null
+                : loadChunks(yaml, starts, executor, chunk -> new ElementConstructor(interner, elements).load(new StringReader(chunk)));
+        if (chunks == null)
+            return serially(() -> new ElementConstructor(interner, elements).load(new StringReader(yaml)));
+        YamlObject object = new YamlObject();
+        for (YamlElement chunk : chunks)
+            chunk.getAsYamlObject().forEach(object::set);
+        return object;
     }
     
+    /**
+     * Loads a single document on the common {@link ForkJoinPool}, parsing its
+     * top-level entries in parallel
+     *
+     * @param yaml The {@link String}
+     * @return The loaded {@link YamlElement}
+     * @see #loadParallel(String, Executor)
+     */
+    public YamlElement loadParallel(String yaml) {
+        return loadParallel(yaml, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Loads multiple documents in parallel. The documents are found by a
+     * {@link DocumentSplitter}, and then parsed and converted on the {@link Executor}
+     * passed in. The returned documents are in the same order as they are in the
+     * {@link String}. If any of the documents fails to parse, they are all parsed
+     * serially, so that errors are reported as they would be by a serial load.
+     *
+     * @param yaml     The {@link String}
+     * @param executor The {@link Executor} the documents are parsed on
+     * @return The loaded documents, in order
+     * @throws YamlParseFailedException If a document can't be parsed
+     */
+    public List<YamlElement> loadDocumentsParallel(String yaml, Executor executor) {
+        int[] starts = DocumentSplitter.split(yaml);
+        List<List<YamlElement>> chunks = yaml.length() < MIN_PARALLEL_LENGTH ? null
+                : loadChunks(yaml, starts, executor, chunk -> new ElementConstructor(interner, elements).loadAll(new StringReader(chunk)));
+        if (chunks == null)
+            return serially(() -> new ElementConstructor(interner, elements).loadAll(new StringReader(yaml)));
+        List<YamlElement> documents = new ArrayList<>(starts.length);
+        chunks.forEach(documents::addAll);
+        return documents;
+    }
+    
+    /**
+     * Loads multiple documents in parallel on the common {@link ForkJoinPool}. The
+     * returned documents are in the same order as they are in the {@link String}.
+     *
+     * @param yaml The {@link String}
+     * @return The loaded documents, in order
+     * @see #loadDocumentsParallel(String, Executor)
+     */
+    public List<YamlElement> loadDocumentsParallel(String yaml) {
+        return loadDocumentsParallel(yaml, ForkJoinPool.commonPool());
+    }
+    
+    // Groups the ranges into contiguous chunks of about the same length and loads
+    // them concurrently. Returns null if there are too few ranges to be worth it,
+    // or if any chunk fails to parse
+    private static <T> List<T> loadChunks(String yaml, int[] starts, Executor executor, Function<String, T> loader) {
+        int parallelism = executor instanceof ForkJoinPool ? ((ForkJoinPool) executor).getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        // a few chunks per thread so that a slow chunk doesn't hold up the others
+        int chunks = Math.min(starts.length, parallelism * 4);
+        if (chunks < 2)
+            return null;
+        List<CompletableFuture<T>> futures = new ArrayList<>(chunks);
+        int perChunk = yaml.length() / chunks;
+        int first = 0;
+        while (first < starts.length) {
+            int last = first + 1;
+            while (last < starts.length && starts[last] - starts[first] < perChunk)
+                last++;
+            int start = starts[first];
+            int end = last < starts.length ? starts[last] : yaml.length();
+            futures.add(CompletableFuture.supplyAsync(() -> loader.apply(yaml.substring(start, end)), executor));
+            first = last;
+        }
+        List<T> loaded = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures)
+                loaded.add(future.join());
+        } catch (CompletionException e) {
+            // the text may have been split in the wrong place, which only a serial load can tell, and
+            // errors in a chunk are reported by the serial load with lines counted from the start of the text
+            if (e.getCause() instanceof RuntimeException)
+                return null;
+            throw new YamlParseFailedException(e.getCause());
+        }
+        return loaded;
+    }
+
+    // Loads serially, reporting the errors of the parser as a YamlParseFailedException
+    private static <T> T serially(Supplier<T> loader) {
+        try {
+            return loader.get();
+        } catch (YamlException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new YamlParseFailedException(e);
+        }
+    }
     
 }
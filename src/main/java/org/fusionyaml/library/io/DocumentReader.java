@@ -1,9 +1,12 @@
 package org.fusionyaml.library.io;
 
 import org.fusionyaml.library.FusionYAML;
-import org.fusionyaml.library.internal.Converter;
+import org.fusionyaml.library.PathProjection;
+import org.fusionyaml.library.internal.ElementConstructor;
+import org.fusionyaml.library.internal.LazyConstructor;
+import org.fusionyaml.library.object.LazyYamlObject;
 import org.fusionyaml.library.object.YamlElement;
-import org.yaml.snakeyaml.Yaml;
+import org.fusionyaml.library.object.YamlObject;
 
 import java.io.BufferedReader;
 import java.io.File;
@@ -71,10 +74,30 @@ public class DocumentReader extends YamlReader {
      * @return A document
      */
     public YamlElement readDocument() {
-        Yaml snakeYAML = new Yaml();
-        Converter converter = new Converter();
-        Object read = snakeYAML.load(buffReader);
-        return converter.toElement(read);
+        return new ElementConstructor(interner, elementInterner).load(buffReader);
+    }
+
+    /**
+     * Reads only the sections of the document included in the {@link PathProjection}.
+     * The other sections are skipped while parsing.
+     *
+     * @param projection The sections to read
+     * @return A {@link YamlObject} containing only the included sections
+     */
+    public YamlObject readDocument(PathProjection projection) {
+        return new ElementConstructor(interner, elementInterner).load(buffReader, projection);
+    }
+
+    /**
+     * Reads the document lazily. The mappings and sequences in the document
+     * are only built the first time they are accessed, so reading a large
+     * document of which only a small part is used is much cheaper.
+     *
+     * @return The document, whose mappings and sequences are built lazily
+     * @see LazyYamlObject
+     */
+    public YamlElement readDocumentLazily() {
+        return new LazyConstructor().load(buffReader);
     }
 
     /**
@@ -1,15 +1,14 @@
 package org.fusionyaml.library.io;
 
 import org.fusionyaml.library.FusionYAML;
-import org.fusionyaml.library.internal.Converter;
 import org.fusionyaml.library.object.YamlElement;
-import org.fusionyaml.library.utils.Utilities;
 import org.jetbrains.annotations.NotNull;
-import org.yaml.snakeyaml.Yaml;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * This class enables users to write elements into a document. This class
@@ -34,7 +33,7 @@ public class DocumentWriter extends YamlWriter {
     }
 
     /**
-     * Creates an instance of this class with buffer equal to 65536.
+     * Creates an instance of this class with buffer equal to 8192.
      *
      * @param writer The writer
      */
@@ -42,6 +41,26 @@ public class DocumentWriter extends YamlWriter {
         super(writer);
     }
 
+    /**
+     * Creates an instance of this class with buffer equal to 8192. The
+     * characters are encoded as UTF-8 and written to the {@link OutputStream}.
+     *
+     * @param out The {@link OutputStream}
+     */
+    public DocumentWriter(OutputStream out) {
+        super(out);
+    }
+
+    /**
+     * Creates an instance of this class with buffer equal to 8192. The
+     * characters are encoded as UTF-8 and written to the {@link WritableByteChannel}.
+     *
+     * @param channel The {@link WritableByteChannel}
+     */
+    public DocumentWriter(WritableByteChannel channel) {
+        super(channel);
+    }
+
     /**
      * Creates an instance of this class with buffer equal to the one passed
      * in. The {@link File} will be written to.
@@ -83,14 +102,7 @@ public class DocumentWriter extends YamlWriter {
      */
     @Override
     public void write(@NotNull YamlElement element, FusionYAML fusionYAML) throws IOException {
-        Converter converter = new Converter();
-        Yaml yaml = new Yaml(converter.toDumperOptions(fusionYAML.getYamlOptions()));
-        Object converted = Utilities.toDumpableObject(
-                // todo create remove null if enabled method
-                Utilities.removeNullIfEnabled(element, fusionYAML)
-        );
-        String dumped = yaml.dump(converted);
-        buffedWriter.write(dumped);
+        fusionYAML.getDumper().dump(buffedWriter, element);
     }
     
     /**
@@ -101,7 +113,7 @@ public class DocumentWriter extends YamlWriter {
      */
     @Override
     public void write(@NotNull YamlElement element) throws IOException {
-        this.write(element, new FusionYAML());
+        this.write(element, FusionYAML.getDefault());
     }
     
     
@@ -1,8 +1,7 @@
 package org.fusionyaml.library.io;
 
-import org.fusionyaml.library.internal.Converter;
+import org.fusionyaml.library.internal.ElementConstructor;
 import org.fusionyaml.library.object.YamlElement;
-import org.yaml.snakeyaml.Yaml;
 
 import java.io.BufferedReader;
 import java.io.File;
@@ -94,11 +93,9 @@ public class ElementReader extends YamlReader {
     }
     
     private LinkedList<YamlElement> createList() {
-        Converter converter = new Converter();
-        Iterable<Object> loaded = new Yaml().loadAll(buffReader);
+        List<YamlElement> loaded = new ElementConstructor(interner, elementInterner).loadAll(buffReader);
         LinkedList<YamlElement> created = new LinkedList<>();
-        loaded.forEach(e -> {
-            YamlElement converted = converter.toElement(e);
+        loaded.forEach(converted -> {
             if (converted.isYamlObject()) {
                 converted.getAsYamlObject().forEach((k, v) -> created.add(v));
             }
@@ -0,0 +1,954 @@
+package org.fusionyaml.library.io;
+
+import org.fusionyaml.library.exceptions.YamlParseFailedException;
+import org.fusionyaml.library.object.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link YamlElement} tree laid out flat in a {@link ByteBuffer}, which is navigated
+ * with {@link Cursor}s without building any {@link YamlElement}. Since the buffer can be
+ * a direct one or a file mapped into memory, a document of several gigabytes can be read
+ * without keeping its tree on the heap: only the parts of it read through a cursor are,
+ * and {@link Cursor#toElement()} builds a regular tree out of any subtree when needed.
+ * <p>
+ * Every element is referred to by a slot of 9 bytes, a byte telling its type followed by
+ * 8 bytes holding either the value of a scalar or the offset of a string, an object or an
+ * array. An array is its size followed by the slots of its elements, so an element is found
+ * in constant time. An object is its size followed by its entries in insertion order, each
+ * holding the offset of its key, the hash code of its key and the slot of its value, and
+ * followed by an open addressing table of the positions of the entries if there are more
+ * than a few, so a key is found in constant time as well. Strings are stored in UTF-8,
+ * preceded by their length, and keys and short strings are only stored once.
+ * <p>
+ * A document starts with the bytes {@code FYF} followed by the version of the layout, and
+ * ends with the slot of the root element followed by {@code FYF} again, so that a truncated
+ * document is told apart. Files larger than 1 GiB are mapped one region at a time. A
+ * {@link FlatDocument} is immutable and can be read from any number of threads.
+ */
+public final class FlatDocument {
+
+    private static final byte[] MAGIC = {'F', 'Y', 'F'};
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 1;
+    private static final int SLOT_SIZE = 9;
+    private static final int TRAILER_SIZE = SLOT_SIZE + MAGIC.length;
+    // the offset of the key, the hash code of the key and the slot of the value
+    private static final int ENTRY_SIZE = 8 + 4 + SLOT_SIZE;
+    // objects up to this size aren't indexed
+    private static final int LINEAR_MAX = 8;
+    // strings longer than this are stored every time they are found
+    private static final int SHARED_STRING_MAX = 64;
+    private static final int REGION_SHIFT = 30;
+
+    private static final byte NULL = 0;
+    private static final byte OBJECT = 1;
+    private static final byte ARRAY = 2;
+    private static final byte TRUE = 3;
+    private static final byte FALSE = 4;
+    private static final byte INT = 5;
+    private static final byte LONG = 6;
+    private static final byte BIG_INTEGER = 7;
+    private static final byte DOUBLE = 8;
+    private static final byte FLOAT = 9;
+    private static final byte STRING = 10;
+    private static final byte CHAR = 11;
+    private static final byte BYTE = 12;
+    private static final byte SHORT = 13;
+
+    private final ByteBuffer[] regions;
+    private final int shift;
+    private final long mask;
+    private final long size;
+
+    private FlatDocument(ByteBuffer[] regions, int shift, long size) {
+        this.regions = regions;
+        this.shift = shift;
+        this.mask = (1L << shift) - 1;
+        this.size = size;
+        if (size < HEADER_SIZE + TRAILER_SIZE)
+            throw new YamlParseFailedException("Not a flat document");
+        for (int i = 0; i < MAGIC.length; i++)
+            if (getByte(i) != MAGIC[i])
+                throw new YamlParseFailedException("Not a flat document");
+        byte version = getByte(MAGIC.length);
+        if (version != VERSION)
+            throw new YamlParseFailedException("Unsupported flat document version " + version);
+        for (int i = 0; i < MAGIC.length; i++)
+            if (getByte(size - MAGIC.length + i) != MAGIC[i])
+                throw new YamlParseFailedException("The flat document is truncated or corrupted");
+    }
+
+    /**
+     * Reads a document from the buffer, between its position and its limit. The
+     * buffer isn't copied, and must not be modified while the document is read.
+     *
+     * @param buffer The {@link ByteBuffer}, which may be a direct or a mapped one
+     * @return The document
+     * @throws YamlParseFailedException If the buffer doesn't hold a flat document
+     */
+    public static FlatDocument wrap(ByteBuffer buffer) {
+        ByteBuffer region = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        return new FlatDocument(new ByteBuffer[]{region}, 31, region.limit());
+    }
+
+    /**
+     * Maps a document written to a file into memory. The file must not be modified
+     * while the document is read.
+     *
+     * @param file The {@link File}
+     * @return The document
+     * @throws IOException               If the file can't be opened or mapped
+     * @throws YamlParseFailedException If the file doesn't hold a flat document
+     */
+    public static FlatDocument open(File file) throws IOException {
+        return open(file.toPath());
+    }
+
+    /**
+     * Maps a document written to a file into memory. The file must not be modified
+     * while the document is read.
+     *
+     * @param path The {@link Path} of the file
+     * @return The document
+     * @throws IOException               If the file can't be opened or mapped
+     * @throws YamlParseFailedException If the file doesn't hold a flat document
+     */
+    public static FlatDocument open(Path path) throws IOException {
+        // the mappings stay valid once the channel is closed
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer[] regions = new ByteBuffer[(int) ((size + (1L << REGION_SHIFT) - 1) >>> REGION_SHIFT)];
+            for (int i = 0; i < regions.length; i++) {
+                long offset = (long) i << REGION_SHIFT;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(1L << REGION_SHIFT, size - offset));
+            }
+            return new FlatDocument(regions, REGION_SHIFT, size);
+        }
+    }
+
+    /**
+     * Writes the element as a flat document. {@link #write(YamlEventReader, OutputStream)}
+     * writes a document without building its tree.
+     *
+     * @param element The element
+     * @param out     The {@link OutputStream}, which isn't closed
+     * @throws IOException If an IO error occurred
+     */
+    public static void write(YamlElement element, OutputStream out) throws IOException {
+        Encoder encoder = new Encoder(out);
+        encoder.write(MAGIC, 0, MAGIC.length);
+        encoder.writeByte(VERSION);
+        long root = encoder.encode(element);
+        encoder.writeByte(encoder.type);
+        encoder.writeLong(root);
+        encoder.write(MAGIC, 0, MAGIC.length);
+        encoder.flush();
+    }
+
+    /**
+     * Writes the next document read by the reader as a flat document, without building its
+     * tree: each element is written as soon as it is read, and only the entries of the objects
+     * and arrays the reader is in are kept until they end. If the reader is positioned on a
+     * value, only that value is written, the way {@link YamlEventReader#readElement()} reads it.
+     * Afterwards, the reader is positioned on the end of the document or of the value.
+     * <p>
+     * An alias is written as a reference to the element it refers to, which is only written
+     * once. The entries of anchored objects and arrays, and of the elements they hold, are
+     * kept until the end of the document, since they can be merged into other objects.
+     *
+     * @param reader The {@link YamlEventReader}
+     * @param out    The {@link OutputStream}, which isn't closed
+     * @return Whether a document was written, which it isn't if the reader reached the end
+     * of the stream
+     * @throws IOException              If an IO error occurred
+     * @throws YamlParseFailedException If an alias refers to an element that isn't defined
+     *                                  before it, or that holds it
+     */
+    public static boolean write(YamlEventReader reader, OutputStream out) throws IOException {
+        YamlEventReader.Token token = reader.currentToken();
+        boolean document = !isValue(token);
+        if (document) {
+            while (token != YamlEventReader.Token.START_DOCUMENT) {
+                if ((token = reader.next()) == null)
+                    return false;
+            }
+            reader.next();
+        }
+        Encoder encoder = new Encoder(out);
+        encoder.write(MAGIC, 0, MAGIC.length);
+        encoder.writeByte(VERSION);
+        long root = encoder.encode(reader);
+        encoder.writeByte(encoder.type);
+        encoder.writeLong(root);
+        encoder.write(MAGIC, 0, MAGIC.length);
+        encoder.flush();
+        if (document)
+            reader.next();
+        return true;
+    }
+
+    private static boolean isValue(YamlEventReader.Token token) {
+        return token == YamlEventReader.Token.START_OBJECT || token == YamlEventReader.Token.START_ARRAY
+                || token == YamlEventReader.Token.SCALAR || token == YamlEventReader.Token.ALIAS;
+    }
+
+    /**
+     * @return The {@link Cursor} of the root element
+     */
+    public Cursor root() {
+        return slot(size - TRAILER_SIZE);
+    }
+
+    /**
+     * @return The size of the document, in bytes
+     */
+    public long size() {
+        return size;
+    }
+
+    private Cursor slot(long offset) {
+        return new Cursor(getByte(offset), getLong(offset + 1));
+    }
+
+    private static YamlParseFailedException corrupted(IndexOutOfBoundsException e) {
+        return new YamlParseFailedException("The flat document is truncated or corrupted", e);
+    }
+
+    private byte getByte(long offset) {
+        try {
+            return regions[(int) (offset >>> shift)].get((int) (offset & mask));
+        } catch (IndexOutOfBoundsException e) {
+            throw corrupted(e);
+        }
+    }
+
+    private int getInt(long offset) {
+        try {
+            ByteBuffer region = regions[(int) (offset >>> shift)];
+            int position = (int) (offset & mask);
+            if (position <= region.limit() - 4)
+                return region.getInt(position);
+        } catch (IndexOutOfBoundsException e) {
+            throw corrupted(e);
+        }
+        // the value spans two regions
+        int value = 0;
+        for (int i = 0; i < 4; i++)
+            value = value << 8 | (getByte(offset + i) & 0xFF);
+        return value;
+    }
+
+    private long getLong(long offset) {
+        try {
+            ByteBuffer region = regions[(int) (offset >>> shift)];
+            int position = (int) (offset & mask);
+            if (position <= region.limit() - 8)
+                return region.getLong(position);
+        } catch (IndexOutOfBoundsException e) {
+            throw corrupted(e);
+        }
+        long value = 0;
+        for (int i = 0; i < 8; i++)
+            value = value << 8 | (getByte(offset + i) & 0xFF);
+        return value;
+    }
+
+    // Reads the bytes of a string or a big integer
+    private byte[] getBytes(long offset) {
+        int length = getInt(offset);
+        if (length < 0 || length > size - offset - 4)
+            throw new YamlParseFailedException("The flat document is truncated or corrupted");
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ) {
+            long position = offset + 4 + i;
+            ByteBuffer region = regions[(int) (position >>> shift)].duplicate();
+            region.position((int) (position & mask));
+            int count = Math.min(length - i, region.remaining());
+            region.get(bytes, i, count);
+            i += count;
+        }
+        return bytes;
+    }
+
+    private String getString(long offset) {
+        return new String(getBytes(offset), StandardCharsets.UTF_8);
+    }
+
+    // Compares the string at the offset with the key, without decoding it if the key is ASCII
+    private boolean matches(long offset, String key) {
+        int length = key.length();
+        for (int i = 0; i < length; i++)
+            if (key.charAt(i) >= 0x80)
+                return key.equals(getString(offset));
+        if (getInt(offset) != length)
+            return false;
+        for (int i = 0; i < length; i++)
+            if (getByte(offset + 4 + i) != key.charAt(i))
+                return false;
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Points to an element of a {@link FlatDocument}, and reads it straight from the
+     * buffer. Scalars are read without creating any object but the {@link String}s
+     * asked for, and objects and arrays are navigated without creating anything but
+     * the cursors of their elements.
+     * <p>
+     * The getters convert scalars the way a {@link YamlPrimitive} does, and, like a
+     * {@link YamlElement} that isn't a {@link YamlPrimitive}, throw an
+     * {@link UnsupportedOperationException} for objects and arrays.
+     */
+    public final class Cursor {
+
+        private final byte type;
+        // the value of a scalar, or the offset of a string, a big integer, an object or an array
+        private final long value;
+
+        private Cursor(byte type, long value) {
+            this.type = type;
+            this.value = value;
+        }
+
+        public boolean isObject() {
+            return type == OBJECT;
+        }
+
+        public boolean isArray() {
+            return type == ARRAY;
+        }
+
+        public boolean isNull() {
+            return type == NULL;
+        }
+
+        public boolean isBoolean() {
+            return type == TRUE || type == FALSE;
+        }
+
+        public boolean isString() {
+            return type == STRING;
+        }
+
+        public boolean isNumber() {
+            return type == INT || type == LONG || type == DOUBLE || type == BIG_INTEGER
+                    || type == FLOAT || type == BYTE || type == SHORT;
+        }
+
+        /**
+         * @return The number of entries of the object, or of elements of the array
+         * @throws IllegalStateException If the element is neither an object nor an array
+         */
+        public int size() {
+            if (type != OBJECT && type != ARRAY)
+                throw new IllegalStateException("Not a YAML object or array");
+            return getInt(value);
+        }
+
+        /**
+         * Looks a key up in the object
+         *
+         * @param key The key
+         * @return The {@link Cursor} of the value, or {@code null} if there is no such key
+         * @throws IllegalStateException If the element isn't an object
+         */
+        public Cursor get(String key) {
+            if (type != OBJECT)
+                throw new IllegalStateException("Not a YAML object");
+            int size = getInt(value);
+            int length = getInt(value + 4);
+            long entries = value + 8;
+            int hash = key.hashCode();
+            if (length == 0) {
+                for (int i = 0; i < size; i++) {
+                    long entry = entries + (long) i * ENTRY_SIZE;
+                    if (getInt(entry + 8) == hash && matches(getLong(entry), key))
+                        return slot(entry + 12);
+                }
+                return null;
+            }
+            long index = entries + (long) size * ENTRY_SIZE;
+            int mask = length - 1;
+            int position;
+            for (int i = spread(hash) & mask; (position = getInt(index + i * 4L)) != 0; i = (i + 1) & mask) {
+                long entry = entries + (long) (position - 1) * ENTRY_SIZE;
+                if (getInt(entry + 8) == hash && matches(getLong(entry), key))
+                    return slot(entry + 12);
+            }
+            return null;
+        }
+
+        /**
+         * Looks a path of keys up, each of them in the object found with the previous one
+         *
+         * @param path The keys
+         * @return The {@link Cursor} of the value, or {@code null} if a key is missing or
+         * isn't mapped to an object
+         */
+        public Cursor get(List<String> path) {
+            Cursor cursor = this;
+            for (String key : path) {
+                if (cursor == null || !cursor.isObject())
+                    return null;
+                cursor = cursor.get(key);
+            }
+            return cursor;
+        }
+
+        /**
+         * Gets the element at the index of the array, or the value of the entry at the
+         * position of the object, in insertion order
+         *
+         * @param index The index
+         * @return The {@link Cursor} of the element
+         * @throws IllegalStateException If the element is neither an object nor an array
+         */
+        public Cursor get(int index) {
+            checkIndex(index);
+            if (type == ARRAY)
+                return slot(value + 4 + (long) index * SLOT_SIZE);
+            return slot(value + 8 + (long) index * ENTRY_SIZE + 12);
+        }
+
+        /**
+         * Gets the key of the entry at the position of the object, in insertion order
+         *
+         * @param index The position
+         * @return The key
+         * @throws IllegalStateException If the element isn't an object
+         */
+        public String getKey(int index) {
+            if (type != OBJECT)
+                throw new IllegalStateException("Not a YAML object");
+            checkIndex(index);
+            return getString(getLong(value + 8 + (long) index * ENTRY_SIZE));
+        }
+
+        private void checkIndex(int index) {
+            int size = size();
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        public boolean getAsBoolean() {
+            if (isBoolean())
+                return type == TRUE;
+            return scalar().getAsBoolean();
+        }
+
+        public int getAsInt() {
+            switch (type) {
+                case INT:
+                case LONG:
+                case BYTE:
+                case SHORT:
+                    return (int) value;
+                case DOUBLE:
+                    return (int) Double.longBitsToDouble(value);
+                default:
+                    return scalar().getAsInt();
+            }
+        }
+
+        public long getAsLong() {
+            switch (type) {
+                case INT:
+                case LONG:
+                case BYTE:
+                case SHORT:
+                    return value;
+                case DOUBLE:
+                    return (long) Double.longBitsToDouble(value);
+                default:
+                    return scalar().getAsLong();
+            }
+        }
+
+        public double getAsDouble() {
+            switch (type) {
+                case INT:
+                case LONG:
+                case BYTE:
+                case SHORT:
+                    return value;
+                case DOUBLE:
+                    return Double.longBitsToDouble(value);
+                default:
+                    return scalar().getAsDouble();
+            }
+        }
+
+        public String getAsString() {
+            if (type == STRING)
+                return getString(value);
+            return scalar().getAsString();
+        }
+
+        // Builds the scalar the value is converted from, objects and arrays aren't converted
+        private YamlElement scalar() {
+            if (type == OBJECT)
+                throw new UnsupportedOperationException(YamlObject.class.getName());
+            if (type == ARRAY)
+                throw new UnsupportedOperationException(YamlArray.class.getName());
+            return toElement();
+        }
+
+        /**
+         * Builds a regular {@link YamlElement} tree out of the element and its children,
+         * which can be modified freely
+         *
+         * @return The {@link YamlElement}
+         */
+        public YamlElement toElement() {
+            switch (type) {
+                case NULL:
+                    return YamlNull.NULL;
+                case OBJECT: {
+                    int size = size();
+                    YamlObject object = new YamlObject(size);
+                    for (int i = 0; i < size; i++)
+                        object.set(getKey(i), get(i).toElement());
+                    return object;
+                }
+                case ARRAY: {
+                    int size = size();
+                    List<YamlElement> items = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++)
+                        items.add(get(i).toElement());
+                    return YamlArray.of(items);
+                }
+                case TRUE:
+                    return YamlPrimitive.of(true);
+                case FALSE:
+                    return YamlPrimitive.of(false);
+                case INT:
+                    return YamlPrimitive.of((int) value);
+                case LONG:
+                    return YamlPrimitive.of(value);
+                case BIG_INTEGER:
+                    return new YamlPrimitive(new BigInteger(getBytes(value)));
+                case DOUBLE:
+                    return YamlPrimitive.of(Double.longBitsToDouble(value));
+                case FLOAT:
+                    return new YamlPrimitive(Float.intBitsToFloat((int) value));
+                case STRING:
+                    return YamlPrimitive.of(getString(value));
+                case CHAR:
+                    return new YamlPrimitive((Object) (char) value);
+                case BYTE:
+                    return new YamlPrimitive((byte) value);
+                case SHORT:
+                    return new YamlPrimitive((short) value);
+                default:
+                    throw new YamlParseFailedException("Unknown element type " + type + " in the flat document");
+            }
+        }
+
+    }
+
+    // Writes the elements after their children, so that the offsets of the children are known
+    private static final class Encoder {
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[1 << 16];
+        private int count;
+        private long position;
+        private final Map<String, Long> strings = new HashMap<>();
+        // the type of the element last encoded
+        private byte type;
+
+        Encoder(OutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Writes the element, unless it is a scalar
+         *
+         * @param element The element
+         * @return The value of its slot, the type of which is left in {@link #type}
+         * @throws IOException If an IO error occurred
+         */
+        long encode(YamlElement element) throws IOException {
+            if (element == null || element.isYamlNull()) {
+                type = NULL;
+                return 0;
+            }
+            if (element.isYamlObject())
+                return encodeObject(element.getAsYamlObject());
+            if (element.isYamlArray())
+                return encodeArray(element.getAsYamlArray());
+            return encodePrimitive(element.getAsYamlPrimitive().getValue());
+        }
+
+        private long encodeObject(YamlObject object) throws IOException {
+            int size = object.size();
+            long[] keys = new long[size];
+            int[] hashes = new int[size];
+            byte[] types = new byte[size];
+            long[] values = new long[size];
+            int i = 0;
+            for (Map.Entry<String, YamlElement> entry : object.entrySet()) {
+                keys[i] = string(entry.getKey(), true);
+                hashes[i] = entry.getKey().hashCode();
+                values[i] = encode(entry.getValue());
+                types[i++] = type;
+            }
+            return writeObject(size, keys, hashes, types, values);
+        }
+
+        private long writeObject(int size, long[] keys, int[] hashes, byte[] types, long[] values) throws IOException {
+            int length = size > LINEAR_MAX ? Integer.highestOneBit(size) << 2 : 0;
+            int[] index = new int[length];
+            for (int i = 0; i < size && length > 0; i++) {
+                int slot = spread(hashes[i]) & (length - 1);
+                while (index[slot] != 0)
+                    slot = (slot + 1) & (length - 1);
+                index[slot] = i + 1;
+            }
+            long offset = position;
+            writeInt(size);
+            writeInt(length);
+            for (int i = 0; i < size; i++) {
+                writeLong(keys[i]);
+                writeInt(hashes[i]);
+                writeByte(types[i]);
+                writeLong(values[i]);
+            }
+            for (int slot : index)
+                writeInt(slot);
+            type = OBJECT;
+            return offset;
+        }
+
+        private long encodeArray(YamlArray array) throws IOException {
+            int size = array.size();
+            byte[] types = new byte[size];
+            long[] values = new long[size];
+            int i = 0;
+            for (YamlElement item : array) {
+                values[i] = encode(item);
+                types[i++] = type;
+            }
+            return writeArray(size, types, values);
+        }
+
+        private long writeArray(int size, byte[] types, long[] values) throws IOException {
+            long offset = position;
+            writeInt(size);
+            for (int i = 0; i < size; i++) {
+                writeByte(types[i]);
+                writeLong(values[i]);
+            }
+            type = ARRAY;
+            return offset;
+        }
+
+        /**
+         * Writes the value the reader is positioned on, reading it to its end. Each object and
+         * array is written once it ends, after its children.
+         *
+         * @param reader The {@link YamlEventReader}
+         * @return The value of its slot, the type of which is left in {@link #type}
+         * @throws IOException If an IO error occurred
+         */
+        long encode(YamlEventReader reader) throws IOException {
+            // the objects and arrays the reader is in, and the anchored ones
+            Deque<Frame> frames = new ArrayDeque<>();
+            Map<String, Frame> anchors = new HashMap<>();
+            // the objects and arrays that may be merged, by offset
+            Map<Long, Frame> kept = new HashMap<>();
+            YamlEventReader.Token token = reader.currentToken();
+            while (true) {
+                long value;
+                switch (token) {
+                    case START_OBJECT:
+                    case START_ARRAY: {
+                        Frame frame = new Frame(token == YamlEventReader.Token.START_OBJECT, frames.peek());
+                        String anchor = reader.getAnchor();
+                        if (anchor != null) {
+                            anchors.put(anchor, frame);
+                            frame.kept = true;
+                        }
+                        frames.push(frame);
+                        token = reader.next();
+                        continue;
+                    }
+                    case KEY: {
+                        Frame frame = frames.peek();
+                        frame.merging = reader.isMergeKey();
+                        if (!frame.merging)
+                            frame.key(reader.getKey(), string(reader.getKey(), true));
+                        token = reader.next();
+                        continue;
+                    }
+                    case END_OBJECT:
+                    case END_ARRAY: {
+                        Frame frame = frames.pop();
+                        value = frame.object
+                                ? writeObject(frame.size, frame.keys, frame.hashes, frame.types, frame.values)
+                                : writeArray(frame.size, frame.types, frame.values);
+                        type = frame.object ? OBJECT : ARRAY;
+                        frame.offset = value;
+                        if (frame.kept)
+                            kept.put(value, frame);
+                        break;
+                    }
+                    case SCALAR: {
+                        Object scalar = reader.getValue();
+                        if (scalar == null) {
+                            type = NULL;
+                            value = 0;
+                        } else value = encodePrimitive(scalar);
+                        break;
+                    }
+                    case ALIAS: {
+                        Frame anchored = anchors.get(reader.getAlias());
+                        if (anchored == null)
+                            throw new YamlParseFailedException("found undefined alias " + reader.getAlias());
+                        if (anchored.offset == -1)
+                            throw new YamlParseFailedException("found alias " + reader.getAlias() + " within the element it refers to");
+                        value = anchored.offset;
+                        type = anchored.object ? OBJECT : ARRAY;
+                        break;
+                    }
+                    default:
+                        throw new YamlParseFailedException("unexpected token " + token);
+                }
+                Frame parent = frames.peek();
+                if (parent == null)
+                    return value;
+                if (parent.merging) {
+                    merge(parent, type, value, kept);
+                    parent.merging = false;
+                } else parent.add(type, value);
+                token = reader.next();
+            }
+        }
+
+        // Merged entries never override the ones already present
+        private void merge(Frame object, byte type, long value, Map<Long, Frame> kept) {
+            Frame merged = type == OBJECT || type == ARRAY ? kept.get(value) : null;
+            if (merged == null)
+                throw new YamlParseFailedException("expected a mapping or a list of mappings for merging");
+            for (int i = 0; i < merged.size; i++) {
+                if (merged.object) {
+                    if (object.indexOf(merged.names[i], merged.hashes[i]) == -1) {
+                        object.key(merged.names[i], merged.keys[i]);
+                        object.add(merged.types[i], merged.values[i]);
+                    }
+                } else merge(object, merged.types[i], merged.values[i], kept);
+            }
+        }
+
+        private long encodePrimitive(Object value) throws IOException {
+            if (value instanceof Boolean) {
+                type = (Boolean) value ? TRUE : FALSE;
+                return 0;
+            } else if (value instanceof Integer) {
+                type = INT;
+                return (Integer) value;
+            } else if (value instanceof Long) {
+                type = LONG;
+                return (Long) value;
+            } else if (value instanceof Double) {
+                type = DOUBLE;
+                return Double.doubleToRawLongBits((Double) value);
+            } else if (value instanceof Float) {
+                type = FLOAT;
+                return Float.floatToRawIntBits((Float) value);
+            } else if (value instanceof BigInteger) {
+                long offset = bytes(((BigInteger) value).toByteArray());
+                type = BIG_INTEGER;
+                return offset;
+            } else if (value instanceof Byte) {
+                type = BYTE;
+                return (Byte) value;
+            } else if (value instanceof Short) {
+                type = SHORT;
+                return (Short) value;
+            } else if (value instanceof Character) {
+                type = CHAR;
+                return (Character) value;
+            }
+            // anything else is written the way it would be dumped
+            String str = value.toString();
+            long offset = string(str, str.length() <= SHARED_STRING_MAX);
+            type = STRING;
+            return offset;
+        }
+
+        private long string(String str, boolean shared) throws IOException {
+            Long offset = shared ? strings.get(str) : null;
+            if (offset != null)
+                return offset;
+            offset = bytes(str.getBytes(StandardCharsets.UTF_8));
+            if (shared)
+                strings.put(str, offset);
+            return offset;
+        }
+
+        private long bytes(byte[] bytes) throws IOException {
+            long offset = position;
+            writeInt(bytes.length);
+            write(bytes, 0, bytes.length);
+            return offset;
+        }
+
+        void writeByte(byte b) throws IOException {
+            if (count == buffer.length)
+                flush();
+            buffer[count++] = b;
+            position++;
+        }
+
+        void writeInt(int value) throws IOException {
+            if (buffer.length - count < 4)
+                flush();
+            for (int shift = 24; shift >= 0; shift -= 8)
+                buffer[count++] = (byte) (value >>> shift);
+            position += 4;
+        }
+
+        void writeLong(long value) throws IOException {
+            if (buffer.length - count < 8)
+                flush();
+            for (int shift = 56; shift >= 0; shift -= 8)
+                buffer[count++] = (byte) (value >>> shift);
+            position += 8;
+        }
+
+        void write(byte[] src, int offset, int length) throws IOException {
+            if (length > buffer.length - count) {
+                flush();
+                if (length > buffer.length) {
+                    out.write(src, offset, length);
+                    position += length;
+                    return;
+                }
+            }
+            System.arraycopy(src, offset, buffer, count, length);
+            count += length;
+            position += length;
+        }
+
+        void flush() throws IOException {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+
+    }
+
+    // The entries of an object or the elements of an array being streamed, kept until they
+    // are written, or until the end of the document if they may be merged
+    private static final class Frame {
+
+        final boolean object;
+        // whether the frame is anchored, held by a frame that is, or merged into its parent
+        boolean kept;
+        // whether the value being read is merged into the object
+        boolean merging;
+        // the offset the frame was written at, or -1 until it ends
+        long offset = -1;
+        int size;
+        // the keys of an object, their offsets and their hash codes
+        String[] names;
+        long[] keys;
+        int[] hashes;
+        byte[] types = new byte[4];
+        long[] values = new long[4];
+        // the position of the entry of the key being read, or -1 if it is new
+        private int position = -1;
+        // the positions of the keys, once there are too many to look them up linearly
+        private Map<String, Integer> positions;
+
+        Frame(boolean object, Frame parent) {
+            this.object = object;
+            this.kept = parent != null && (parent.kept || parent.merging);
+            if (object) {
+                names = new String[4];
+                keys = new long[4];
+                hashes = new int[4];
+            }
+        }
+
+        // A key found again replaces the value of its entry, which keeps its position
+        void key(String name, long key) {
+            int hash = name.hashCode();
+            position = indexOf(name, hash);
+            if (position != -1)
+                return;
+            grow();
+            names[size] = name;
+            keys[size] = key;
+            hashes[size] = hash;
+        }
+
+        void add(byte type, long value) {
+            int i = position != -1 ? position : size;
+            if (position == -1) {
+                if (!object)
+                    grow();
+                else if (positions != null)
+                    positions.put(names[i], i);
+                else if (size == LINEAR_MAX)
+                    index();
+                size++;
+            }
+            types[i] = type;
+            values[i] = value;
+            position = -1;
+        }
+
+        int indexOf(String name, int hash) {
+            if (positions != null) {
+                Integer position = positions.get(name);
+                return position != null ? position : -1;
+            }
+            for (int i = 0; i < size; i++)
+                if (hashes[i] == hash && names[i].equals(name))
+                    return i;
+            return -1;
+        }
+
+        private void index() {
+            positions = new HashMap<>();
+            for (int i = 0; i <= size; i++)
+                positions.put(names[i], i);
+        }
+
+        private void grow() {
+            if (size < types.length)
+                return;
+            int capacity = types.length * 2;
+            types = Arrays.copyOf(types, capacity);
+            values = Arrays.copyOf(values, capacity);
+            if (object) {
+                names = Arrays.copyOf(names, capacity);
+                keys = Arrays.copyOf(keys, capacity);
+                hashes = Arrays.copyOf(hashes, capacity);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,167 @@
+package org.fusionyaml.library.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link Reader} that decodes a UTF-8 file from a memory-mapped {@link ByteBuffer}.
+ * Unlike a {@link java.io.FileReader}, no read system calls are made: the mapped
+ * bytes are bulk-copied in large chunks into a heap buffer, which the UTF-8 decoder
+ * handles much faster than direct buffers, and each {@link #read(char[], int, int)}
+ * decodes as many characters as the array can hold.
+ * <p>
+ * Files larger than 1 GiB are mapped one region at a time. A leading byte
+ * order mark is skipped, and malformed input is replaced rather than reported,
+ * as a {@link java.io.FileReader} would do.
+ * <p>
+ * A mapping is only released once the mapped buffer is garbage collected, and until
+ * then, the file can't be replaced or deleted on Windows. Files smaller than 1 MiB,
+ * which most configuration files are, are therefore read into the heap instead, and
+ * are released as soon as the reader is closed. Larger files should
+ * only be mapped on Windows if they aren't replaced right after being read.
+ */
+public class MappedFileReader extends Reader {
+
+    private static final long REGION_SIZE = 1 << 30;
+    private static final int CHUNK_SIZE = 1 << 16;
+    // smaller files are read into the heap rather than mapped
+    private static final long MIN_MAPPED_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private long size;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private final ByteBuffer bytes = ByteBuffer.allocate(CHUNK_SIZE);
+    private ByteBuffer buffer;
+    // the offset of the mapped region in the file
+    private long offset;
+    private boolean flushed = false;
+    // the low surrogate of a pair that didn't fit in the last read, or -1
+    private int pending = -1;
+
+    /**
+     * @param file The {@link File} to read from
+     * @throws IOException If the file can't be opened or mapped
+     */
+    public MappedFileReader(File file) throws IOException {
+        this(file.toPath());
+    }
+
+    /**
+     * @param path The {@link Path} of the file to read from
+     * @throws IOException If the file can't be opened or mapped
+     */
+    public MappedFileReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            size = channel.size();
+            map(0);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        if (buffer.remaining() >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB
+                && buffer.get(2) == (byte) 0xBF)
+            buffer.position(3);
+        bytes.flip();
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (buffer == null)
+            throw new IOException("Stream closed");
+        if (off < 0 || len < 0 || len > cbuf.length - off)
+            throw new IndexOutOfBoundsException();
+        if (len == 0)
+            return 0;
+        if (pending != -1) {
+            cbuf[off] = (char) pending;
+            pending = -1;
+            return 1;
+        }
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        while (true) {
+            CoderResult result = decoder.decode(bytes, out, isExhausted());
+            if (out.position() > off)
+                return out.position() - off;
+            if (result.isOverflow())
+                // only one char was requested, but the next code point is a surrogate pair
+                return readSurrogatePair(cbuf, off);
+            if (!isExhausted()) {
+                fill();
+                continue;
+            }
+            if (!flushed) {
+                decoder.flush(out);
+                flushed = true;
+                if (out.position() > off)
+                    return out.position() - off;
+            }
+            return -1;
+        }
+    }
+
+    private int readSurrogatePair(char[] cbuf, int off) {
+        CharBuffer pair = CharBuffer.allocate(2);
+        decoder.decode(bytes, pair, isExhausted());
+        cbuf[off] = pair.get(0);
+        pending = pair.get(1);
+        return 1;
+    }
+
+    // Copies the next chunk of mapped bytes after the ones that are left undecoded
+    private void fill() throws IOException {
+        if (!buffer.hasRemaining())
+            map(offset + buffer.limit());
+        bytes.compact();
+        int count = Math.min(bytes.remaining(), buffer.remaining());
+        buffer.get(bytes.array(), bytes.position(), count);
+        bytes.position(bytes.position() + count);
+        bytes.flip();
+    }
+
+    private boolean isExhausted() {
+        return !buffer.hasRemaining() && offset + buffer.limit() >= size;
+    }
+
+    private void map(long from) throws IOException {
+        offset = from;
+        if (size < MIN_MAPPED_SIZE) {
+            buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) == -1)
+                    break;
+            }
+            buffer.flip();
+            // the file may have been truncated since its size was read
+            size = buffer.limit();
+            return;
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(REGION_SIZE, size - from));
+    }
+
+    /**
+     * Closes the underlying {@link FileChannel}. The mapped memory, if the file was
+     * mapped, is released once the mapped buffer is garbage collected.
+     *
+     * @throws IOException If an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        channel.close();
+    }
+
+}
@@ -1,21 +1,31 @@
 package org.fusionyaml.library.io;
 
 import org.fusionyaml.library.FusionYAML;
+import org.fusionyaml.library.exceptions.YamlException;
 import org.fusionyaml.library.exceptions.YamlParseFailedException;
-import org.fusionyaml.library.internal.Converter;
+import org.fusionyaml.library.internal.ElementConstructor;
+import org.fusionyaml.library.internal.YamlLoader;
 import org.fusionyaml.library.object.YamlElement;
-import org.yaml.snakeyaml.Yaml;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
 import java.io.Reader;
 import java.lang.reflect.Type;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This class enables people to read different {@link YamlElement}s within
  * a document.
+ * <p>
+ * Documents can either be read all at once by calling {@link #readDocuments()}, or
+ * lazily by calling {@link #iterator()} or {@link #stream()}. When read lazily, the
+ * next document is only parsed once it is requested, so only one document is held
+ * in memory at a time.
  */
 public class MultiDocumentReader extends YamlReader {
 
@@ -73,17 +83,44 @@ public class MultiDocumentReader extends YamlReader {
      */
     public Iterable<YamlElement> readDocuments() {
         try {
-            Converter converter = new Converter();
-            Yaml yaml = new Yaml();
-            Iterable<Object> iterable = yaml.loadAll(buffReader);
-            List<YamlElement> elementLists = new LinkedList<>();
-            iterable.forEach(o -> elementLists.add(converter.toElement(o)));
-            return elementLists;
+            return new ElementConstructor(interner, elementInterner).loadAll(buffReader);
         } catch (Exception e) {
             throw new YamlParseFailedException(e);
         }
     }
 
+    /**
+     * Reads all of the documents in parallel on the {@link Executor} passed in.
+     * The whole stream is read into memory, split into documents at the
+     * {@code ---} markers, and the documents are then parsed concurrently. The
+     * returned documents are in the same order as they are in the stream.
+     *
+     * @param executor The {@link Executor} the documents are parsed on
+     * @return A {@link List} of documents, in order
+     * @throws YamlParseFailedException If a document can't be parsed
+     */
+    public List<YamlElement> readDocumentsParallel(Executor executor) {
+        try {
+            return new YamlLoader(interner, elementInterner).loadDocumentsParallel(readFully(), executor);
+        } catch (YamlException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new YamlParseFailedException(e);
+        }
+    }
+
+    /**
+     * Reads all of the documents in parallel on the common {@link ForkJoinPool}.
+     * The returned documents are in the same order as they are in the stream.
+     *
+     * @return A {@link List} of documents, in order
+     * @throws YamlParseFailedException If a document can't be parsed
+     * @see #readDocumentsParallel(Executor)
+     */
+    public List<YamlElement> readDocumentsParallel() {
+        return readDocumentsParallel(ForkJoinPool.commonPool());
+    }
+
     /**
      * Deserializes all documents into a object of type {@link T} of type
      * similar to the type passed in.
@@ -96,8 +133,88 @@ public class MultiDocumentReader extends YamlReader {
      */
     public <T> Iterable<T> deserializeAllTo(Type type, FusionYAML yaml) {
         LinkedList<T> des = new LinkedList<>();
-        this.readDocuments().forEach(doc -> des.add(yaml.deserialize(doc, type)));
+        this.iterator().forEachRemaining(doc -> des.add(yaml.deserialize(doc, type)));
         return des;
     }
 
+    /**
+     * Lazily reads the documents. A document is only parsed when the returned
+     * {@link Iterator} is asked for it. Once all documents are read, this reader
+     * is closed.
+     *
+     * @return An {@link Iterator} of documents
+     * @throws YamlParseFailedException If a document can't be parsed
+     */
+    public Iterator<YamlElement> iterator() {
+        Iterator<YamlElement> documents = new ElementConstructor(interner, elementInterner).iterate(buffReader);
+        return new Iterator<YamlElement>() {
+            @Override
+            public boolean hasNext() {
+                boolean hasNext;
+                try {
+                    hasNext = documents.hasNext();
+                } catch (YamlException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new YamlParseFailedException(e);
+                }
+                if (!hasNext)
+                    closeUnchecked();
+                return hasNext;
+            }
+
+            @Override
+            public YamlElement next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return documents.next();
+            }
+        };
+    }
+
+    /**
+     * Lazily reads the documents into a {@link Stream}. A document is only parsed
+     * when the {@link Stream} pulls it. Closing the {@link Stream} closes this reader.
+     *
+     * @return A {@link Stream} of documents
+     * @throws YamlParseFailedException If a document can't be parsed
+     */
+    public Stream<YamlElement> stream() {
+        Spliterator<YamlElement> spliterator = Spliterators.spliteratorUnknownSize(iterator(),
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::closeUnchecked);
+    }
+
+    /**
+     * Lazily deserializes the documents into objects of type {@link T}. A
+     * document is only parsed and deserialized when the {@link Stream} pulls it.
+     * Closing the {@link Stream} closes this reader.
+     *
+     * @param type The type
+     * @param yaml A {@link FusionYAML} object, which will be used for
+     *             deserializing
+     * @param <T>  The type
+     * @return A {@link Stream} of deserialized objects
+     */
+    public <T> Stream<T> deserializeStream(Type type, FusionYAML yaml) {
+        return stream().map(doc -> yaml.deserialize(doc, type));
+    }
+
+    private String readFully() throws IOException {
+        StringBuilder builder = new StringBuilder(Math.max(buff, 16));
+        char[] chars = new char[8192];
+        int read;
+        while ((read = buffReader.read(chars)) != -1)
+            builder.append(chars, 0, read);
+        return builder.toString();
+    }
+
+    private void closeUnchecked() {
+        try {
+            close();
+        } catch (IOException e) {
+            throw new YamlException(e);
+        }
+    }
+
 }
@@ -1,17 +1,15 @@
 package org.fusionyaml.library.io;
 
 import org.fusionyaml.library.FusionYAML;
-import org.fusionyaml.library.internal.Converter;
-import org.fusionyaml.library.internal.YamlDumper;
 import org.fusionyaml.library.object.YamlElement;
-import org.fusionyaml.library.utils.Utilities;
 import org.jetbrains.annotations.NotNull;
-import org.yaml.snakeyaml.DumperOptions;
 
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * Allows the writing of one document at once. Unlike
@@ -22,6 +20,7 @@ import java.io.Writer;
  * end indicators
  */
 public class MultiDocumentWriter extends YamlWriter {
+
     /**
      * Creates an instance of this class by copying the {@link BufferedWriter}
      * from the class passed in.
@@ -44,7 +43,7 @@ public class MultiDocumentWriter extends YamlWriter {
     }
 
     /**
-     * Creates an instance of this class with buffer equal to 65536.
+     * Creates an instance of this class with buffer equal to 8192.
      *
      * @param writer The writer
      */
@@ -52,6 +51,26 @@ public class MultiDocumentWriter extends YamlWriter {
         super(writer);
     }
 
+    /**
+     * Creates an instance of this class with buffer equal to 8192. The
+     * characters are encoded as UTF-8 and written to the {@link OutputStream}.
+     *
+     * @param out The {@link OutputStream}
+     */
+    public MultiDocumentWriter(OutputStream out) {
+        super(out);
+    }
+
+    /**
+     * Creates an instance of this class with buffer equal to 8192. The
+     * characters are encoded as UTF-8 and written to the {@link WritableByteChannel}.
+     *
+     * @param channel The {@link WritableByteChannel}
+     */
+    public MultiDocumentWriter(WritableByteChannel channel) {
+        super(channel);
+    }
+
     /**
      * Creates an instance of this class with buffer equal to the one passed
      * in. The {@link File} will be written to.
@@ -83,13 +102,7 @@ public class MultiDocumentWriter extends YamlWriter {
      */
     @Override
     public void write(@NotNull YamlElement element, FusionYAML fusionYAML) throws IOException {
-        Converter converter = new Converter();
-        DumperOptions options = converter.toDumperOptions(fusionYAML.getYamlOptions());
-        options.setExplicitEnd(true);
-        options.setExplicitStart(true);
-        YamlDumper dumper = new YamlDumper();
-        String str = dumper.dump(Utilities.removeNullIfEnabled(element, fusionYAML), fusionYAML);
-        buffedWriter.write(str);
+        fusionYAML.getDumper().dumpDocument(buffedWriter, element);
     }
 
     /**
@@ -102,7 +115,7 @@ public class MultiDocumentWriter extends YamlWriter {
      */
     @Override
     public void write(@NotNull YamlElement element) throws IOException {
-        this.write(element, new FusionYAML());
+        this.write(element, FusionYAML.getDefault());
     }
 
     /**
@@ -125,10 +138,7 @@ public class MultiDocumentWriter extends YamlWriter {
      * @throws IOException If an IO error occurred
      */
     public void writeDocuments(Iterable<YamlElement> elements) throws IOException {
-        FusionYAML fusionYAML = new FusionYAML();
-        for (YamlElement element : elements) {
-            this.write(element, fusionYAML);
-        }
+        writeDocuments(elements, FusionYAML.getDefault());
     }
 
 }
@@ -0,0 +1,260 @@
+package org.fusionyaml.library.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A {@link Writer} that encodes characters as UTF-8 straight into a byte buffer,
+ * which is written to a {@link WritableByteChannel}, an {@link OutputStream} or a
+ * {@link ByteBuffer} whenever it fills up. Unlike an {@link java.io.OutputStreamWriter},
+ * no {@link java.nio.charset.CharsetEncoder} is involved: ASCII characters are copied
+ * byte by byte and the rest are encoded inline, so writing a document never needs a
+ * {@link String} or a {@code byte[]} copy of it.
+ * <p>
+ * The byte buffers are pooled and reused by other writers once this one is closed.
+ * Unpaired surrogates are written as {@code '?'}, as an {@link java.io.OutputStreamWriter}
+ * would do.
+ */
+public class Utf8Writer extends Writer {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final BlockingQueue<byte[]> POOL = new ArrayBlockingQueue<>(16);
+
+    private final WritableByteChannel channel;
+    private final OutputStream out;
+    private final ByteBuffer target;
+    private final boolean closeTarget;
+
+    private byte[] buffer = acquire();
+    private int position = 0;
+    // the high surrogate written last, waiting for its low surrogate, or 0
+    private char high = 0;
+
+    /**
+     * @param channel The {@link WritableByteChannel} the bytes are written to
+     */
+    public Utf8Writer(WritableByteChannel channel) {
+        this(channel, true);
+    }
+
+    /**
+     * @param channel     The {@link WritableByteChannel} the bytes are written to
+     * @param closeTarget Whether closing the writer closes the {@link WritableByteChannel} as well
+     */
+    public Utf8Writer(WritableByteChannel channel, boolean closeTarget) {
+        this(channel, null, null, closeTarget);
+    }
+
+    /**
+     * @param out The {@link OutputStream} the bytes are written to
+     */
+    public Utf8Writer(OutputStream out) {
+        this(out, true);
+    }
+
+    /**
+     * @param out         The {@link OutputStream} the bytes are written to
+     * @param closeTarget Whether closing the writer closes the {@link OutputStream} as well.
+     *                    If not, the {@link OutputStream} is only flushed.
+     */
+    public Utf8Writer(OutputStream out, boolean closeTarget) {
+        this(null, out, null, closeTarget);
+    }
+
+    /**
+     * The bytes are put into the {@link ByteBuffer}. If it doesn't have enough
+     * space left, a {@link java.nio.BufferOverflowException} is thrown.
+     *
+     * @param target The {@link ByteBuffer} the bytes are put into
+     */
+    public Utf8Writer(ByteBuffer target) {
+        this(null, null, target, false);
+    }
+
+    /**
+     * Creates or truncates the {@link File} and writes to it
+     *
+     * @param file The {@link File}
+     * @throws IOException If the file can't be opened
+     */
+    public Utf8Writer(File file) throws IOException {
+        this(FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    private Utf8Writer(WritableByteChannel channel, OutputStream out, ByteBuffer target, boolean closeTarget) {
+        this.channel = channel;
+        this.out = out;
+        this.target = target;
+        this.closeTarget = closeTarget;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        ensureOpen();
+        if (position > BUFFER_SIZE - 4)
+            drain();
+        encode((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        ensureOpen();
+        if (off < 0 || len < 0 || len > cbuf.length - off)
+            throw new IndexOutOfBoundsException();
+        byte[] buffer = this.buffer;
+        int end = off + len;
+        while (off < end) {
+            if (position > BUFFER_SIZE - 4)
+                drain();
+            // ASCII fast path
+            int limit = Math.min(end, off + BUFFER_SIZE - 4 - position);
+            int pos = position;
+            while (off < limit && high == 0) {
+                char c = cbuf[off];
+                if (c >= 0x80)
+                    break;
+                buffer[pos++] = (byte) c;
+                off++;
+            }
+            position = pos;
+            if (off < end)
+                encode(cbuf[off++]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        ensureOpen();
+        if (off < 0 || len < 0 || len > str.length() - off)
+            throw new IndexOutOfBoundsException();
+        byte[] buffer = this.buffer;
+        int end = off + len;
+        while (off < end) {
+            if (position > BUFFER_SIZE - 4)
+                drain();
+            // ASCII fast path
+            int limit = Math.min(end, off + BUFFER_SIZE - 4 - position);
+            int pos = position;
+            while (off < limit && high == 0) {
+                char c = str.charAt(off);
+                if (c >= 0x80)
+                    break;
+                buffer[pos++] = (byte) c;
+                off++;
+            }
+            position = pos;
+            if (off < end)
+                encode(str.charAt(off++));
+        }
+    }
+
+    // The buffer must have at least 4 bytes left
+    private void encode(char c) {
+        byte[] buffer = this.buffer;
+        if (high != 0) {
+            char first = high;
+            high = 0;
+            if (Character.isLowSurrogate(c)) {
+                int code = Character.toCodePoint(first, c);
+                buffer[position++] = (byte) (0xF0 | code >> 18);
+                buffer[position++] = (byte) (0x80 | code >> 12 & 0x3F);
+                buffer[position++] = (byte) (0x80 | code >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | code & 0x3F);
+                return;
+            }
+            buffer[position++] = '?';
+        }
+        if (c < 0x80) {
+            buffer[position++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[position++] = (byte) (0xC0 | c >> 6);
+            buffer[position++] = (byte) (0x80 | c & 0x3F);
+        } else if (Character.isHighSurrogate(c)) {
+            high = c;
+        } else if (Character.isLowSurrogate(c)) {
+            buffer[position++] = '?';
+        } else {
+            buffer[position++] = (byte) (0xE0 | c >> 12);
+            buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+            buffer[position++] = (byte) (0x80 | c & 0x3F);
+        }
+    }
+
+    // Writes the encoded bytes out
+    private void drain() throws IOException {
+        if (position == 0)
+            return;
+        if (channel != null) {
+            ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, position);
+            while (bytes.hasRemaining())
+                channel.write(bytes);
+        } else if (out != null) {
+            out.write(buffer, 0, position);
+        } else target.put(buffer, 0, position);
+        position = 0;
+    }
+
+    /**
+     * Writes the encoded bytes out and flushes the {@link OutputStream}, if there is
+     * one. A high surrogate whose low surrogate hasn't been written yet is kept.
+     *
+     * @throws IOException If an I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        drain();
+        if (out != null)
+            out.flush();
+    }
+
+    /**
+     * Flushes the writer and closes the {@link WritableByteChannel} or the
+     * {@link OutputStream}, unless the writer was told not to. The byte buffer
+     * is given back to the pool.
+     *
+     * @throws IOException If an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        if (buffer == null)
+            return;
+        try {
+            if (high != 0) {
+                high = 0;
+                buffer[position++] = '?';
+            }
+            drain();
+        } finally {
+            POOL.offer(buffer);
+            buffer = null;
+            if (!closeTarget) {
+                if (out != null)
+                    out.flush();
+            } else if (channel != null)
+                channel.close();
+            else if (out != null)
+                out.close();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (buffer == null)
+            throw new IOException("Stream closed");
+    }
+
+    private static byte[] acquire() {
+        byte[] buffer = POOL.poll();
+        return buffer != null ? buffer : new byte[BUFFER_SIZE];
+    }
+
+}
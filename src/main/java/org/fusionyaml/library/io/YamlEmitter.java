@@ -0,0 +1,301 @@
+package org.fusionyaml.library.io;
+
+import org.fusionyaml.library.FusionYAML;
+import org.fusionyaml.library.YamlOptions;
+import org.fusionyaml.library.internal.Converter;
+import org.fusionyaml.library.object.*;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.emitter.Emitter;
+import org.yaml.snakeyaml.events.*;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.reader.StreamReader;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Emits {@link YamlElement}s as YAML. Unlike dumping through snakeyaml's {@link org.yaml.snakeyaml.Yaml},
+ * the elements are never converted into {@link java.util.Map}s and {@link java.util.List}s
+ * nor rendered to a {@link String} first: the tree is walked and each mapping, sequence
+ * and scalar is written to the {@link Writer} as soon as it is reached. The memory
+ * used while emitting doesn't depend on the size of the document.
+ * <p>
+ * The output is the same as the one of snakeyaml's dumper configured with the
+ * {@link YamlOptions} passed in, including the indent, width, flow style, scalar style
+ * and line breaks. If null values are excluded, {@link YamlNull}s in {@link YamlObject}s
+ * are skipped, and so are {@link YamlObject}s left empty.
+ * <p>
+ * A {@link YamlEmitter} holds no state between calls and can be shared between threads.
+ */
+public class YamlEmitter {
+
+    private static final Resolver RESOLVER = new Resolver();
+    private static final Pattern MULTILINE = Pattern.compile("\n|\u0085|\u2028|\u2029");
+
+    private final DumperOptions options;
+    private final boolean excludeNulls;
+
+    /**
+     * @param options The {@link YamlOptions} the elements are emitted with
+     */
+    public YamlEmitter(YamlOptions options) {
+        this.options = new Converter().toDumperOptions(options);
+        this.excludeNulls = options.isExcludeNullVals();
+    }
+
+    /**
+     * @param fusionYAML The {@link FusionYAML} instance whose options the elements are
+     *                   emitted with
+     */
+    public YamlEmitter(FusionYAML fusionYAML) {
+        this(fusionYAML.getYamlOptions());
+    }
+
+    /**
+     * Emits the element as a single document. The document start and end markers are
+     * only written if the options require them.
+     *
+     * @param element The element
+     * @param writer  The {@link Writer}
+     * @throws IOException If an IO error occurred
+     */
+    public void emit(YamlElement element, Writer writer) throws IOException {
+        Emitter emitter = open(writer);
+        emitDocument(emitter, element, false);
+        close(emitter);
+    }
+
+    /**
+     * Emits the element as a document surrounded with the document start and end
+     * markers, so that it can be followed by other documents.
+     *
+     * @param element The element
+     * @param writer  The {@link Writer}
+     * @throws IOException If an IO error occurred
+     */
+    public void emitDocument(YamlElement element, Writer writer) throws IOException {
+        Emitter emitter = open(writer);
+        emitDocument(emitter, element, true);
+        close(emitter);
+    }
+
+    /**
+     * Emits each element as a document surrounded with the document start and end
+     * markers.
+     *
+     * @param elements The elements, each representing a document
+     * @param writer   The {@link Writer}
+     * @throws IOException If an IO error occurred
+     */
+    public void emitDocuments(Iterable<? extends YamlElement> elements, Writer writer) throws IOException {
+        Emitter emitter = open(writer);
+        for (YamlElement element : elements)
+            emitDocument(emitter, element, true);
+        close(emitter);
+    }
+
+    private void emitDocument(Emitter emitter, YamlElement element, boolean explicit) throws IOException {
+        startDocument(emitter, explicit);
+        emitElement(emitter, element == null ? YamlNull.NULL : element, excludeNulls);
+        endDocument(emitter, explicit);
+    }
+
+    Emitter open(Writer writer) throws IOException {
+        Emitter emitter = new Emitter(writer, options);
+        emitter.emit(new StreamStartEvent(null, null));
+        return emitter;
+    }
+
+    void close(Emitter emitter) throws IOException {
+        emitter.emit(new StreamEndEvent(null, null));
+    }
+
+    void startDocument(Emitter emitter, boolean explicit) throws IOException {
+        emitter.emit(new DocumentStartEvent(null, null, explicit || options.isExplicitStart(),
+                options.getVersion(), options.getTags()));
+    }
+
+    void endDocument(Emitter emitter, boolean explicit) throws IOException {
+        emitter.emit(new DocumentEndEvent(null, null, explicit || options.isExplicitEnd()));
+    }
+
+    void startObject(Emitter emitter, DumperOptions.FlowStyle flowStyle) throws IOException {
+        emitter.emit(new MappingStartEvent(null, Tag.MAP.getValue(), true, null, null, flowStyle));
+    }
+
+    void endObject(Emitter emitter) throws IOException {
+        emitter.emit(new MappingEndEvent(null, null));
+    }
+
+    void startArray(Emitter emitter, DumperOptions.FlowStyle flowStyle) throws IOException {
+        emitter.emit(new SequenceStartEvent(null, Tag.SEQ.getValue(), true, null, null, flowStyle));
+    }
+
+    void endArray(Emitter emitter) throws IOException {
+        emitter.emit(new SequenceEndEvent(null, null));
+    }
+
+    void emitKey(Emitter emitter, String key) throws IOException {
+        emitScalar(emitter, Tag.STR, key, stringStyle(key));
+    }
+
+    void emitNull(Emitter emitter) throws IOException {
+        emitScalar(emitter, Tag.NULL, "null", options.getDefaultScalarStyle());
+    }
+
+    /**
+     * @return Whether null values are excluded from objects or not
+     */
+    boolean isExcludingNulls() {
+        return excludeNulls;
+    }
+
+    /**
+     * @return The flow style set in the options
+     */
+    DumperOptions.FlowStyle getFlowStyle() {
+        return options.getDefaultFlowStyle();
+    }
+
+    // Null values are only excluded from objects nested in objects, not from the ones in arrays
+    void emitElement(Emitter emitter, YamlElement element, boolean excludeNulls) throws IOException {
+        if (element.isYamlObject()) {
+            YamlObject object = element.getAsYamlObject();
+            startObject(emitter, flowStyle(object, excludeNulls));
+            for (Map.Entry<String, YamlElement> entry : object.entrySet()) {
+                YamlElement value = entry.getValue();
+                if (excludeNulls && isExcluded(value))
+                    continue;
+                emitKey(emitter, entry.getKey());
+                emitElement(emitter, value == null ? YamlNull.NULL : value, excludeNulls);
+            }
+            endObject(emitter);
+        } else if (element.isYamlArray()) {
+            YamlArray array = element.getAsYamlArray();
+            startArray(emitter, flowStyle(array));
+            for (YamlElement item : array)
+                emitElement(emitter, item == null ? YamlNull.NULL : item, false);
+            endArray(emitter);
+        } else if (element.isYamlPrimitive()) {
+            emitPrimitive(emitter, element.getAsYamlPrimitive().getValue());
+        } else emitNull(emitter);
+    }
+
+    // Represents the value the way snakeyaml's SafeRepresenter does
+    void emitPrimitive(Emitter emitter, Object value) throws IOException {
+        if (value instanceof Boolean)
+            emitScalar(emitter, Tag.BOOL, value.toString(), options.getDefaultScalarStyle());
+        else if (value instanceof Number)
+            emitScalar(emitter, isInteger(value) ? Tag.INT : Tag.FLOAT, toString((Number) value), options.getDefaultScalarStyle());
+        else {
+            String str = value.toString();
+            if (isBinary(str))
+                emitScalar(emitter, Tag.BINARY, toBinary(str), DumperOptions.ScalarStyle.LITERAL);
+            else emitScalar(emitter, Tag.STR, str, stringStyle(str));
+        }
+    }
+
+    private void emitScalar(Emitter emitter, Tag tag, String value, DumperOptions.ScalarStyle style) throws IOException {
+        ImplicitTuple implicit = new ImplicitTuple(
+                tag.equals(RESOLVER.resolve(NodeId.scalar, value, true)),
+                tag.equals(RESOLVER.resolve(NodeId.scalar, value, false))
+        );
+        emitter.emit(new ScalarEvent(null, tag.getValue(), implicit, value, null, null, style));
+    }
+
+    // Multi-line strings are written as literals unless another style is set
+    private DumperOptions.ScalarStyle stringStyle(String str) {
+        DumperOptions.ScalarStyle style = options.getDefaultScalarStyle();
+        if (style == DumperOptions.ScalarStyle.PLAIN && MULTILINE.matcher(str).find())
+            return DumperOptions.ScalarStyle.LITERAL;
+        return style;
+    }
+
+    // The flow style is automatically chosen if the collection only contains plain scalars
+    private DumperOptions.FlowStyle flowStyle(YamlObject object, boolean excludeNulls) {
+        DumperOptions.FlowStyle style = options.getDefaultFlowStyle();
+        if (style != DumperOptions.FlowStyle.AUTO)
+            return style;
+        if (options.getDefaultScalarStyle() != DumperOptions.ScalarStyle.PLAIN)
+            return object.size() == 0 ? DumperOptions.FlowStyle.FLOW : DumperOptions.FlowStyle.BLOCK;
+        for (Map.Entry<String, YamlElement> entry : object.entrySet()) {
+            if (excludeNulls && isExcluded(entry.getValue()))
+                continue;
+            if (!isPlain(entry.getKey()) || !isPlain(entry.getValue()))
+                return DumperOptions.FlowStyle.BLOCK;
+        }
+        return DumperOptions.FlowStyle.FLOW;
+    }
+
+    private DumperOptions.FlowStyle flowStyle(YamlArray array) {
+        DumperOptions.FlowStyle style = options.getDefaultFlowStyle();
+        if (style != DumperOptions.FlowStyle.AUTO)
+            return style;
+        if (options.getDefaultScalarStyle() != DumperOptions.ScalarStyle.PLAIN)
+            return array.size() == 0 ? DumperOptions.FlowStyle.FLOW : DumperOptions.FlowStyle.BLOCK;
+        for (YamlElement item : array)
+            if (!isPlain(item))
+                return DumperOptions.FlowStyle.BLOCK;
+        return DumperOptions.FlowStyle.FLOW;
+    }
+
+    // Whether the element would be represented as a plain scalar, given the scalar style is plain
+    private boolean isPlain(YamlElement element) {
+        if (element == null || element.isYamlNull())
+            return true;
+        if (!element.isYamlPrimitive())
+            return false;
+        Object value = element.getAsYamlPrimitive().getValue();
+        return value instanceof Boolean || value instanceof Number || isPlain(value.toString());
+    }
+
+    private boolean isPlain(String str) {
+        return !isBinary(str) && !MULTILINE.matcher(str).find();
+    }
+
+    // Null values are excluded, and so are objects that would be left empty
+    private boolean isExcluded(YamlElement element) {
+        if (element == null || element.isYamlNull())
+            return true;
+        if (!element.isYamlObject())
+            return false;
+        for (YamlElement value : element.getAsYamlObject().values())
+            if (!isExcluded(value))
+                return false;
+        return true;
+    }
+
+    private boolean isBinary(String str) {
+        return options.getNonPrintableStyle() == DumperOptions.NonPrintableStyle.BINARY && !StreamReader.isPrintable(str);
+    }
+
+    private static String toBinary(String str) {
+        return Base64.getEncoder().encodeToString(str.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean isInteger(Object value) {
+        return value instanceof Byte || value instanceof Short || value instanceof Integer
+                || value instanceof Long || value instanceof BigInteger;
+    }
+
+    private static String toString(Number number) {
+        if (number instanceof Double || number instanceof Float) {
+            double value = number.doubleValue();
+            if (Double.isNaN(value))
+                return ".NaN";
+            if (value == Double.POSITIVE_INFINITY)
+                return ".inf";
+            if (value == Double.NEGATIVE_INFINITY)
+                return "-.inf";
+        }
+        return number.toString();
+    }
+
+}
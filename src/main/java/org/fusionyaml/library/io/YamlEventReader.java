@@ -0,0 +1,408 @@
+package org.fusionyaml.library.io;
+
+import org.fusionyaml.library.exceptions.YamlParseFailedException;
+import org.fusionyaml.library.internal.ElementConstructor;
+import org.fusionyaml.library.object.YamlElement;
+import org.fusionyaml.library.object.YamlNull;
+import org.fusionyaml.library.object.YamlPrimitive;
+import org.yaml.snakeyaml.events.*;
+import org.yaml.snakeyaml.nodes.Tag;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A cursor-style reader that streams through YAML one token at a time. Unlike
+ * {@link DocumentReader} and {@link MultiDocumentReader}, the document is never fully
+ * loaded into memory: the reader only keeps track of the token it is positioned on
+ * and of how deeply nested it is, so the memory used doesn't depend on the size of
+ * the document.
+ * <p>
+ * Tokens are read by calling {@link #next()} until it returns {@code null}:
+ * <pre>{@code
+ * try (YamlEventReader reader = new YamlEventReader(file)) {
+ *     YamlEventReader.Token token;
+ *     while ((token = reader.next()) != null) {
+ *         if (token == YamlEventReader.Token.KEY && reader.getKey().equals("items"))
+ *             reader.skipValue();
+ *     }
+ * }
+ * }</pre>
+ * <p>
+ * Aliases of scalars are reported as {@link Token#SCALAR}s holding the anchored
+ * value. Aliases of mappings and sequences are reported as {@link Token#ALIAS} since
+ * expanding them would require keeping the anchored nodes in memory. Merge keys
+ * ({@code <<}) are reported as regular keys. {@link #readElement()} can only resolve
+ * aliases whose anchors are defined within the element read.
+ */
+public class YamlEventReader extends YamlReader {
+
+    /**
+     * The tokens a {@link YamlEventReader} can be positioned on
+     */
+    public enum Token {
+        START_DOCUMENT,
+        END_DOCUMENT,
+        START_OBJECT,
+        END_OBJECT,
+        START_ARRAY,
+        END_ARRAY,
+        KEY,
+        SCALAR,
+        ALIAS
+    }
+
+    // Nesting states
+    private static final byte OBJECT_KEY = 0;
+    private static final byte OBJECT_VALUE = 1;
+    private static final byte ARRAY = 2;
+
+    private final ElementConstructor constructor = new ElementConstructor();
+    private final Map<String, ScalarEvent> scalarAnchors = new HashMap<>();
+    private Iterator<Event> events;
+
+    private byte[] stack = new byte[16];
+    private int depth = 0;
+
+    private Token token;
+    private Event event;
+    private String key;
+    private Object value;
+    private boolean valueConstructed;
+
+    /**
+     * @param reader A {@link Reader}
+     */
+    public YamlEventReader(Reader reader) {
+        super(reader);
+    }
+
+    /**
+     * Creates a {@link BufferedReader} with buffer equal to the value
+     * passed in.
+     *
+     * @param reader A {@link Reader}
+     * @param buff   The buffer
+     */
+    public YamlEventReader(Reader reader, int buff) {
+        super(reader, buff);
+    }
+
+    /**
+     * @param str A {@link String}, which will be read from
+     */
+    public YamlEventReader(String str) {
+        super(str);
+    }
+
+    /**
+     * Creates a {@link BufferedReader} with buffer equal to the value
+     * passed in.
+     *
+     * @param file A {@link File}
+     * @param buff The buffer
+     */
+    public YamlEventReader(File file, int buff) {
+        super(file, buff);
+    }
+
+    /**
+     * Creates a {@link BufferedReader} with buffer almost equal to the {@link File}'s
+     * length depending on the size of the file.
+     *
+     * @param file A {@link File}
+     */
+    public YamlEventReader(File file) {
+        super(file);
+    }
+
+    /**
+     * Moves the reader to the next token and returns it. If there aren't any
+     * tokens left, {@code null} is returned.
+     *
+     * @return The next {@link Token}, or {@code null} if the end of the stream is reached
+     */
+    public Token next() {
+        Iterator<Event> events = events();
+        key = null;
+        value = null;
+        valueConstructed = false;
+        while (events.hasNext()) {
+            event = events.next();
+            if (event.is(Event.ID.DocumentStart)) {
+                scalarAnchors.clear();
+                return token = Token.START_DOCUMENT;
+            }
+            if (event.is(Event.ID.DocumentEnd))
+                return token = Token.END_DOCUMENT;
+            if (event.is(Event.ID.MappingStart) || event.is(Event.ID.SequenceStart)) {
+                if (expectsKey()) {
+                    // complex keys are small, so they are constructed and then turned into a string
+                    key = constructor.toKey(construct(events));
+                    stack[depth - 1] = OBJECT_VALUE;
+                    return token = Token.KEY;
+                }
+                startValue();
+                push(event.is(Event.ID.MappingStart) ? OBJECT_KEY : ARRAY);
+                return token = event.is(Event.ID.MappingStart) ? Token.START_OBJECT : Token.START_ARRAY;
+            }
+            if (event.is(Event.ID.MappingEnd) || event.is(Event.ID.SequenceEnd)) {
+                depth--;
+                return token = event.is(Event.ID.MappingEnd) ? Token.END_OBJECT : Token.END_ARRAY;
+            }
+            if (event.is(Event.ID.Scalar)) {
+                ScalarEvent scalar = (ScalarEvent) event;
+                if (scalar.getAnchor() != null)
+                    scalarAnchors.put(scalar.getAnchor(), scalar);
+                return token = scalarToken();
+            }
+            if (event.is(Event.ID.Alias)) {
+                ScalarEvent anchored = scalarAnchors.get(((AliasEvent) event).getAnchor());
+                if (anchored != null) {
+                    event = anchored;
+                    return token = scalarToken();
+                }
+                if (expectsKey())
+                    throw new YamlParseFailedException("aliases of collections can't be used as keys");
+                startValue();
+                return token = Token.ALIAS;
+            }
+        }
+        event = null;
+        return token = null;
+    }
+
+    /**
+     * @return The {@link Token} the reader is positioned on, or {@code null} if
+     * {@link #next()} hasn't been called or the end of the stream is reached
+     */
+    public Token currentToken() {
+        return token;
+    }
+
+    /**
+     * @return The number of mappings and sequences the reader is currently in
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Skips the children of the mapping or sequence the reader is positioned on.
+     * Afterwards, the reader is positioned on the matching {@link Token#END_OBJECT}
+     * or {@link Token#END_ARRAY}. If the reader is positioned on any other token,
+     * this method does nothing.
+     */
+    public void skipChildren() {
+        if (token != Token.START_OBJECT && token != Token.START_ARRAY)
+            return;
+        Iterator<Event> events = events();
+        int open = 1;
+        while (open > 0) {
+            event = events.next();
+            if (event.is(Event.ID.MappingStart) || event.is(Event.ID.SequenceStart))
+                open++;
+            else if (event.is(Event.ID.MappingEnd) || event.is(Event.ID.SequenceEnd))
+                open--;
+            else if (event.is(Event.ID.Scalar) && ((ScalarEvent) event).getAnchor() != null)
+                scalarAnchors.put(((ScalarEvent) event).getAnchor(), (ScalarEvent) event);
+        }
+        depth--;
+        token = event.is(Event.ID.MappingEnd) ? Token.END_OBJECT : Token.END_ARRAY;
+    }
+
+    /**
+     * Skips the value of the key the reader is positioned on. Afterwards, the
+     * reader is positioned on the last token of the value.
+     */
+    public void skipValue() {
+        if (token != Token.KEY)
+            throw new IllegalStateException("Not positioned on a key: " + token);
+        next();
+        skipChildren();
+    }
+
+    /**
+     * Reads the value the reader is positioned on into a {@link YamlElement}. If
+     * the reader is positioned on the start of a mapping or a sequence, the
+     * whole mapping or sequence will be read and the reader will be positioned
+     * on its end.
+     * <p>
+     * This allows streaming through a huge document while loading only the
+     * parts that are needed.
+     *
+     * @return The {@link YamlElement} read
+     * @throws IllegalStateException If the reader isn't positioned on a value
+     */
+    public YamlElement readElement() {
+        if (token == Token.SCALAR) {
+            Object value = getValue();
+            return value == null ? YamlNull.NULL : YamlPrimitive.of(value);
+        }
+        if (token != Token.START_OBJECT && token != Token.START_ARRAY)
+            throw new IllegalStateException("Not positioned on a value: " + token);
+        YamlElement element = construct(events());
+        depth--;
+        token = token == Token.START_OBJECT ? Token.END_OBJECT : Token.END_ARRAY;
+        return element;
+    }
+
+    // Constructs the node starting at the current event. Each node gets its own constructor,
+    // so that the anchors defined in it aren't kept once it is read
+    private YamlElement construct(Iterator<Event> events) {
+        return new ElementConstructor().construct(event, events);
+    }
+
+    /**
+     * @return The key the reader is positioned on
+     * @throws IllegalStateException If the reader isn't positioned on a {@link Token#KEY}
+     */
+    public String getKey() {
+        if (token != Token.KEY)
+            throw new IllegalStateException("Not positioned on a key: " + token);
+        return key;
+    }
+
+    /**
+     * @return The name of the anchor the alias the reader is positioned on refers to
+     * @throws IllegalStateException If the reader isn't positioned on an {@link Token#ALIAS}
+     */
+    public String getAlias() {
+        if (token != Token.ALIAS)
+            throw new IllegalStateException("Not positioned on an alias: " + token);
+        return ((AliasEvent) event).getAnchor();
+    }
+
+    /**
+     * @return The anchor of the mapping or sequence the reader is positioned on the start
+     * of, or {@code null} if it isn't anchored
+     */
+    String getAnchor() {
+        if (token != Token.START_OBJECT && token != Token.START_ARRAY)
+            throw new IllegalStateException("Not positioned on a mapping or a sequence: " + token);
+        return ((CollectionStartEvent) event).getAnchor();
+    }
+
+    /**
+     * @return Whether the key the reader is positioned on is a merge key ({@code <<})
+     */
+    boolean isMergeKey() {
+        return token == Token.KEY && event.is(Event.ID.Scalar)
+                && constructor.resolveTag((ScalarEvent) event).equals(Tag.MERGE);
+    }
+
+    /**
+     * Gets the value of the scalar the reader is positioned on. The value is
+     * either {@code null}, a {@link Boolean}, a {@link Number} or a {@link String}.
+     *
+     * @return The value of the scalar
+     * @throws IllegalStateException If the reader isn't positioned on a {@link Token#SCALAR}
+     */
+    public Object getValue() {
+        checkScalar();
+        if (!valueConstructed) {
+            value = constructor.constructScalar((ScalarEvent) event);
+            valueConstructed = true;
+        }
+        return value;
+    }
+
+    /**
+     * @return The scalar's text exactly as it is written in the document
+     * @throws IllegalStateException If the reader isn't positioned on a {@link Token#SCALAR}
+     */
+    public String getString() {
+        checkScalar();
+        return ((ScalarEvent) event).getValue();
+    }
+
+    /**
+     * @return Whether the scalar the reader is positioned on is {@code null}
+     * @throws IllegalStateException If the reader isn't positioned on a {@link Token#SCALAR}
+     */
+    public boolean isNull() {
+        return getValue() == null;
+    }
+
+    /**
+     * @return The scalar as a {@code boolean}
+     * @throws IllegalStateException If the reader isn't positioned on a {@link Token#SCALAR}
+     */
+    public boolean getBoolean() {
+        Object value = getValue();
+        return value instanceof Boolean ? (Boolean) value : Boolean.parseBoolean(getString());
+    }
+
+    /**
+     * @return The scalar as an {@code int}
+     * @throws IllegalStateException If the reader isn't positioned on a {@link Token#SCALAR}
+     * @throws NumberFormatException If the scalar isn't a number
+     */
+    public int getInt() {
+        Object value = getValue();
+        return value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(getString());
+    }
+
+    /**
+     * @return The scalar as a {@code long}
+     * @throws IllegalStateException If the reader isn't positioned on a {@link Token#SCALAR}
+     * @throws NumberFormatException If the scalar isn't a number
+     */
+    public long getLong() {
+        Object value = getValue();
+        return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(getString());
+    }
+
+    /**
+     * @return The scalar as a {@code double}
+     * @throws IllegalStateException If the reader isn't positioned on a {@link Token#SCALAR}
+     * @throws NumberFormatException If the scalar isn't a number
+     */
+    public double getDouble() {
+        Object value = getValue();
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(getString());
+    }
+
+    private Iterator<Event> events() {
+        if (events == null)
+            events = constructor.parse(buffReader);
+        return events;
+    }
+
+    private Token scalarToken() {
+        if (expectsKey()) {
+            key = String.valueOf(constructor.constructScalar((ScalarEvent) event));
+            stack[depth - 1] = OBJECT_VALUE;
+            return Token.KEY;
+        }
+        startValue();
+        return Token.SCALAR;
+    }
+
+    private boolean expectsKey() {
+        return depth > 0 && stack[depth - 1] == OBJECT_KEY;
+    }
+
+    // A value in a mapping was read, so the next scalar is a key
+    private void startValue() {
+        if (depth > 0 && stack[depth - 1] == OBJECT_VALUE)
+            stack[depth - 1] = OBJECT_KEY;
+    }
+
+    private void push(byte state) {
+        if (depth == stack.length)
+            stack = Arrays.copyOf(stack, depth * 2);
+        stack[depth++] = state;
+    }
+
+    private void checkScalar() {
+        if (token != Token.SCALAR)
+            throw new IllegalStateException("Not positioned on a scalar: " + token);
+    }
+
+}
@@ -1,8 +1,11 @@
 package org.fusionyaml.library.io;
 
+import org.fusionyaml.library.StringInterner;
 import org.fusionyaml.library.exceptions.YamlException;
+import org.fusionyaml.library.object.ElementInterner;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 
 /**
  * A {@link YamlReader} is a class that essentially reads and parses YAML.
@@ -13,7 +16,8 @@ import java.io.*;
  * utilized. For example, {@link DocumentReader} is used when reading
  * yaml within one document whereas {@link MultiDocumentReader} can
  * read multiple documents. {@link ElementReader} can be used to read a
- * single element at a time.
+ * single element at a time. {@link YamlEventReader} streams through the
+ * yaml token by token without loading it into memory.
  * <p>
  * A {@link YamlReader} can also be used to read comments.
  */
@@ -22,6 +26,8 @@ public class YamlReader implements AutoCloseable {
     protected BufferedReader buffReader;
     protected Reader reader;
     protected int buff;
+    protected StringInterner interner;
+    protected ElementInterner elementInterner;
     
     private YamlReader() {
     }
@@ -30,7 +36,7 @@ public class YamlReader implements AutoCloseable {
      * @param reader A {@link Reader}
      */
     protected YamlReader(Reader reader) {
-        this(reader, 65536);
+        this(reader, 8192);
     }
     
     /**
@@ -50,8 +56,7 @@ public class YamlReader implements AutoCloseable {
      * @param str A {@link String}, which will be read from
      */
     protected YamlReader(String str) {
-        this(new StringReader(str));
-        buff = nearestBuff(str.length());
+        this(new StringReader(str), nearestBuff(str.length()));
     }
     
     /**
@@ -78,9 +83,30 @@ public class YamlReader implements AutoCloseable {
         this(file, nearestBuff(file.length()));
     }
 
-    private static FileReader createFR(File file) {
+    /**
+     * Sets the {@link StringInterner} the mapping keys, and the short string values if it
+     * is set to, are interned with while reading
+     *
+     * @param interner The {@link StringInterner}, or {@code null} to intern nothing
+     */
+    public void setStringInterner(StringInterner interner) {
+        this.interner = interner;
+    }
+
+    /**
+     * Sets the {@link ElementInterner} equal objects, arrays and scalars are shared with
+     * while reading
+     *
+     * @param elementInterner The {@link ElementInterner}, or {@code null} to share nothing
+     */
+    public void setElementInterner(ElementInterner elementInterner) {
+        this.elementInterner = elementInterner;
+    }
+
+    // Files are decoded as UTF-8, which they are written in, whatever the platform's charset is
+    private static Reader createFR(File file) {
         try {
-            return new FileReader(file);
+            return new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);
         } catch (FileNotFoundException e) {
             throw new YamlException(e);
         }
@@ -0,0 +1,372 @@
+package org.fusionyaml.library.io;
+
+import org.fusionyaml.library.exceptions.YamlParseFailedException;
+import org.fusionyaml.library.object.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes and reads {@link YamlElement} trees in a compact binary format, which is read
+ * back without tokenizing any YAML. Every key and string value is stored once in a string
+ * table and referred to by its index, numbers are stored as varints, and each element
+ * starts with a single byte telling its type. The java type of each primitive is kept,
+ * so the tree read back equals the one written.
+ * <p>
+ * A snapshot starts with the bytes {@code FYB} followed by the version of the format.
+ */
+public final class YamlSnapshot {
+
+    private static final byte[] MAGIC = {'F', 'Y', 'B'};
+    private static final byte VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte OBJECT = 1;
+    private static final byte ARRAY = 2;
+    private static final byte TRUE = 3;
+    private static final byte FALSE = 4;
+    private static final byte INT = 5;
+    private static final byte LONG = 6;
+    private static final byte BIG_INTEGER = 7;
+    private static final byte DOUBLE = 8;
+    private static final byte FLOAT = 9;
+    private static final byte STRING = 10;
+    private static final byte CHAR = 11;
+    private static final byte BYTE = 12;
+    private static final byte SHORT = 13;
+
+    private YamlSnapshot() {
+    }
+
+    /**
+     * Writes the element as a snapshot
+     *
+     * @param element The element
+     * @param out     The {@link OutputStream}, which isn't closed
+     * @throws IOException If an IO error occurred
+     */
+    public static void write(YamlElement element, OutputStream out) throws IOException {
+        Encoder body = new Encoder();
+        Map<String, Integer> strings = new HashMap<>();
+        List<String> table = new ArrayList<>();
+        encode(body, element, strings, table);
+        Encoder header = new Encoder();
+        header.write(MAGIC, 0, MAGIC.length);
+        header.write(VERSION);
+        header.writeVarint(table.size());
+        for (String str : table) {
+            byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+            header.writeVarint(bytes.length);
+            header.write(bytes, 0, bytes.length);
+        }
+        header.writeTo(out);
+        body.writeTo(out);
+    }
+
+    /**
+     * Reads a snapshot from the {@link InputStream}, until its end
+     *
+     * @param in The {@link InputStream}, which isn't closed
+     * @return The element
+     * @throws IOException               If an IO error occurred
+     * @throws YamlParseFailedException If the bytes read aren't a valid snapshot
+     */
+    public static YamlElement read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1)
+            bytes.write(buffer, 0, read);
+        return read(bytes.toByteArray());
+    }
+
+    /**
+     * Reads a snapshot
+     *
+     * @param bytes The snapshot
+     * @return The element
+     * @throws YamlParseFailedException If the bytes aren't a valid snapshot
+     */
+    public static YamlElement read(byte[] bytes) {
+        return read(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Reads a snapshot from a range of the array
+     *
+     * @param bytes  The array
+     * @param offset The index the snapshot starts at
+     * @param length The length of the snapshot
+     * @return The element
+     * @throws YamlParseFailedException If the bytes aren't a valid snapshot
+     */
+    public static YamlElement read(byte[] bytes, int offset, int length) {
+        Decoder decoder = new Decoder(bytes, offset, offset + length);
+        try {
+            for (byte b : MAGIC)
+                if (decoder.read() != b)
+                    throw new YamlParseFailedException("Not a snapshot");
+            byte version = decoder.read();
+            if (version != VERSION)
+                throw new YamlParseFailedException("Unsupported snapshot version " + version);
+            String[] table = new String[decoder.readVarint()];
+            for (int i = 0; i < table.length; i++)
+                table[i] = decoder.readString();
+            YamlElement element = decode(decoder, table);
+            if (decoder.position != decoder.limit)
+                throw new YamlParseFailedException("Unexpected bytes after the snapshot");
+            return element;
+        } catch (IndexOutOfBoundsException e) {
+            throw new YamlParseFailedException("The snapshot is truncated or corrupted", e);
+        }
+    }
+
+    private static void encode(Encoder encoder, YamlElement element, Map<String, Integer> strings, List<String> table) {
+        if (element == null || element.isYamlNull()) {
+            encoder.write(NULL);
+        } else if (element.isYamlObject()) {
+            YamlObject object = element.getAsYamlObject();
+            encoder.write(OBJECT);
+            encoder.writeVarint(object.size());
+            for (Map.Entry<String, YamlElement> entry : object.entrySet()) {
+                encoder.writeVarint(index(entry.getKey(), strings, table));
+                encode(encoder, entry.getValue(), strings, table);
+            }
+        } else if (element.isYamlArray()) {
+            YamlArray array = element.getAsYamlArray();
+            encoder.write(ARRAY);
+            encoder.writeVarint(array.size());
+            for (YamlElement item : array)
+                encode(encoder, item, strings, table);
+        } else encodePrimitive(encoder, element.getAsYamlPrimitive().getValue(), strings, table);
+    }
+
+    private static void encodePrimitive(Encoder encoder, Object value, Map<String, Integer> strings, List<String> table) {
+        if (value instanceof Boolean) {
+            encoder.write((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Integer) {
+            encoder.write(INT);
+            encoder.writeVarlong(zigzag((Integer) value));
+        } else if (value instanceof Long) {
+            encoder.write(LONG);
+            encoder.writeVarlong(zigzag((Long) value));
+        } else if (value instanceof Double) {
+            encoder.write(DOUBLE);
+            encoder.writeFixed(Double.doubleToRawLongBits((Double) value), 8);
+        } else if (value instanceof Float) {
+            encoder.write(FLOAT);
+            encoder.writeFixed(Float.floatToRawIntBits((Float) value), 4);
+        } else if (value instanceof BigInteger) {
+            byte[] bytes = ((BigInteger) value).toByteArray();
+            encoder.write(BIG_INTEGER);
+            encoder.writeVarint(bytes.length);
+            encoder.write(bytes, 0, bytes.length);
+        } else if (value instanceof Byte) {
+            encoder.write(BYTE);
+            encoder.write((Byte) value);
+        } else if (value instanceof Short) {
+            encoder.write(SHORT);
+            encoder.writeVarlong(zigzag((Short) value));
+        } else if (value instanceof Character) {
+            encoder.write(CHAR);
+            encoder.writeVarint((Character) value);
+        } else {
+            // anything else is written the way it would be dumped
+            encoder.write(STRING);
+            encoder.writeVarint(index(value.toString(), strings, table));
+        }
+    }
+
+    private static int index(String str, Map<String, Integer> strings, List<String> table) {
+        Integer index = strings.get(str);
+        if (index == null) {
+            index = table.size();
+            strings.put(str, index);
+            table.add(str);
+        }
+        return index;
+    }
+
+    private static YamlElement decode(Decoder decoder, String[] table) {
+        byte type = decoder.read();
+        switch (type) {
+            case NULL:
+                return YamlNull.NULL;
+            case OBJECT: {
+                int size = decoder.readVarint();
+                YamlObject object = new YamlObject(Math.min(size, decoder.limit - decoder.position));
+                for (int i = 0; i < size; i++) {
+                    String key = table[decoder.readVarint()];
+                    object.set(key, decode(decoder, table));
+                }
+                return object;
+            }
+            case ARRAY: {
+                int size = decoder.readVarint();
+                List<YamlElement> items = new ArrayList<>(Math.min(size, decoder.limit - decoder.position));
+                for (int i = 0; i < size; i++)
+                    items.add(decode(decoder, table));
+                return YamlArray.of(items);
+            }
+            case TRUE:
+                return YamlPrimitive.of(true);
+            case FALSE:
+                return YamlPrimitive.of(false);
+            case INT:
+                return YamlPrimitive.of((int) unzigzag(decoder.readVarlong()));
+            case LONG:
+                return YamlPrimitive.of(unzigzag(decoder.readVarlong()));
+            case BIG_INTEGER: {
+                int length = decoder.readVarint();
+                byte[] bytes = new byte[length];
+                decoder.read(bytes);
+                return new YamlPrimitive(new BigInteger(bytes));
+            }
+            case DOUBLE:
+                return YamlPrimitive.of(Double.longBitsToDouble(decoder.readFixed(8)));
+            case FLOAT:
+                return new YamlPrimitive(Float.intBitsToFloat((int) decoder.readFixed(4)));
+            case STRING:
+                return YamlPrimitive.of(table[decoder.readVarint()]);
+            case CHAR:
+                return new YamlPrimitive((Object) (char) decoder.readVarint());
+            case BYTE:
+                return new YamlPrimitive(decoder.read());
+            case SHORT:
+                return new YamlPrimitive((short) unzigzag(decoder.readVarlong()));
+            default:
+                throw new YamlParseFailedException("Unknown element type " + type + " in the snapshot");
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // A growable byte array, which avoids the synchronization of a ByteArrayOutputStream
+    private static final class Encoder {
+
+        private byte[] bytes = new byte[256];
+        private int position;
+
+        private void ensure(int count) {
+            if (bytes.length - position < count) {
+                int capacity = Math.max(bytes.length << 1, position + count);
+                byte[] grown = new byte[capacity];
+                System.arraycopy(bytes, 0, grown, 0, position);
+                bytes = grown;
+            }
+        }
+
+        void write(byte b) {
+            ensure(1);
+            bytes[position++] = b;
+        }
+
+        void write(byte[] src, int offset, int length) {
+            ensure(length);
+            System.arraycopy(src, offset, bytes, position, length);
+            position += length;
+        }
+
+        void writeVarint(int value) {
+            writeVarlong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarlong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[position++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            bytes[position++] = (byte) value;
+        }
+
+        void writeFixed(long value, int count) {
+            ensure(count);
+            for (int i = count - 1; i >= 0; i--)
+                bytes[position++] = (byte) (value >>> (i << 3));
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, position);
+        }
+
+    }
+
+    private static final class Decoder {
+
+        private final byte[] bytes;
+        private final int limit;
+        private int position;
+
+        Decoder(byte[] bytes, int position, int limit) {
+            this.bytes = bytes;
+            this.position = position;
+            this.limit = limit;
+        }
+
+        byte read() {
+            if (position >= limit)
+                throw new IndexOutOfBoundsException();
+            return bytes[position++];
+        }
+
+        void read(byte[] dst) {
+            if (dst.length > limit - position)
+                throw new IndexOutOfBoundsException();
+            System.arraycopy(bytes, position, dst, 0, dst.length);
+            position += dst.length;
+        }
+
+        int readVarint() {
+            long value = readVarlong();
+            if (value < 0 || value > Integer.MAX_VALUE)
+                throw new YamlParseFailedException("Invalid length or index in the snapshot");
+            return (int) value;
+        }
+
+        long readVarlong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0)
+                    return value;
+            }
+            throw new YamlParseFailedException("Malformed varint in the snapshot");
+        }
+
+        long readFixed(int count) {
+            if (count > limit - position)
+                throw new IndexOutOfBoundsException();
+            long value = 0;
+            for (int i = 0; i < count; i++)
+                value = value << 8 | (bytes[position++] & 0xFF);
+            return value;
+        }
+
+        String readString() {
+            int length = readVarint();
+            if (length > limit - position)
+                throw new IndexOutOfBoundsException();
+            String str = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return str;
+        }
+
+    }
+
+}
@@ -0,0 +1,441 @@
+package org.fusionyaml.library.io;
+
+import org.fusionyaml.library.FusionYAML;
+import org.fusionyaml.library.object.YamlElement;
+import org.fusionyaml.library.object.YamlNull;
+import org.jetbrains.annotations.NotNull;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.emitter.Emitter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * A generator-style writer that writes YAML one token at a time. Unlike
+ * {@link DocumentWriter} and {@link MultiDocumentWriter}, no {@link YamlElement} has
+ * to be built first: each call is written as soon as it is made, so the memory used
+ * doesn't depend on the size of the document.
+ * <pre>{@code
+ * try (YamlStreamWriter writer = new YamlStreamWriter(file)) {
+ *     writer.beginObject();
+ *     writer.name("rows").beginArray();
+ *     for (Row row : rows)
+ *         writer.beginObject().name("id").value(row.getId()).name("name").value(row.getName()).end();
+ *     writer.end();
+ *     writer.end();
+ * }
+ * }</pre>
+ * <p>
+ * Each top-level value is a document. If more than one is written, the documents are
+ * separated with document start markers.
+ * <p>
+ * Objects and arrays are written in the flow style set in the {@link org.fusionyaml.library.YamlOptions},
+ * unless one is passed in. Since their contents aren't known in advance, the automatic
+ * flow style writes them in block style. If null values are excluded, null values
+ * written in objects are skipped, but objects left empty are still written.
+ * <p>
+ * This class isn't thread-safe.
+ */
+public class YamlStreamWriter extends YamlWriter {
+
+    // Nesting states
+    private static final byte OBJECT_NAME = 0;
+    private static final byte OBJECT_VALUE = 1;
+    private static final byte ARRAY = 2;
+
+    private final YamlEmitter yamlEmitter;
+    private Emitter emitter;
+
+    private byte[] stack = new byte[16];
+    private int depth = 0;
+    private int arrayDepth = 0;
+    private String name;
+
+    /**
+     * Creates an instance of this class with buffer equal to the value
+     * passed in.
+     *
+     * @param writer     The writer
+     * @param buff       The buffer
+     * @param fusionYAML The {@link FusionYAML} instance whose options are used
+     */
+    public YamlStreamWriter(Writer writer, int buff, FusionYAML fusionYAML) {
+        super(writer, buff);
+        this.yamlEmitter = fusionYAML.getDumper().getEmitter();
+    }
+
+    /**
+     * Creates an instance of this class with buffer equal to 8192.
+     *
+     * @param writer     The writer
+     * @param fusionYAML The {@link FusionYAML} instance whose options are used
+     */
+    public YamlStreamWriter(Writer writer, FusionYAML fusionYAML) {
+        super(writer);
+        this.yamlEmitter = fusionYAML.getDumper().getEmitter();
+    }
+
+    /**
+     * Creates an instance of this class with buffer equal to 8192.
+     *
+     * @param writer The writer
+     */
+    public YamlStreamWriter(Writer writer) {
+        this(writer, FusionYAML.getDefault());
+    }
+
+    /**
+     * Creates an instance of this class with buffer equal to 8192. The
+     * characters are encoded as UTF-8 and written to the {@link OutputStream}.
+     *
+     * @param out        The {@link OutputStream}
+     * @param fusionYAML The {@link FusionYAML} instance whose options are used
+     */
+    public YamlStreamWriter(OutputStream out, FusionYAML fusionYAML) {
+        super(out);
+        this.yamlEmitter = fusionYAML.getDumper().getEmitter();
+    }
+
+    /**
+     * Creates an instance of this class with buffer equal to 8192. The
+     * characters are encoded as UTF-8 and written to the {@link OutputStream}.
+     *
+     * @param out The {@link OutputStream}
+     */
+    public YamlStreamWriter(OutputStream out) {
+        this(out, FusionYAML.getDefault());
+    }
+
+    /**
+     * Creates an instance of this class with buffer equal to 8192. The
+     * characters are encoded as UTF-8 and written to the {@link WritableByteChannel}.
+     *
+     * @param channel    The {@link WritableByteChannel}
+     * @param fusionYAML The {@link FusionYAML} instance whose options are used
+     */
+    public YamlStreamWriter(WritableByteChannel channel, FusionYAML fusionYAML) {
+        super(channel);
+        this.yamlEmitter = fusionYAML.getDumper().getEmitter();
+    }
+
+    /**
+     * Creates an instance of this class with buffer equal to 8192. The
+     * characters are encoded as UTF-8 and written to the {@link WritableByteChannel}.
+     *
+     * @param channel The {@link WritableByteChannel}
+     */
+    public YamlStreamWriter(WritableByteChannel channel) {
+        this(channel, FusionYAML.getDefault());
+    }
+
+    /**
+     * Creates an instance of this class with buffer equal to the one passed
+     * in. The {@link File} will be written to.
+     *
+     * @param file       The {@link File}
+     * @param buff       The buffer
+     * @param fusionYAML The {@link FusionYAML} instance whose options are used
+     */
+    public YamlStreamWriter(File file, int buff, FusionYAML fusionYAML) {
+        super(file, buff);
+        this.yamlEmitter = fusionYAML.getDumper().getEmitter();
+    }
+
+    /**
+     * Creates an instance of this class with buffer almost equal to the file's
+     * length.
+     *
+     * @param file       The {@link File}
+     * @param fusionYAML The {@link FusionYAML} instance whose options are used
+     */
+    public YamlStreamWriter(File file, FusionYAML fusionYAML) {
+        super(file);
+        this.yamlEmitter = fusionYAML.getDumper().getEmitter();
+    }
+
+    /**
+     * Creates an instance of this class with buffer almost equal to the file's
+     * length.
+     *
+     * @param file The {@link File}
+     */
+    public YamlStreamWriter(File file) {
+        this(file, FusionYAML.getDefault());
+    }
+
+    /**
+     * Begins an object, written in the flow style set in the options
+     *
+     * @return This writer
+     * @throws IOException If an IO error occurred
+     */
+    public YamlStreamWriter beginObject() throws IOException {
+        return beginObject(defaultFlowStyle());
+    }
+
+    /**
+     * Begins an object
+     *
+     * @param flowStyle The flow style the object is written in
+     * @return This writer
+     * @throws IOException If an IO error occurred
+     */
+    public YamlStreamWriter beginObject(DumperOptions.FlowStyle flowStyle) throws IOException {
+        beforeValue();
+        yamlEmitter.startObject(emitter, flowStyle);
+        push(OBJECT_NAME);
+        return this;
+    }
+
+    /**
+     * Begins an array, written in the flow style set in the options
+     *
+     * @return This writer
+     * @throws IOException If an IO error occurred
+     */
+    public YamlStreamWriter beginArray() throws IOException {
+        return beginArray(defaultFlowStyle());
+    }
+
+    /**
+     * Begins an array
+     *
+     * @param flowStyle The flow style the array is written in
+     * @return This writer
+     * @throws IOException If an IO error occurred
+     */
+    public YamlStreamWriter beginArray(DumperOptions.FlowStyle flowStyle) throws IOException {
+        beforeValue();
+        yamlEmitter.startArray(emitter, flowStyle);
+        push(ARRAY);
+        arrayDepth++;
+        return this;
+    }
+
+    /**
+     * Ends the object or the array that was begun last
+     *
+     * @return This writer
+     * @throws IOException If an IO error occurred
+     */
+    public YamlStreamWriter end() throws IOException {
+        if (depth == 0)
+            throw new IllegalStateException("Not in an object or an array");
+        byte state = stack[depth - 1];
+        if (state == OBJECT_VALUE)
+            throw new IllegalStateException("Expected a value for " + name);
+        depth--;
+        if (state == ARRAY) {
+            arrayDepth--;
+            yamlEmitter.endArray(emitter);
+        } else yamlEmitter.endObject(emitter);
+        afterValue();
+        return this;
+    }
+
+    /**
+     * Writes the name of the next value in the object
+     *
+     * @param name The name
+     * @return This writer
+     */
+    public YamlStreamWriter name(@NotNull String name) {
+        if (depth == 0 || stack[depth - 1] != OBJECT_NAME)
+            throw new IllegalStateException("Not expecting a name");
+        this.name = name;
+        stack[depth - 1] = OBJECT_VALUE;
+        return this;
+    }
+
+    /**
+     * Writes a {@link String}. If it is {@code null}, a null value is written.
+     *
+     * @param value The value
+     * @return This writer
+     * @throws IOException If an IO error occurred
+     */
+    public YamlStreamWriter value(String value) throws IOException {
+        return writePrimitive(value);
+    }
+
+    /**
+     * Writes a {@link Number}. If it is {@code null}, a null value is written.
+     *
+     * @param value The value
+     * @return This writer
+     * @throws IOException If an IO error occurred
+     */
+    public YamlStreamWriter value(Number value) throws IOException {
+        return writePrimitive(value);
+    }
+
+    /**
+     * Writes a {@code long}
+     *
+     * @param value The value
+     * @return This writer
+     * @throws IOException If an IO error occurred
+     */
+    public YamlStreamWriter value(long value) throws IOException {
+        return writePrimitive(value);
+    }
+
+    /**
+     * Writes a {@code double}
+     *
+     * @param value The value
+     * @return This writer
+     * @throws IOException If an IO error occurred
+     */
+    public YamlStreamWriter value(double value) throws IOException {
+        return writePrimitive(value);
+    }
+
+    /**
+     * Writes a {@code boolean}
+     *
+     * @param value The value
+     * @return This writer
+     * @throws IOException If an IO error occurred
+     */
+    public YamlStreamWriter value(boolean value) throws IOException {
+        return writePrimitive(value);
+    }
+
+    /**
+     * Writes a null value. If null values are excluded and the value is in an
+     * object, the value and its name are skipped.
+     *
+     * @return This writer
+     * @throws IOException If an IO error occurred
+     */
+    public YamlStreamWriter nullValue() throws IOException {
+        if (isNullExcluded()) {
+            stack[depth - 1] = OBJECT_NAME;
+            return this;
+        }
+        beforeValue();
+        yamlEmitter.emitNull(emitter);
+        afterValue();
+        return this;
+    }
+
+    /**
+     * Writes a whole {@link YamlElement}. If it is {@code null}, a null value is written.
+     *
+     * @param element The element
+     * @return This writer
+     * @throws IOException If an IO error occurred
+     */
+    public YamlStreamWriter value(YamlElement element) throws IOException {
+        if (element == null || element.isYamlNull())
+            return nullValue();
+        beforeValue();
+        yamlEmitter.emitElement(emitter, element, yamlEmitter.isExcludingNulls() && arrayDepth == 0);
+        afterValue();
+        return this;
+    }
+
+    /**
+     * Writes a {@link YamlElement} as the next value. The {@link FusionYAML}
+     * passed in is ignored, since the options are set when this writer is created.
+     *
+     * @param element    The element
+     * @param fusionYAML A {@link FusionYAML} instance
+     * @throws IOException If an IO error occurred
+     */
+    @Override
+    public void write(@NotNull YamlElement element, FusionYAML fusionYAML) throws IOException {
+        value(element);
+    }
+
+    /**
+     * Writes a {@link YamlElement} as the next value
+     *
+     * @param element The element
+     * @throws IOException If an IO error occurred
+     */
+    @Override
+    public void write(@NotNull YamlElement element) throws IOException {
+        value(element);
+    }
+
+    /**
+     * @return The number of objects and arrays the writer is currently in
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Ends the stream and closes it. If an object or an array hasn't been
+     * ended, the stream is still closed, but an {@link IllegalStateException}
+     * is thrown.
+     *
+     * @throws IOException If an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (emitter != null && depth == 0)
+                yamlEmitter.close(emitter);
+        } finally {
+            emitter = null;
+            super.close();
+        }
+        if (depth != 0)
+            throw new IllegalStateException("Incomplete document, " + depth + " objects or arrays weren't ended");
+    }
+
+    private YamlStreamWriter writePrimitive(Object value) throws IOException {
+        if (value == null)
+            return nullValue();
+        beforeValue();
+        yamlEmitter.emitPrimitive(emitter, value);
+        afterValue();
+        return this;
+    }
+
+    private boolean isNullExcluded() {
+        return yamlEmitter.isExcludingNulls() && arrayDepth == 0 && depth > 0 && stack[depth - 1] == OBJECT_VALUE;
+    }
+
+    // The automatic flow style needs the contents in advance, so block style is used instead
+    private DumperOptions.FlowStyle defaultFlowStyle() {
+        DumperOptions.FlowStyle style = yamlEmitter.getFlowStyle();
+        return style == DumperOptions.FlowStyle.AUTO ? DumperOptions.FlowStyle.BLOCK : style;
+    }
+
+    private void beforeValue() throws IOException {
+        if (depth == 0) {
+            if (emitter == null)
+                emitter = yamlEmitter.open(buffedWriter);
+            yamlEmitter.startDocument(emitter, false);
+            return;
+        }
+        byte state = stack[depth - 1];
+        if (state == OBJECT_NAME)
+            throw new IllegalStateException("Expected a name before the value");
+        if (state == OBJECT_VALUE) {
+            yamlEmitter.emitKey(emitter, name);
+            stack[depth - 1] = OBJECT_NAME;
+        }
+    }
+
+    // A top-level value is a whole document
+    private void afterValue() throws IOException {
+        if (depth == 0)
+            yamlEmitter.endDocument(emitter, false);
+    }
+
+    private void push(byte state) {
+        if (depth == stack.length)
+            stack = Arrays.copyOf(stack, depth * 2);
+        stack[depth++] = state;
+    }
+
+}
@@ -6,6 +6,7 @@ import org.fusionyaml.library.object.YamlElement;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.*;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * A {@link YamlWriter} is a class responsible for writing {@link YamlElement}s.
@@ -37,14 +38,34 @@ public abstract class YamlWriter implements AutoCloseable {
     }
     
     /**
-     * Creates an instance of this class with buffer equal to 65536.
+     * Creates an instance of this class with buffer equal to 8192.
      *
      * @param writer The writer
      */
     protected YamlWriter(Writer writer) {
-        this(writer, 65536);
+        this(writer, 8192);
     }
     
+    /**
+     * Creates an instance of this class with buffer equal to 8192. The
+     * characters are encoded as UTF-8 and written to the {@link OutputStream}.
+     *
+     * @param out The {@link OutputStream}
+     */
+    protected YamlWriter(OutputStream out) {
+        this(new Utf8Writer(out));
+    }
+
+    /**
+     * Creates an instance of this class with buffer equal to 8192. The
+     * characters are encoded as UTF-8 and written to the {@link WritableByteChannel}.
+     *
+     * @param channel The {@link WritableByteChannel}
+     */
+    protected YamlWriter(WritableByteChannel channel) {
+        this(new Utf8Writer(channel));
+    }
+
     /**
      * Creates an instance of this class with buffer equal to the one passed
      * in. The {@link File} will be written to.
@@ -91,7 +112,7 @@ public abstract class YamlWriter implements AutoCloseable {
     
     private static Writer createFW(File file) {
         try {
-            return new FileWriter(file);
+            return new Utf8Writer(file);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,110 @@
+package org.fusionyaml.library.object;
+
+import java.util.Arrays;
+
+/**
+ * A {@link DenseYamlArray} of booleans, stored in a {@code boolean[]}
+ */
+public class BooleanYamlArray extends DenseYamlArray {
+
+    private boolean[] values;
+
+    /**
+     * Creates an empty {@link BooleanYamlArray}
+     */
+    public BooleanYamlArray() {
+        this(MIN_SIZE);
+    }
+
+    /**
+     * Creates an empty {@link BooleanYamlArray} with room for the given number of values
+     *
+     * @param capacity The number of values the array can hold before growing
+     */
+    public BooleanYamlArray(int capacity) {
+        super(0);
+        this.values = new boolean[capacity];
+    }
+
+    /**
+     * @param values The values, which are copied
+     */
+    public BooleanYamlArray(boolean... values) {
+        super(values.length);
+        this.values = values.clone();
+    }
+
+    // Shares the values, which are never modified again
+    private BooleanYamlArray(boolean[] values, int size) {
+        super(size);
+        this.values = values;
+    }
+
+    /**
+     * Gets the value at the index without creating a {@link YamlPrimitive}
+     *
+     * @param index The index
+     * @return The value
+     */
+    public boolean getBoolean(int index) {
+        if (!isDense())
+            return get(index).getAsYamlPrimitive().getAsBoolean();
+        if (index < 0 || index >= size())
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        return values[index];
+    }
+
+    /**
+     * @return A copy of the values
+     */
+    public boolean[] toBooleanArray() {
+        if (!isDense()) {
+            boolean[] copy = new boolean[size()];
+            for (int i = 0; i < copy.length; i++)
+                copy[i] = getBoolean(i);
+            return copy;
+        }
+        return Arrays.copyOf(values, size());
+    }
+
+    @Override
+    YamlPrimitive element(int index) {
+        return YamlPrimitive.of(values[index]);
+    }
+
+    @Override
+    boolean accepts(YamlPrimitive primitive) {
+        return primitive.kind() == YamlPrimitive.BOOLEAN;
+    }
+
+    @Override
+    void store(int index, YamlPrimitive primitive) {
+        values[index] = primitive.bits() != 0;
+    }
+
+    @Override
+    int capacity() {
+        return values.length;
+    }
+
+    @Override
+    void resize(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    void move(int from, int to, int length) {
+        System.arraycopy(values, from, values, to, length);
+    }
+
+    @Override
+    DenseYamlArray frozen() {
+        return new BooleanYamlArray(values, size());
+    }
+
+    @Override
+    DenseYamlArray copy() {
+        return new BooleanYamlArray(Arrays.copyOf(values, size()));
+    }
+
+}
@@ -0,0 +1,248 @@
+package org.fusionyaml.library.object;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * The {@link java.util.List} the elements of a {@link YamlArray} are stored in, backed by
+ * an array. It is versioned with {@link Versions} the same way a {@link CompactOrderedMap}
+ * is: once a snapshot reads its elements, the array is copied before it is modified, and
+ * the previous one is kept for the snapshot. Its hash is cached the same way too.
+ */
+final class CompactList extends AbstractList<YamlElement> implements RandomAccess {
+
+    private static final YamlElement[] NO_ELEMENTS = {};
+
+    private YamlElement[] elements;
+    private int size;
+    // the time the array was copied at, and the elements snapshots still read
+    private long version = Versions.current();
+    private volatile Versions.State<CompactList> history;
+    // the cached hash, the time of the hash clock it was computed at, and the clock of the
+    // tree the list is in, or null until it or a parent is hashed
+    private int hash;
+    private volatile long hashed = Hashes.NONE;
+    private volatile Hashes.Clock clock;
+
+    /**
+     * @param capacity The number of elements the list can hold before growing
+     */
+    CompactList(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Negative capacity: " + capacity);
+        elements = capacity == 0 ? NO_ELEMENTS : new YamlElement[capacity];
+    }
+
+    /**
+     * @param elements The elements, which are copied
+     */
+    CompactList(Collection<? extends YamlElement> elements) {
+        this.elements = elements.toArray(NO_ELEMENTS);
+        this.size = this.elements.length;
+    }
+
+    // Shares the array of the list, which is never modified again
+    private CompactList(CompactList list) {
+        this.elements = list.elements;
+        this.size = list.size;
+        this.version = list.version;
+    }
+
+    /**
+     * Copies the array if a snapshot reads it. Called before every modification.
+     */
+    private void beforeWrite() {
+        Hashes.invalidate(clock, hashed);
+        long now = Versions.current();
+        if (version == now)
+            return;
+        synchronized (this) {
+            if (Versions.isShared(version)) {
+                history = Versions.push(history, new CompactList(this), version);
+                elements = elements.clone();
+            }
+            version = now;
+        }
+    }
+
+    /**
+     * @param version The time of a snapshot
+     * @return The elements the list held when the snapshot was taken, or {@code null}
+     * if the list didn't exist yet
+     */
+    CompactList stateAt(long version) {
+        synchronized (this) {
+            if (this.version < version)
+                return new CompactList(this);
+        }
+        return Versions.State.find(history, version);
+    }
+
+    /**
+     * @return The time the array was copied at
+     */
+    synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Sets the time the array was copied at, and forgets the previous elements
+     *
+     * @param version The time
+     */
+    synchronized void restamp(long version) {
+        this.version = version;
+        this.history = null;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    @Override
+    public YamlElement get(int index) {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    @Override
+    public YamlElement set(int index, YamlElement element) {
+        checkIndex(index);
+        beforeWrite();
+        YamlElement previous = elements[index];
+        elements[index] = element;
+        return previous;
+    }
+
+    @Override
+    public boolean add(YamlElement element) {
+        beforeWrite();
+        if (size == elements.length)
+            elements = Arrays.copyOf(elements, Math.max(4, size + (size >> 1)));
+        elements[size++] = element;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add(int index, YamlElement element) {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        beforeWrite();
+        if (size == elements.length)
+            elements = Arrays.copyOf(elements, Math.max(4, size + (size >> 1)));
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = element;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public YamlElement remove(int index) {
+        checkIndex(index);
+        beforeWrite();
+        YamlElement previous = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        elements[--size] = null;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        if (size == 0)
+            return;
+        beforeWrite();
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int hashCode() {
+        Hashes.Clock clock = clock();
+        long now = Hashes.current(clock);
+        if (hashed == now)
+            return hash;
+        int hash = 1;
+        boolean tracked = true;
+        for (int i = 0; i < size; i++) {
+            tracked &= Hashes.adopt(elements[i], clock);
+            hash = 31 * hash + Objects.hashCode(elements[i]);
+        }
+        if (tracked)
+            cacheHash(hash, now);
+        return hash;
+    }
+
+    /**
+     * @return Whether the hash is cached and still valid
+     */
+    boolean isHashCached() {
+        return isCurrent(hashed);
+    }
+
+    /**
+     * @param hashed The time of the hash clock a hash was computed at, by this list or
+     *               the dense array it belongs to
+     * @return Whether the hash is still valid
+     */
+    boolean isCurrent(long hashed) {
+        Hashes.Clock clock = this.clock;
+        return clock != null && hashed == Hashes.current(clock);
+    }
+
+    /**
+     * Invalidates the hashes of the tree if a hash computed at the given time, by the
+     * dense array the list belongs to, is still valid
+     *
+     * @param hashed The time of the hash clock the hash was computed at
+     */
+    void invalidate(long hashed) {
+        Hashes.invalidate(clock, hashed);
+    }
+
+    /**
+     * @return The clock of the tree the list is in, created if the list was never hashed
+     */
+    Hashes.Clock clock() {
+        Hashes.Clock clock = this.clock;
+        if (clock == null)
+            this.clock = clock = new Hashes.Clock();
+        return clock;
+    }
+
+    /**
+     * Moves the list into the tree of a parent that is being hashed
+     *
+     * @param clock The clock of the tree of the parent
+     */
+    void join(Hashes.Clock clock) {
+        Hashes.Clock own = this.clock;
+        if (own == null)
+            this.clock = clock;
+        else if (own != clock)
+            Hashes.join(clock, own);
+    }
+
+    /**
+     * Caches the hash of the elements
+     *
+     * @param hash   The hash
+     * @param hashed The time of the hash clock it was computed at
+     */
+    void cacheHash(int hash, long hashed) {
+        this.hash = hash;
+        this.hashed = hashed;
+    }
+
+}
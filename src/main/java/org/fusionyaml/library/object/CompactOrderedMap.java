@@ -0,0 +1,534 @@
+package org.fusionyaml.library.object;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * The {@link Map} the entries of a {@link YamlObject} are stored in. Keys and values are
+ * kept in two arrays, in insertion order, so an entry only costs two references and the
+ * entry at any position is found in constant time. Small maps are searched linearly,
+ * larger ones through an open addressing table of positions in the arrays.
+ * <p>
+ * Removing an entry shifts the ones after it, and is linear in the size of the map.
+ * <p>
+ * The map is versioned with {@link Versions}: once a snapshot reads its entries, the
+ * arrays are copied before they are modified, and the previous ones are kept for the
+ * snapshot. Its hash is cached until the map or one of its values is modified, as
+ * described in {@link Hashes}.
+ */
+final class CompactOrderedMap extends AbstractMap<String, YamlElement> {
+
+    // maps up to this size aren't indexed
+    private static final int LINEAR_MAX = 8;
+    private static final String[] NO_KEYS = {};
+    private static final YamlElement[] NO_VALUES = {};
+
+    private String[] keys;
+    private YamlElement[] values;
+    private int size;
+    // positions + 1 in the arrays, 0 being an empty slot, or null while the map is small
+    private int[] index;
+    private int modCount;
+    // the time the arrays were copied at, and the entries snapshots still read
+    private long version = Versions.current();
+    private volatile Versions.State<CompactOrderedMap> history;
+    // the cached hash, the time of the hash clock it was computed at, and the clock of the
+    // tree the map is in, or null until it or a parent is hashed
+    private int hash;
+    private volatile long hashed = Hashes.NONE;
+    private volatile Hashes.Clock clock;
+
+    CompactOrderedMap() {
+        this(0);
+    }
+
+    /**
+     * @param capacity The number of entries the map can hold before growing
+     */
+    CompactOrderedMap(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Negative capacity: " + capacity);
+        keys = capacity == 0 ? NO_KEYS : new String[capacity];
+        values = capacity == 0 ? NO_VALUES : new YamlElement[capacity];
+    }
+
+    /**
+     * @param keys   The keys, which are all different
+     * @param values The values of the keys, at the same positions
+     */
+    CompactOrderedMap(String[] keys, YamlElement[] values) {
+        if (keys.length != values.length)
+            throw new IllegalArgumentException("Different numbers of keys and values");
+        this.keys = keys;
+        this.values = values;
+        this.size = keys.length;
+        if (size > LINEAR_MAX)
+            reindex();
+    }
+
+    // Shares the arrays of the map, which are never modified again
+    private CompactOrderedMap(CompactOrderedMap map) {
+        this.keys = map.keys;
+        this.values = map.values;
+        this.size = map.size;
+        this.index = map.index;
+        this.version = map.version;
+    }
+
+    /**
+     * Copies the arrays if a snapshot reads them. Called before every modification.
+     */
+    private void beforeWrite() {
+        Hashes.invalidate(clock, hashed);
+        long now = Versions.current();
+        if (version == now)
+            return;
+        synchronized (this) {
+            if (Versions.isShared(version)) {
+                history = Versions.push(history, new CompactOrderedMap(this), version);
+                keys = keys.clone();
+                values = values.clone();
+                if (index != null)
+                    index = index.clone();
+            }
+            version = now;
+        }
+    }
+
+    /**
+     * @param version The time of a snapshot
+     * @return The entries the map held when the snapshot was taken, or {@code null}
+     * if the map didn't exist yet
+     */
+    CompactOrderedMap stateAt(long version) {
+        synchronized (this) {
+            if (this.version < version)
+                return new CompactOrderedMap(this);
+        }
+        return Versions.State.find(history, version);
+    }
+
+    /**
+     * @return The time the arrays were copied at
+     */
+    synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Sets the time the arrays were copied at, and forgets the previous entries
+     *
+     * @param version The time
+     */
+    synchronized void restamp(long version) {
+        this.version = version;
+        this.history = null;
+    }
+
+    /**
+     * @param position A position lower than the size
+     * @return The value of the entry at the position
+     */
+    YamlElement valueAt(int position) {
+        if (position < 0 || position >= size)
+            throw new IndexOutOfBoundsException("Index: " + position + ", Size: " + size);
+        return values[position];
+    }
+
+    private static int hash(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String candidate, Object key, int hash) {
+        return candidate == key || (candidate != null && hash(candidate) == hash && candidate.equals(key));
+    }
+
+    private int find(Object key) {
+        if (key != null && !(key instanceof String))
+            return -1;
+        int hash = hash(key);
+        int[] index = this.index;
+        if (index == null) {
+            for (int i = 0; i < size; i++)
+                if (matches(keys[i], key, hash))
+                    return i;
+            return -1;
+        }
+        int mask = index.length - 1;
+        for (int slot = hash & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+            int position = index[slot] - 1;
+            if (matches(keys[position], key, hash))
+                return position;
+        }
+        return -1;
+    }
+
+    // Rebuilds the index of a map larger than LINEAR_MAX, with at most half of its slots used
+    private void reindex() {
+        if (size <= LINEAR_MAX) {
+            index = null;
+            return;
+        }
+        int length = Integer.highestOneBit(size) << 2;
+        int[] index = this.index != null && this.index.length == length ? this.index : new int[length];
+        Arrays.fill(index, 0);
+        int mask = length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = hash(keys[i]) & mask;
+            while (index[slot] != 0)
+                slot = (slot + 1) & mask;
+            index[slot] = i + 1;
+        }
+        this.index = index;
+    }
+
+    @Override
+    public YamlElement get(Object key) {
+        int position = find(key);
+        return position < 0 ? null : values[position];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public YamlElement put(String key, YamlElement value) {
+        beforeWrite();
+        int position = find(key);
+        if (position >= 0) {
+            YamlElement previous = values[position];
+            values[position] = value;
+            return previous;
+        }
+        if (size == keys.length) {
+            int capacity = Math.max(4, size + (size >> 1));
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        keys[size] = key;
+        values[size] = value;
+        size++;
+        modCount++;
+        if (index != null && size << 1 <= index.length) {
+            int mask = index.length - 1;
+            int slot = hash(key) & mask;
+            while (index[slot] != 0)
+                slot = (slot + 1) & mask;
+            index[slot] = size;
+        } else if (size > LINEAR_MAX) reindex();
+        return null;
+    }
+
+    @Override
+    public YamlElement remove(Object key) {
+        int position = find(key);
+        return position < 0 ? null : removeAt(position);
+    }
+
+    private YamlElement removeAt(int position) {
+        beforeWrite();
+        YamlElement previous = values[position];
+        int moved = size - position - 1;
+        System.arraycopy(keys, position + 1, keys, position, moved);
+        System.arraycopy(values, position + 1, values, position, moved);
+        size--;
+        keys[size] = null;
+        values[size] = null;
+        modCount++;
+        if (index != null)
+            reindex();
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        if (size == 0)
+            return;
+        beforeWrite();
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        index = null;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super YamlElement> action) {
+        int expected = modCount;
+        for (int i = 0; i < size; i++) {
+            action.accept(keys[i], values[i]);
+            if (modCount != expected)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    public Set<Entry<String, YamlElement>> entrySet() {
+        return new AbstractSet<Entry<String, YamlElement>>() {
+            @Override
+            public Iterator<Entry<String, YamlElement>> iterator() {
+                return new Itr<Entry<String, YamlElement>>() {
+                    @Override
+                    Entry<String, YamlElement> at(int position) {
+                        return new MapEntry(keys[position], values[position]);
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Entry))
+                    return false;
+                Entry<?, ?> entry = (Entry<?, ?>) o;
+                int position = find(entry.getKey());
+                return position >= 0 && Objects.equals(values[position], entry.getValue());
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public void clear() {
+                CompactOrderedMap.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new Itr<String>() {
+                    @Override
+                    String at(int position) {
+                        return keys[position];
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                int position = find(o);
+                if (position < 0)
+                    return false;
+                removeAt(position);
+                return true;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public void clear() {
+                CompactOrderedMap.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Collection<YamlElement> values() {
+        return new AbstractCollection<YamlElement>() {
+            @Override
+            public Iterator<YamlElement> iterator() {
+                return new Itr<YamlElement>() {
+                    @Override
+                    YamlElement at(int position) {
+                        return values[position];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public void clear() {
+                CompactOrderedMap.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof Map))
+            return false;
+        Map<?, ?> map = (Map<?, ?>) o;
+        if (map.size() != size)
+            return false;
+        for (int i = 0; i < size; i++) {
+            YamlElement value = values[i];
+            if (value == null ? map.get(keys[i]) != null || !map.containsKey(keys[i]) : !value.equals(map.get(keys[i])))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        Hashes.Clock clock = clock();
+        long now = Hashes.current(clock);
+        if (hashed == now)
+            return hash;
+        int hash = 0;
+        boolean tracked = true;
+        for (int i = 0; i < size; i++) {
+            tracked &= Hashes.adopt(values[i], clock);
+            hash += Objects.hashCode(keys[i]) ^ Objects.hashCode(values[i]);
+        }
+        if (tracked)
+            cacheHash(hash, now);
+        return hash;
+    }
+
+    /**
+     * @return Whether the hash is cached and still valid
+     */
+    boolean isHashCached() {
+        Hashes.Clock clock = this.clock;
+        return clock != null && hashed == Hashes.current(clock);
+    }
+
+    /**
+     * @return The clock of the tree the map is in, created if the map was never hashed
+     */
+    Hashes.Clock clock() {
+        Hashes.Clock clock = this.clock;
+        if (clock == null)
+            this.clock = clock = new Hashes.Clock();
+        return clock;
+    }
+
+    /**
+     * Moves the map into the tree of a parent that is being hashed
+     *
+     * @param clock The clock of the tree of the parent
+     */
+    void join(Hashes.Clock clock) {
+        Hashes.Clock own = this.clock;
+        if (own == null)
+            this.clock = clock;
+        else if (own != clock)
+            Hashes.join(clock, own);
+    }
+
+    /**
+     * Caches the hash of the entries
+     *
+     * @param hash   The hash
+     * @param hashed The time of the hash clock it was computed at
+     */
+    void cacheHash(int hash, long hashed) {
+        this.hash = hash;
+        this.hashed = hashed;
+    }
+
+    // Iterates over the positions in order, and removes entries through removeAt
+    private abstract class Itr<T> implements Iterator<T> {
+
+        private int cursor;
+        private int last = -1;
+        private int expected = modCount;
+
+        abstract T at(int position);
+
+        @Override
+        public boolean hasNext() {
+            return cursor < size;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expected)
+                throw new ConcurrentModificationException();
+            if (cursor >= size)
+                throw new NoSuchElementException();
+            last = cursor++;
+            return at(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0)
+                throw new IllegalStateException();
+            if (modCount != expected)
+                throw new ConcurrentModificationException();
+            removeAt(last);
+            cursor = last;
+            last = -1;
+            expected = modCount;
+        }
+
+    }
+
+    // An entry whose value is written back to the map when it is set
+    private final class MapEntry implements Map.Entry<String, YamlElement> {
+
+        private final String key;
+        private YamlElement value;
+
+        MapEntry(String key, YamlElement value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public YamlElement getValue() {
+            return value;
+        }
+
+        @Override
+        public YamlElement setValue(YamlElement value) {
+            put(key, value);
+            YamlElement previous = this.value;
+            this.value = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, entry.getKey()) && Objects.equals(value, entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+
+    }
+
+}
@@ -0,0 +1,325 @@
+package org.fusionyaml.library.object;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link YamlArray} whose values are all of one primitive type, and are stored
+ * in an array of that type instead of as {@link YamlPrimitive}s. Each
+ * {@link YamlPrimitive} is only created when its element is accessed.
+ * <p>
+ * Adding or setting an element of another type converts the array into a regular
+ * one, after which it behaves exactly like a {@link YamlArray}. The {@link List}
+ * returned by {@link #getList()} is a view of the values, which doesn't convert the
+ * array unless it is used to store an element of another type.
+ * <p>
+ * Like any other {@link YamlArray}, a {@link DenseYamlArray} copies its values before
+ * modifying them if a snapshot reads them.
+ */
+public abstract class DenseYamlArray extends YamlArray {
+
+    /**
+     * The minimum size of the sequences {@link YamlArray#of(Collection)} stores densely
+     */
+    static final int MIN_SIZE = 16;
+
+    private final List<YamlElement> view = new View();
+    private int size;
+    // whether the values were moved into the list of the super class
+    private boolean inflated;
+    // the time the values were copied at, and the values snapshots still read
+    private long version = Versions.current();
+    private volatile Versions.State<DenseYamlArray> history;
+    // the cached hash of the values, and the time of the hash clock it was computed at
+    private int hash;
+    private volatile long hashed = Hashes.NONE;
+
+    DenseYamlArray(int size) {
+        super(0);
+        this.size = size;
+    }
+
+    /**
+     * Creates a dense array of the elements, if they are all of the same type
+     *
+     * @param elements The elements
+     * @return The dense array, or {@code null} if the elements can't be stored densely
+     */
+    static DenseYamlArray tryCreate(Collection<YamlElement> elements) {
+        if (elements.size() < MIN_SIZE)
+            return null;
+        byte kind = -1;
+        for (YamlElement element : elements) {
+            if (!(element instanceof YamlPrimitive))
+                return null;
+            byte current = ((YamlPrimitive) element).kind();
+            if (current == YamlPrimitive.INT)
+                current = YamlPrimitive.LONG;
+            if (kind == -1)
+                kind = current;
+            else if (kind != current)
+                return null;
+        }
+        DenseYamlArray array;
+        if (kind == YamlPrimitive.LONG)
+            array = new LongYamlArray(elements.size());
+        else if (kind == YamlPrimitive.DOUBLE)
+            array = new DoubleYamlArray(elements.size());
+        else if (kind == YamlPrimitive.BOOLEAN)
+            array = new BooleanYamlArray(elements.size());
+        else return null;
+        for (YamlElement element : elements)
+            array.add(element);
+        return array;
+    }
+
+    /**
+     * @param index An index lower than the size
+     * @return A {@link YamlPrimitive} holding the value at the index
+     */
+    abstract YamlPrimitive element(int index);
+
+    /**
+     * @param primitive A {@link YamlPrimitive}
+     * @return Whether the value of the primitive can be stored in this array
+     */
+    abstract boolean accepts(YamlPrimitive primitive);
+
+    /**
+     * Stores the value of an accepted primitive at the index
+     *
+     * @param index     An index lower than the capacity
+     * @param primitive The {@link YamlPrimitive}
+     */
+    abstract void store(int index, YamlPrimitive primitive);
+
+    /**
+     * @return The number of values the array can hold before growing
+     */
+    abstract int capacity();
+
+    /**
+     * Replaces the array of values by one of the given length, holding its first values
+     *
+     * @param capacity The length of the new array
+     */
+    abstract void resize(int capacity);
+
+    /**
+     * Moves values within the array of values
+     *
+     * @param from   The index of the first value moved
+     * @param to     The index it is moved to
+     * @param length The number of values moved
+     */
+    abstract void move(int from, int to, int length);
+
+    /**
+     * @return An array of the same type sharing the values of this one, which are
+     * never modified again
+     */
+    abstract DenseYamlArray frozen();
+
+    /**
+     * Copies the values if a snapshot reads them. Called before every modification
+     * of the values.
+     *
+     * @param copy Whether the values are copied, or are about to be replaced anyway
+     */
+    private void beforeWrite(boolean copy) {
+        ((CompactList) super.list()).invalidate(hashed);
+        long now = Versions.current();
+        if (version == now)
+            return;
+        synchronized (this) {
+            if (Versions.isShared(version)) {
+                history = Versions.push(history, frozen(), version);
+                if (copy)
+                    resize(capacity());
+            }
+            version = now;
+        }
+    }
+
+    /**
+     * @param version The time of a snapshot
+     * @return The elements the array held when the snapshot was taken
+     */
+    List<YamlElement> stateAt(long version) {
+        synchronized (this) {
+            if (!inflated && this.version < version)
+                return frozen().list();
+        }
+        if (inflated) {
+            // the list only holds the elements since the values were moved into it
+            List<YamlElement> elements = ((CompactList) super.list()).stateAt(version);
+            if (elements != null)
+                return elements;
+        }
+        DenseYamlArray state = Versions.State.find(history, version);
+        return state != null ? state.list() : Collections.emptyList();
+    }
+
+    /**
+     * @return Whether the values are still stored densely
+     */
+    public boolean isDense() {
+        return !inflated;
+    }
+
+    // Moves the values into the list of the super class, as YamlPrimitives
+    private void inflate() {
+        beforeWrite(false);
+        CompactList list = (CompactList) super.list();
+        for (int i = 0; i < size; i++)
+            list.add(element(i));
+        list.restamp(Versions.current());
+        synchronized (this) {
+            inflated = true;
+        }
+        size = 0;
+        resize(0);
+    }
+
+    private boolean accepts(YamlElement element) {
+        return element instanceof YamlPrimitive && accepts((YamlPrimitive) element);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    @Override
+    protected List<YamlElement> list() {
+        return inflated ? super.list() : view;
+    }
+
+    @Override
+    public void add(YamlElement value) {
+        if (inflated || !accepts(value)) {
+            if (!inflated)
+                inflate();
+            super.add(value);
+            return;
+        }
+        beforeWrite(size < capacity());
+        if (size == capacity())
+            resize(Math.max(MIN_SIZE, size + (size >> 1)));
+        store(size++, (YamlPrimitive) value);
+    }
+
+    @Override
+    public void remove(int index) {
+        if (inflated) {
+            super.remove(index);
+            return;
+        }
+        checkIndex(index);
+        beforeWrite(true);
+        move(index + 1, index, size - index - 1);
+        size--;
+    }
+
+    @Override
+    public void set(int index, YamlElement value) {
+        if (inflated || !accepts(value)) {
+            if (!inflated)
+                inflate();
+            super.set(index, value);
+            return;
+        }
+        checkIndex(index);
+        beforeWrite(true);
+        store(index, (YamlPrimitive) value);
+    }
+
+    @Override
+    public int size() {
+        return inflated ? super.size() : size;
+    }
+
+    @Override
+    public YamlElement get(int index) {
+        if (inflated)
+            return super.get(index);
+        checkIndex(index);
+        return element(index);
+    }
+
+    @Override
+    public int hashCode() {
+        if (inflated)
+            return super.hashCode();
+        // the values are all scalars, the clock of the list they inflate into is only needed by the parents
+        long now = Hashes.current(((CompactList) super.list()).clock());
+        if (hashed == now)
+            return hash;
+        int hash = 1;
+        for (int i = 0; i < size; i++)
+            hash = 31 * hash + element(i).hashCode();
+        this.hash = hash;
+        this.hashed = now;
+        return hash;
+    }
+
+    @Override
+    boolean isHashCached() {
+        return inflated ? super.isHashCached() : ((CompactList) super.list()).isCurrent(hashed);
+    }
+
+    /**
+     * Copies the values of this array into a new one of the same type
+     *
+     * @return The copy
+     */
+    abstract DenseYamlArray copy();
+
+    @Override
+    public YamlArray deepCopy() {
+        return inflated ? super.deepCopy() : copy();
+    }
+
+    // The List of the elements while they are stored densely
+    private final class View extends AbstractList<YamlElement> {
+
+        @Override
+        public YamlElement get(int index) {
+            return DenseYamlArray.this.get(index);
+        }
+
+        @Override
+        public YamlElement set(int index, YamlElement element) {
+            YamlElement previous = DenseYamlArray.this.get(index);
+            DenseYamlArray.this.set(index, element);
+            return previous;
+        }
+
+        @Override
+        public void add(int index, YamlElement element) {
+            if (index == DenseYamlArray.this.size()) {
+                DenseYamlArray.this.add(element);
+                return;
+            }
+            if (!inflated)
+                inflate();
+            DenseYamlArray.super.list().add(index, element);
+        }
+
+        @Override
+        public YamlElement remove(int index) {
+            YamlElement previous = DenseYamlArray.this.get(index);
+            DenseYamlArray.this.remove(index);
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return DenseYamlArray.this.size();
+        }
+
+    }
+
+}
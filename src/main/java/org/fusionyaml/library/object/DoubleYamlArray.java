@@ -0,0 +1,120 @@
+package org.fusionyaml.library.object;
+
+import java.util.Arrays;
+
+/**
+ * A {@link DenseYamlArray} of floating point numbers, stored in a {@code double[]}
+ */
+public class DoubleYamlArray extends DenseYamlArray {
+
+    private double[] values;
+
+    /**
+     * Creates an empty {@link DoubleYamlArray}
+     */
+    public DoubleYamlArray() {
+        this(MIN_SIZE);
+    }
+
+    /**
+     * Creates an empty {@link DoubleYamlArray} with room for the given number of values
+     *
+     * @param capacity The number of values the array can hold before growing
+     */
+    public DoubleYamlArray(int capacity) {
+        super(0);
+        this.values = new double[capacity];
+    }
+
+    /**
+     * @param values The values, which are copied
+     */
+    public DoubleYamlArray(double... values) {
+        super(values.length);
+        this.values = values.clone();
+    }
+
+    // Shares the values, which are never modified again
+    private DoubleYamlArray(double[] values, int size) {
+        super(size);
+        this.values = values;
+    }
+
+    /**
+     * Gets the value at the index without creating a {@link YamlPrimitive}
+     *
+     * @param index The index
+     * @return The value
+     */
+    public double getDouble(int index) {
+        if (!isDense())
+            return get(index).getAsYamlPrimitive().getAsDouble();
+        if (index < 0 || index >= size())
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        return values[index];
+    }
+
+    /**
+     * Adds a value without creating a {@link YamlPrimitive}, unless the values are no
+     * longer stored densely
+     *
+     * @param value The value
+     */
+    public void add(double value) {
+        add(YamlPrimitive.of(value));
+    }
+
+    /**
+     * @return A copy of the values
+     */
+    public double[] toDoubleArray() {
+        if (!isDense()) {
+            double[] copy = new double[size()];
+            for (int i = 0; i < copy.length; i++)
+                copy[i] = getDouble(i);
+            return copy;
+        }
+        return Arrays.copyOf(values, size());
+    }
+
+    @Override
+    YamlPrimitive element(int index) {
+        return YamlPrimitive.of(values[index]);
+    }
+
+    @Override
+    boolean accepts(YamlPrimitive primitive) {
+        return primitive.kind() == YamlPrimitive.DOUBLE;
+    }
+
+    @Override
+    void store(int index, YamlPrimitive primitive) {
+        values[index] = Double.longBitsToDouble(primitive.bits());
+    }
+
+    @Override
+    int capacity() {
+        return values.length;
+    }
+
+    @Override
+    void resize(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    void move(int from, int to, int length) {
+        System.arraycopy(values, from, values, to, length);
+    }
+
+    @Override
+    DenseYamlArray frozen() {
+        return new DoubleYamlArray(values, size());
+    }
+
+    @Override
+    DenseYamlArray copy() {
+        return new DoubleYamlArray(Arrays.copyOf(values, size()));
+    }
+
+}
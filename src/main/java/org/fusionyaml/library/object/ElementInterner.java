@@ -0,0 +1,247 @@
+package org.fusionyaml.library.object;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A table of canonical {@link YamlElement}s, used while loading documents so that
+ * equal objects, arrays and scalars share a single instance instead of each occurrence
+ * being its own copy. A document repeating the same block thousands of times then holds
+ * it once.
+ * <p>
+ * Equal scalars are replaced by the same {@link YamlPrimitive}, which is immutable.
+ * Equal objects and arrays are stored once, frozen, and each occurrence is a small
+ * {@link YamlObject} or {@link YamlArray} reading from it. Modifying an occurrence, or
+ * doing anything but reading its scalars, first copies its own level of entries, so
+ * modifications never affect the other occurrences. Two elements are only shared if they
+ * are equal down to the java type of each scalar, so that the shared element reads back
+ * exactly like each of them.
+ * <p>
+ * An {@link ElementInterner} can be used for a single load, by passing it to a reader,
+ * or for every load of a {@link org.fusionyaml.library.FusionYAML} instance, by passing
+ * it to {@link org.fusionyaml.library.FusionYAML.Builder#elementInterner(ElementInterner)}.
+ * Once the table holds the maximum number of elements, the elements already in it are
+ * still shared but no new ones are added. Documents loaded lazily aren't interned.
+ * <p>
+ * An {@link ElementInterner} is thread-safe.
+ */
+public final class ElementInterner {
+
+    // rough sizes of the objects an element is made of, on a 64 bit VM with compressed references
+    private static final int OBJECT_SIZE = 16 + 48;
+    private static final int ARRAY_SIZE = 16 + 32;
+    private static final int ARRAY_HEADER_SIZE = 16;
+    private static final int PRIMITIVE_SIZE = 32;
+    private static final int STRING_SIZE = 24 + 16;
+
+    private final ConcurrentHashMap<Object, YamlElement> table = new ConcurrentHashMap<>();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+    private final int maxStringLength;
+    private final int maxSize;
+
+    /**
+     * Creates an {@link ElementInterner} that shares strings up to 64 characters long,
+     * and holds up to 65536 elements
+     */
+    public ElementInterner() {
+        this(64, 65536);
+    }
+
+    /**
+     * @param maxStringLength The maximum length of the string scalars shared. Objects and
+     *                        arrays holding longer strings are still shared.
+     * @param maxSize         The maximum number of elements held
+     * @throws IllegalArgumentException If the maximum length is negative or the maximum
+     *                                  number of elements isn't positive
+     */
+    public ElementInterner(int maxStringLength, int maxSize) {
+        if (maxStringLength < 0 || maxSize <= 0)
+            throw new IllegalArgumentException("Invalid maximum length or size");
+        this.maxStringLength = maxStringLength;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets an element equal to the given one, which shares its scalars, objects and arrays
+     * with the equal ones already interned. The given element isn't modified.
+     *
+     * @param element The element
+     * @return An element equal to the given one
+     */
+    public YamlElement intern(YamlElement element) {
+        return share(canonical(element));
+    }
+
+    /**
+     * @param element A canonical element
+     * @return An occurrence of the element, which copies its entries before they are modified
+     */
+    static YamlElement share(YamlElement element) {
+        if (element instanceof FrozenYamlObject)
+            return new SharedYamlObject((FrozenYamlObject) element);
+        if (element instanceof FrozenYamlArray)
+            return new SharedYamlArray((FrozenYamlArray) element);
+        return element;
+    }
+
+    // Gets the canonical element equal to the element, after getting those of its children
+    private YamlElement canonical(YamlElement element) {
+        if (element == null || element instanceof YamlNull)
+            return YamlNull.NULL;
+        if (element instanceof YamlPrimitive)
+            return canonical((YamlPrimitive) element);
+        // an occurrence that wasn't modified already reads from a canonical element
+        if (element instanceof SharedYamlObject) {
+            FrozenYamlObject shared = ((SharedYamlObject) element).shared();
+            if (shared != null)
+                return shared;
+        } else if (element instanceof SharedYamlArray) {
+            FrozenYamlArray shared = ((SharedYamlArray) element).shared();
+            if (shared != null)
+                return shared;
+        }
+        if (element instanceof YamlObject) {
+            YamlObject object = (YamlObject) element;
+            String[] keys = new String[object.size()];
+            YamlElement[] values = new YamlElement[keys.length];
+            int i = 0;
+            for (Map.Entry<String, YamlElement> entry : object.entrySet()) {
+                keys[i] = entry.getKey();
+                values[i++] = canonical(entry.getValue());
+            }
+            Node node = new Node(keys, values);
+            YamlElement found = table.get(node);
+            if (found != null)
+                return deduplicated(found, OBJECT_SIZE + 2 * (ARRAY_HEADER_SIZE + 4L * keys.length));
+            return add(node, new FrozenYamlObject(new CompactOrderedMap(keys, values)));
+        }
+        if (element instanceof YamlArray) {
+            YamlArray array = (YamlArray) element;
+            YamlElement[] values = new YamlElement[array.size()];
+            int i = 0;
+            for (YamlElement item : array)
+                values[i++] = canonical(item);
+            Node node = new Node(null, values);
+            YamlElement found = table.get(node);
+            if (found != null)
+                return deduplicated(found, ARRAY_SIZE + ARRAY_HEADER_SIZE + 4L * values.length);
+            return add(node, new FrozenYamlArray(values));
+        }
+        return element;
+    }
+
+    private YamlElement canonical(YamlPrimitive primitive) {
+        Object value = primitive.getValue();
+        if (value instanceof String && ((String) value).length() > maxStringLength)
+            return primitive;
+        YamlElement found = table.get(value);
+        if (found != null) {
+            if (found == primitive)
+                return found;
+            long size = PRIMITIVE_SIZE;
+            if (value instanceof String && ((YamlPrimitive) found).getValue() != value)
+                size += STRING_SIZE + ((String) value).length();
+            return deduplicated(found, size);
+        }
+        return add(value, primitive);
+    }
+
+    private YamlElement deduplicated(YamlElement found, long size) {
+        deduplicated.increment();
+        savedBytes.add(size);
+        return found;
+    }
+
+    private YamlElement add(Object key, YamlElement element) {
+        if (table.size() >= maxSize)
+            return element;
+        YamlElement found = table.putIfAbsent(key, element);
+        return found != null ? found : element;
+    }
+
+    /**
+     * @return The number of elements that were replaced by an equal one already in the table
+     */
+    public long getDeduplicatedCount() {
+        return deduplicated.sum();
+    }
+
+    /**
+     * Estimates the memory saved by sharing elements, from the sizes objects usually have
+     * on a 64 bit VM. Each element shared counts the objects its own level is made of, so
+     * that an object shared along with its children counts them all.
+     *
+     * @return The estimated number of bytes saved
+     */
+    public long getSavedBytes() {
+        return savedBytes.sum();
+    }
+
+    /**
+     * @return The number of elements in the table
+     */
+    public int size() {
+        return table.size();
+    }
+
+    /**
+     * Removes every element from the table. The elements already shared stay shared, and
+     * the counts of deduplicated elements and saved bytes are kept.
+     */
+    public void clear() {
+        table.clear();
+    }
+
+    /**
+     * The key of an object or an array in the table, made of its keys and its canonical
+     * children. Since the children are canonical, objects and arrays are compared by
+     * identity, while scalars are compared by value, down to their java type.
+     */
+    private static final class Node {
+
+        private final String[] keys;
+        private final YamlElement[] values;
+        private final int hash;
+
+        private Node(String[] keys, YamlElement[] values) {
+            this.keys = keys;
+            this.values = values;
+            int hash = Arrays.hashCode(keys);
+            for (YamlElement value : values)
+                hash = 31 * hash + (value instanceof YamlPrimitive
+                        ? ((YamlPrimitive) value).getValue().hashCode() : System.identityHashCode(value));
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Node))
+                return false;
+            Node node = (Node) o;
+            if (hash != node.hash || values.length != node.values.length || !Arrays.equals(keys, node.keys))
+                return false;
+            for (int i = 0; i < values.length; i++) {
+                YamlElement value = values[i];
+                YamlElement other = node.values[i];
+                if (value == other)
+                    continue;
+                if (!(value instanceof YamlPrimitive) || !(other instanceof YamlPrimitive)
+                        || !((YamlPrimitive) value).getValue().equals(((YamlPrimitive) other).getValue()))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
@@ -0,0 +1,85 @@
+package org.fusionyaml.library.object;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable {@link YamlArray}, whose objects and arrays are frozen as well. The
+ * elements are stored once in an array sized to fit them, or, if they are all integers,
+ * all doubles or all booleans, in an array of that primitive type. They are never
+ * modified again, so the array can be read from any number of threads without locking.
+ *
+ * @see YamlArray#freeze()
+ */
+final class FrozenYamlArray extends YamlArray {
+
+    // the values stored densely, or null
+    private final DenseYamlArray dense;
+    private final List<YamlElement> view;
+    // the hash, or 0 until it is computed
+    private int hash;
+
+    /**
+     * @param elements The elements, whose objects and arrays are frozen already and
+     *                 which are never modified again
+     */
+    FrozenYamlArray(YamlElement[] elements) {
+        this(DenseYamlArray.tryCreate(Arrays.asList(elements)), Arrays.asList(elements));
+    }
+
+    private FrozenYamlArray(DenseYamlArray dense, List<YamlElement> elements) {
+        super(0);
+        this.dense = dense;
+        this.view = Collections.unmodifiableList(dense != null ? dense.list() : elements);
+    }
+
+    /**
+     * @param source The array whose elements are frozen
+     * @return The frozen array
+     */
+    static FrozenYamlArray of(YamlArray source) {
+        if (source instanceof DenseYamlArray && ((DenseYamlArray) source).isDense())
+            return new FrozenYamlArray(((DenseYamlArray) source).copy(), null);
+        YamlElement[] elements = new YamlElement[source.size()];
+        int i = 0;
+        for (YamlElement element : source)
+            elements[i++] = element.freeze();
+        return new FrozenYamlArray(elements);
+    }
+
+    @Override
+    protected List<YamlElement> list() {
+        return view;
+    }
+
+    @Override
+    public int hashCode() {
+        // the elements never change, so the hash is only computed once
+        int hash = this.hash;
+        if (hash == 0)
+            this.hash = hash = super.hashCode();
+        return hash;
+    }
+
+    @Override
+    boolean isHashCached() {
+        return hash != 0;
+    }
+
+    @Override
+    public YamlArray snapshot() {
+        return this;
+    }
+
+    @Override
+    public YamlArray freeze() {
+        return this;
+    }
+
+    @Override
+    public YamlArray deepCopy() {
+        return dense != null ? dense.copy() : super.deepCopy();
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.fusionyaml.library.object;
+
+import org.fusionyaml.library.events.EntryChangeListener;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * An immutable {@link YamlObject}, whose objects and arrays are frozen as well. The
+ * entries are stored once, in insertion order, in arrays sized to fit them and indexed
+ * by a hash table, and they are never modified again, so the object can be read from
+ * any number of threads without locking.
+ *
+ * @see YamlObject#freeze()
+ */
+final class FrozenYamlObject extends YamlObject {
+
+    private final CompactOrderedMap entries;
+    private final Map<String, YamlElement> view;
+    // the hash, or 0 until it is computed
+    private int hash;
+
+    /**
+     * @param source The object whose entries are frozen
+     */
+    FrozenYamlObject(YamlObject source) {
+        this(freeze(source.map()));
+    }
+
+    /**
+     * @param entries The entries, whose objects and arrays are frozen already and which
+     *                are never modified again
+     */
+    FrozenYamlObject(CompactOrderedMap entries) {
+        this.entries = entries;
+        this.view = Collections.unmodifiableMap(entries);
+    }
+
+    private static CompactOrderedMap freeze(Map<String, YamlElement> map) {
+        CompactOrderedMap entries = new CompactOrderedMap(map.size());
+        map.forEach((k, v) -> entries.put(k, v.freeze()));
+        return entries;
+    }
+
+    @Override
+    protected Map<String, YamlElement> map() {
+        return view;
+    }
+
+    @Override
+    public YamlElement get(String key) {
+        return entries.get(key);
+    }
+
+    @Override
+    public YamlElement get(int index) {
+        return entries.valueAt(index);
+    }
+
+    @Override
+    @Deprecated
+    public void setOnEntryChange(EntryChangeListener listener) {
+        throw new UnsupportedOperationException("The object is frozen");
+    }
+
+    @Override
+    public int hashCode() {
+        // the entries never change, so the hash is only computed once
+        int hash = this.hash;
+        if (hash == 0)
+            this.hash = hash = super.hashCode();
+        return hash;
+    }
+
+    @Override
+    boolean isHashCached() {
+        return hash != 0;
+    }
+
+    @Override
+    public YamlObject snapshot() {
+        return this;
+    }
+
+    @Override
+    public YamlObject freeze() {
+        return this;
+    }
+
+}
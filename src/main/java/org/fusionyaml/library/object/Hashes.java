@@ -0,0 +1,153 @@
+package org.fusionyaml.library.object;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The clocks the structural hashes of {@link YamlObject}s and {@link YamlArray}s are cached with.
+ * <p>
+ * The hash of an object or an array is computed from those of its children, and cached along
+ * with the time of the {@link Clock} of its tree it was computed at. It stays valid as long as
+ * that clock doesn't move. Since an object or an array can be held by any number of parents, it
+ * doesn't know which hashes depend on its own, so modifying a container whose hash is valid
+ * advances the clock of its tree, which invalidates every hash cached in that tree. Containers
+ * whose hash isn't valid are modified without touching the clock: none of the valid hashes
+ * depend on them, since the hashes of their parents were computed from theirs, at the same time.
+ * <p>
+ * A container gets a clock the first time it is hashed, and hashing a parent moves its children
+ * into the tree of the parent, joining their clocks. Trees that were never hashed together don't
+ * share a clock, so modifying one of them leaves the hashes of the others valid. Loading a
+ * document or modifying a tree that was never hashed doesn't invalidate anything. Frozen objects
+ * and arrays and snapshots never change, and keep their hashes for good.
+ */
+final class Hashes {
+
+    /**
+     * The time of a hash that was never computed
+     */
+    static final long NONE = -1;
+
+    private Hashes() {
+    }
+
+    /**
+     * The clock of a tree of objects and arrays. The clocks of two trees are joined by
+     * pointing one of them to the other, whose time is then the time of both.
+     */
+    static final class Clock {
+
+        // the time, which is only kept by a clock that wasn't joined into another
+        private final AtomicLong time = new AtomicLong();
+        // the clock this one was joined into, or null if it keeps the time itself
+        private volatile Clock parent;
+
+    }
+
+    // Finds the clock keeping the time, shortening the path to it on the way
+    private static Clock root(Clock clock) {
+        Clock parent;
+        while ((parent = clock.parent) != null) {
+            Clock grandparent = parent.parent;
+            if (grandparent == null)
+                return parent;
+            clock.parent = grandparent;
+            clock = grandparent;
+        }
+        return clock;
+    }
+
+    /**
+     * @param clock The {@link Clock} of a tree
+     * @return The current time of the clock
+     */
+    static long current(Clock clock) {
+        return root(clock).time.get();
+    }
+
+    /**
+     * Invalidates the cached hashes of a tree if a container whose hash is still valid is
+     * about to be modified. Called before every modification of a container.
+     *
+     * @param clock  The {@link Clock} of the tree of the container, or {@code null} if it
+     *               was never hashed
+     * @param hashed The time the hash of the container was computed at, or {@link #NONE}
+     */
+    static void invalidate(Clock clock, long hashed) {
+        if (clock == null || hashed == NONE)
+            return;
+        Clock root = root(clock);
+        if (hashed == root.time.get())
+            root.time.compareAndSet(hashed, hashed + 1);
+    }
+
+    /**
+     * Joins two clocks, once a container of one tree is found in the other. The times of
+     * two clocks can't be compared, so the hashes cached in both trees are invalidated.
+     *
+     * @param clock The {@link Clock} of a tree
+     * @param other The {@link Clock} of the other tree
+     */
+    static synchronized void join(Clock clock, Clock other) {
+        Clock root = root(clock);
+        Clock joined = root(other);
+        if (root == joined)
+            return;
+        long time = Math.max(root.time.get(), joined.time.get()) + 1;
+        joined.parent = root;
+        root.time.set(time);
+    }
+
+    /**
+     * Moves a child into the tree of a parent being hashed, so that modifying the child
+     * invalidates the hash of the parent
+     *
+     * @param element The child
+     * @param clock   The {@link Clock} of the tree of the parent
+     * @return Whether the child is tracked, which objects and arrays whose storage is
+     * replaced by a subclass aren't
+     */
+    static boolean adopt(YamlElement element, Clock clock) {
+        if (element instanceof FrozenYamlObject || element instanceof SnapshotYamlObject
+                || element instanceof FrozenYamlArray || element instanceof SnapshotYamlArray)
+            return true;
+        if (element instanceof YamlObject) {
+            YamlObject object = (YamlObject) element;
+            // the entries of a shared object are copied into its own map, which isn't needed to hash it
+            Map<String, YamlElement> map = object instanceof SharedYamlObject ? object.map : object.map();
+            if (!(map instanceof CompactOrderedMap))
+                return false;
+            ((CompactOrderedMap) map).join(clock);
+        } else if (element instanceof YamlArray) {
+            YamlArray array = (YamlArray) element;
+            // dense arrays keep the clock in the list they inflate into
+            List<YamlElement> list = array instanceof SharedYamlArray || array instanceof DenseYamlArray
+                    ? array.storage() : array.list();
+            if (!(list instanceof CompactList))
+                return false;
+            ((CompactList) list).join(clock);
+        }
+        return true;
+    }
+
+    /**
+     * Passes the time the hash of a shared object or array was used at on to one of its
+     * children, when the children are copied. The hash of a parent computed from that of
+     * the shared object or array depends on those of the children as well.
+     *
+     * @param element The child, which may be shared as well
+     * @param clock   The {@link Clock} of the tree of the parent, or {@code null} if it
+     *                was never hashed
+     * @param hashed  The time the hash of the parent was used at, or {@link #NONE}
+     */
+    static void inherit(YamlElement element, Clock clock, long hashed) {
+        if (clock == null || hashed == NONE)
+            return;
+        adopt(element, clock);
+        if (element instanceof SharedYamlObject)
+            ((SharedYamlObject) element).hashedAt(hashed);
+        else if (element instanceof SharedYamlArray)
+            ((SharedYamlArray) element).hashedAt(hashed);
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.fusionyaml.library.object;
+
+import org.fusionyaml.library.internal.LazyConstructor;
+
+import java.util.List;
+
+/**
+ * A {@link YamlArray} whose elements are only built from the parsed sequence
+ * the first time they are accessed. Nested mappings and sequences are lazy as
+ * well.
+ * <p>
+ * Once built, a {@link LazyYamlArray} behaves exactly like a {@link YamlArray}.
+ */
+public class LazyYamlArray extends YamlArray {
+
+    // Where the elements are built from, or null once they are built
+    private volatile LazyConstructor.Span span;
+
+    /**
+     * @param span The {@link LazyConstructor.Span} of the sequence the elements are built from
+     */
+    public LazyYamlArray(LazyConstructor.Span span) {
+        this.span = span;
+    }
+
+    @Override
+    protected List<YamlElement> list() {
+        if (span != null)
+            materialize();
+        return super.list();
+    }
+
+    private synchronized void materialize() {
+        if (span == null)
+            return;
+        // the elements were there since the array was created, so snapshots taken before they were built still see them
+        CompactList elements = (CompactList) super.list();
+        long created = elements.version();
+        elements.restamp(Versions.current());
+        LazyConstructor.constructSequence(span, elements);
+        elements.restamp(created);
+        for (YamlElement element : elements)
+            Versions.backdate(element, created);
+        span = null;
+    }
+
+    /**
+     * Stamps the elements with the time the array they were built in was created
+     *
+     * @param created The time
+     */
+    void backdate(long created) {
+        ((CompactList) super.list()).restamp(created);
+    }
+
+    /**
+     * @return Whether the elements of this array have been built or not
+     */
+    public boolean isMaterialized() {
+        return span == null;
+    }
+
+    /**
+     * Copies all of the elements and the children contained herein. If the
+     * elements haven't been built yet, the copy is also lazy.
+     *
+     * @return A copy of this {@link YamlElement}
+     */
+    @Override
+    public YamlArray deepCopy() {
+        LazyConstructor.Span span = this.span;
+        return span != null ? new LazyYamlArray(span) : super.deepCopy();
+    }
+
+}
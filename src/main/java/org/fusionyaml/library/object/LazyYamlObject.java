@@ -0,0 +1,78 @@
+package org.fusionyaml.library.object;
+
+import org.fusionyaml.library.internal.LazyConstructor;
+
+import java.util.Map;
+
+/**
+ * A {@link YamlObject} whose entries are only built from the parsed mapping
+ * the first time they are accessed, be it through {@link #get(String)},
+ * {@link #keySet()}, {@link #forEach(java.util.function.BiConsumer)} or any other
+ * method. Nested mappings and sequences are lazy as well, so loading a large
+ * document only builds the parts of it that are used.
+ * <p>
+ * Once built, a {@link LazyYamlObject} behaves exactly like a {@link YamlObject}.
+ */
+public class LazyYamlObject extends YamlObject {
+
+    // Where the entries are built from, or null once they are built
+    private volatile LazyConstructor.Span span;
+
+    /**
+     * @param span The {@link LazyConstructor.Span} of the mapping the entries are built from
+     */
+    public LazyYamlObject(LazyConstructor.Span span) {
+        super(span.size());
+        this.span = span;
+    }
+
+    @Override
+    protected Map<String, YamlElement> map() {
+        if (span != null)
+            materialize();
+        return map;
+    }
+
+    private synchronized void materialize() {
+        if (span == null)
+            return;
+        // the entries were there since the object was created, so snapshots taken before they were built still see them
+        CompactOrderedMap entries = (CompactOrderedMap) map;
+        long created = entries.version();
+        entries.restamp(Versions.current());
+        LazyConstructor.constructMapping(span, entries);
+        entries.restamp(created);
+        for (YamlElement value : entries.values())
+            Versions.backdate(value, created);
+        span = null;
+    }
+
+    /**
+     * Stamps the entries with the time the object they were built in was created
+     *
+     * @param created The time
+     */
+    void backdate(long created) {
+        ((CompactOrderedMap) map).restamp(created);
+    }
+
+    /**
+     * @return Whether the entries of this object have been built or not
+     */
+    public boolean isMaterialized() {
+        return span == null;
+    }
+
+    /**
+     * Copies all of the elements and the children contained herein. If the
+     * entries haven't been built yet, the copy is also lazy.
+     *
+     * @return A copy of this {@link YamlElement}
+     */
+    @Override
+    public YamlObject deepCopy() {
+        LazyConstructor.Span span = this.span;
+        return span != null ? new LazyYamlObject(span) : super.deepCopy();
+    }
+
+}
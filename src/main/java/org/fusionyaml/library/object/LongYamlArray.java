@@ -0,0 +1,123 @@
+package org.fusionyaml.library.object;
+
+import java.util.Arrays;
+
+/**
+ * A {@link DenseYamlArray} of integers, stored in a {@code long[]}. Like the integers
+ * of a loaded document, a value that fits in an {@code int} is read back as an
+ * {@link Integer} and any other value as a {@link Long}.
+ */
+public class LongYamlArray extends DenseYamlArray {
+
+    private long[] values;
+
+    /**
+     * Creates an empty {@link LongYamlArray}
+     */
+    public LongYamlArray() {
+        this(MIN_SIZE);
+    }
+
+    /**
+     * Creates an empty {@link LongYamlArray} with room for the given number of values
+     *
+     * @param capacity The number of values the array can hold before growing
+     */
+    public LongYamlArray(int capacity) {
+        super(0);
+        this.values = new long[capacity];
+    }
+
+    /**
+     * @param values The values, which are copied
+     */
+    public LongYamlArray(long... values) {
+        super(values.length);
+        this.values = values.clone();
+    }
+
+    // Shares the values, which are never modified again
+    private LongYamlArray(long[] values, int size) {
+        super(size);
+        this.values = values;
+    }
+
+    /**
+     * Gets the value at the index without creating a {@link YamlPrimitive}
+     *
+     * @param index The index
+     * @return The value
+     */
+    public long getLong(int index) {
+        if (!isDense())
+            return get(index).getAsYamlPrimitive().getAsLong();
+        if (index < 0 || index >= size())
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        return values[index];
+    }
+
+    /**
+     * Adds a value without creating a {@link YamlPrimitive}, unless the values are no
+     * longer stored densely
+     *
+     * @param value The value
+     */
+    public void add(long value) {
+        add(YamlPrimitive.of(value));
+    }
+
+    /**
+     * @return A copy of the values
+     */
+    public long[] toLongArray() {
+        if (!isDense()) {
+            long[] copy = new long[size()];
+            for (int i = 0; i < copy.length; i++)
+                copy[i] = getLong(i);
+            return copy;
+        }
+        return Arrays.copyOf(values, size());
+    }
+
+    @Override
+    YamlPrimitive element(int index) {
+        long value = values[index];
+        return value == (int) value ? YamlPrimitive.of((int) value) : YamlPrimitive.of(value);
+    }
+
+    @Override
+    boolean accepts(YamlPrimitive primitive) {
+        return primitive.kind() == YamlPrimitive.INT || primitive.kind() == YamlPrimitive.LONG;
+    }
+
+    @Override
+    void store(int index, YamlPrimitive primitive) {
+        values[index] = primitive.bits();
+    }
+
+    @Override
+    int capacity() {
+        return values.length;
+    }
+
+    @Override
+    void resize(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    void move(int from, int to, int length) {
+        System.arraycopy(values, from, values, to, length);
+    }
+
+    @Override
+    DenseYamlArray frozen() {
+        return new LongYamlArray(values, size());
+    }
+
+    @Override
+    DenseYamlArray copy() {
+        return new LongYamlArray(Arrays.copyOf(values, size()));
+    }
+
+}
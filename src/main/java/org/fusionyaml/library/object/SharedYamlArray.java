@@ -0,0 +1,140 @@
+package org.fusionyaml.library.object;
+
+import java.util.List;
+
+/**
+ * A {@link YamlArray} whose elements are those of a frozen array shared with every
+ * other place an equal array was found, until it is modified. Its scalars are read
+ * straight from the shared array, and its elements are only copied, one level at a
+ * time, the first time anything else is done with them. Nested objects and arrays
+ * are shared the same way.
+ * <p>
+ * Once copied, a {@link SharedYamlArray} behaves exactly like a {@link YamlArray}.
+ *
+ * @see ElementInterner
+ */
+final class SharedYamlArray extends YamlArray {
+
+    // The array the elements are copied from, or null once they are copied
+    private volatile FrozenYamlArray shared;
+    // the time of the hash clock the hash of the shared array was last used at
+    private volatile long hashed = Hashes.NONE;
+
+    /**
+     * @param shared The frozen array holding the elements
+     */
+    SharedYamlArray(FrozenYamlArray shared) {
+        super(0);
+        this.shared = shared;
+    }
+
+    @Override
+    protected List<YamlElement> list() {
+        if (shared != null)
+            copy();
+        return super.list();
+    }
+
+    private synchronized void copy() {
+        FrozenYamlArray shared = this.shared;
+        if (shared == null)
+            return;
+        // the elements were there since the array was created, so snapshots taken before they were copied still see them
+        CompactList elements = (CompactList) super.list();
+        long created = elements.version();
+        // the clock of the tree the shared array was hashed in, which the children join
+        Hashes.Clock clock = hashed != Hashes.NONE ? elements.clock() : null;
+        elements.restamp(Versions.current());
+        for (YamlElement element : shared)
+            elements.add(ElementInterner.share(element));
+        elements.restamp(created);
+        for (YamlElement element : elements) {
+            Versions.backdate(element, created);
+            Hashes.inherit(element, clock, hashed);
+        }
+        // parents hashed while the elements were shared depend on their hash, which is still the same
+        elements.cacheHash(shared.hashCode(), hashed);
+        this.shared = null;
+    }
+
+    /**
+     * Stamps the elements with the time the array they were copied in was created
+     *
+     * @param created The time
+     */
+    void backdate(long created) {
+        ((CompactList) super.list()).restamp(created);
+    }
+
+    /**
+     * @return The frozen array holding the elements, or {@code null} if they were copied
+     */
+    FrozenYamlArray shared() {
+        return shared;
+    }
+
+    /**
+     * @param array An array
+     * @return The frozen array holding the elements of the array, if it is a
+     * {@link SharedYamlArray} whose elements weren't copied, or the array itself
+     */
+    static YamlArray unwrap(YamlArray array) {
+        if (array instanceof SharedYamlArray) {
+            FrozenYamlArray shared = ((SharedYamlArray) array).shared;
+            if (shared != null)
+                return shared;
+        }
+        return array;
+    }
+
+    @Override
+    public YamlElement get(int index) {
+        FrozenYamlArray shared = this.shared;
+        if (shared != null) {
+            // scalars are immutable, so they don't need the elements to be copied
+            YamlElement element = shared.get(index);
+            if (!(element instanceof YamlObject || element instanceof YamlArray))
+                return element;
+        }
+        return super.get(index);
+    }
+
+    @Override
+    public int size() {
+        FrozenYamlArray shared = this.shared;
+        return shared != null ? shared.size() : super.size();
+    }
+
+    /**
+     * Records that the hash of the shared array was used at the given time, by the parent
+     * this array was copied from
+     *
+     * @param hashed The time of the hash clock
+     */
+    void hashedAt(long hashed) {
+        this.hashed = hashed;
+    }
+
+    @Override
+    public int hashCode() {
+        FrozenYamlArray shared = this.shared;
+        if (shared != null) {
+            hashed = Hashes.current(((CompactList) super.list()).clock());
+            return shared.hashCode();
+        }
+        return super.hashCode();
+    }
+
+    @Override
+    public YamlArray freeze() {
+        FrozenYamlArray shared = this.shared;
+        return shared != null ? shared : super.freeze();
+    }
+
+    @Override
+    public YamlArray deepCopy() {
+        FrozenYamlArray shared = this.shared;
+        return shared != null ? new SharedYamlArray(shared) : super.deepCopy();
+    }
+
+}
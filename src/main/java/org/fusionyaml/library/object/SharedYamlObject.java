@@ -0,0 +1,144 @@
+package org.fusionyaml.library.object;
+
+import java.util.Map;
+
+/**
+ * A {@link YamlObject} whose entries are those of a frozen object shared with every
+ * other place an equal object was found, until it is modified. Its scalars are read
+ * straight from the shared object, and its entries are only copied, one level at a
+ * time, the first time anything else is done with them. Nested objects and arrays
+ * are shared the same way.
+ * <p>
+ * Once copied, a {@link SharedYamlObject} behaves exactly like a {@link YamlObject}.
+ *
+ * @see ElementInterner
+ */
+final class SharedYamlObject extends YamlObject {
+
+    // The object the entries are copied from, or null once they are copied
+    private volatile FrozenYamlObject shared;
+    // the time of the hash clock the hash of the shared object was last used at
+    private volatile long hashed = Hashes.NONE;
+
+    /**
+     * @param shared The frozen object holding the entries
+     */
+    SharedYamlObject(FrozenYamlObject shared) {
+        this.shared = shared;
+    }
+
+    @Override
+    protected Map<String, YamlElement> map() {
+        if (shared != null)
+            copy();
+        return map;
+    }
+
+    private synchronized void copy() {
+        FrozenYamlObject shared = this.shared;
+        if (shared == null)
+            return;
+        // the entries were there since the object was created, so snapshots taken before they were copied still see them
+        CompactOrderedMap entries = (CompactOrderedMap) map;
+        long created = entries.version();
+        // the clock of the tree the shared object was hashed in, which the children join
+        Hashes.Clock clock = hashed != Hashes.NONE ? entries.clock() : null;
+        entries.restamp(Versions.current());
+        shared.forEach((k, v) -> entries.put(k, ElementInterner.share(v)));
+        entries.restamp(created);
+        for (YamlElement value : entries.values()) {
+            Versions.backdate(value, created);
+            Hashes.inherit(value, clock, hashed);
+        }
+        // parents hashed while the entries were shared depend on their hash, which is still the same
+        entries.cacheHash(shared.hashCode(), hashed);
+        this.shared = null;
+    }
+
+    /**
+     * Stamps the entries with the time the object they were copied in was created
+     *
+     * @param created The time
+     */
+    void backdate(long created) {
+        ((CompactOrderedMap) map).restamp(created);
+    }
+
+    /**
+     * @return The frozen object holding the entries, or {@code null} if they were copied
+     */
+    FrozenYamlObject shared() {
+        return shared;
+    }
+
+    /**
+     * @param object An object
+     * @return The frozen object holding the entries of the object, if it is a
+     * {@link SharedYamlObject} whose entries weren't copied, or the object itself
+     */
+    static YamlObject unwrap(YamlObject object) {
+        if (object instanceof SharedYamlObject) {
+            FrozenYamlObject shared = ((SharedYamlObject) object).shared;
+            if (shared != null)
+                return shared;
+        }
+        return object;
+    }
+
+    @Override
+    public YamlElement get(String key) {
+        FrozenYamlObject shared = this.shared;
+        if (shared != null) {
+            // scalars are immutable, so they don't need the entries to be copied
+            YamlElement value = shared.get(key);
+            if (value == null || !(value instanceof YamlObject || value instanceof YamlArray))
+                return value;
+        }
+        return super.get(key);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        FrozenYamlObject shared = this.shared;
+        return shared != null ? shared.containsKey(key) : super.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        FrozenYamlObject shared = this.shared;
+        return shared != null ? shared.size() : super.size();
+    }
+
+    /**
+     * Records that the hash of the shared object was used at the given time, by the parent
+     * this object was copied from
+     *
+     * @param hashed The time of the hash clock
+     */
+    void hashedAt(long hashed) {
+        this.hashed = hashed;
+    }
+
+    @Override
+    public int hashCode() {
+        FrozenYamlObject shared = this.shared;
+        if (shared != null) {
+            hashed = Hashes.current(((CompactOrderedMap) map).clock());
+            return shared.hashCode();
+        }
+        return super.hashCode();
+    }
+
+    @Override
+    public YamlObject freeze() {
+        FrozenYamlObject shared = this.shared;
+        return shared != null ? shared : super.freeze();
+    }
+
+    @Override
+    public YamlObject deepCopy() {
+        FrozenYamlObject shared = this.shared;
+        return shared != null ? new SharedYamlObject(shared) : super.deepCopy();
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.fusionyaml.library.object;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A read-only view of a {@link YamlArray} as it was when a snapshot was taken. The
+ * elements are looked up the first time the view is read, and the objects and arrays
+ * among them are returned as views of the same snapshot.
+ *
+ * @see YamlArray#snapshot()
+ */
+final class SnapshotYamlArray extends YamlArray {
+
+    private final YamlArray source;
+    private final Versions.Ticket ticket;
+    private volatile List<YamlElement> elements;
+    // the hash, or 0 until it is computed
+    private int hash;
+
+    SnapshotYamlArray(YamlArray source, Versions.Ticket ticket) {
+        super(0);
+        this.source = source;
+        this.ticket = ticket;
+    }
+
+    @Override
+    protected List<YamlElement> list() {
+        List<YamlElement> elements = this.elements;
+        if (elements == null) {
+            List<YamlElement> state;
+            List<YamlElement> list;
+            if (source instanceof DenseYamlArray) {
+                state = ((DenseYamlArray) source).stateAt(ticket.version);
+            } else if ((list = source.list()) instanceof CompactList) {
+                state = ((CompactList) list).stateAt(ticket.version);
+                if (state == null)
+                    state = Collections.emptyList();
+            } else {
+                // a list replaced by a subclass isn't versioned, so it is copied when first read
+                state = new CompactList(source.deepCopy().getList());
+            }
+            this.elements = elements = new Elements(state);
+        }
+        return elements;
+    }
+
+    @Override
+    public int hashCode() {
+        // the elements never change, so the hash is only computed once
+        int hash = this.hash;
+        if (hash == 0)
+            this.hash = hash = super.hashCode();
+        return hash;
+    }
+
+    @Override
+    boolean isHashCached() {
+        return hash != 0;
+    }
+
+    @Override
+    public YamlArray snapshot() {
+        return this;
+    }
+
+    // The elements of the snapshot, whose objects and arrays are returned as views
+    private final class Elements extends AbstractList<YamlElement> implements RandomAccess {
+
+        private final List<YamlElement> state;
+
+        private Elements(List<YamlElement> state) {
+            this.state = state;
+        }
+
+        @Override
+        public YamlElement get(int index) {
+            return SnapshotYamlObject.view(state.get(index), ticket);
+        }
+
+        @Override
+        public int size() {
+            return state.size();
+        }
+
+    }
+
+}
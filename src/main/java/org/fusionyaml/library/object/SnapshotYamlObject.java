@@ -0,0 +1,254 @@
+package org.fusionyaml.library.object;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * A read-only view of a {@link YamlObject} as it was when a snapshot was taken. The
+ * entries are looked up the first time the view is read, and the objects and arrays
+ * found in them are returned as views of the same snapshot.
+ *
+ * @see YamlObject#snapshot()
+ */
+final class SnapshotYamlObject extends YamlObject {
+
+    private final YamlObject source;
+    private final Versions.Ticket ticket;
+    private volatile Map<String, YamlElement> entries;
+    // the hash, or 0 until it is computed
+    private int hash;
+
+    SnapshotYamlObject(YamlObject source, Versions.Ticket ticket) {
+        this.source = source;
+        this.ticket = ticket;
+    }
+
+    /**
+     * @param element An element of a snapshot
+     * @param ticket  The {@link Versions.Ticket} of the snapshot
+     * @return The element, or a view of it if it is an object or an array
+     */
+    static YamlElement view(YamlElement element, Versions.Ticket ticket) {
+        if (element instanceof SnapshotYamlObject || element instanceof SnapshotYamlArray)
+            return element;
+        if (element instanceof YamlObject)
+            return new SnapshotYamlObject((YamlObject) element, ticket);
+        if (element instanceof YamlArray)
+            return new SnapshotYamlArray((YamlArray) element, ticket);
+        return element;
+    }
+
+    @Override
+    protected Map<String, YamlElement> map() {
+        Map<String, YamlElement> entries = this.entries;
+        if (entries == null) {
+            Map<String, YamlElement> map = source.map();
+            if (map instanceof CompactOrderedMap) {
+                CompactOrderedMap state = ((CompactOrderedMap) map).stateAt(ticket.version);
+                entries = new Entries(state != null ? state : new CompactOrderedMap());
+            } else {
+                // a map replaced by a subclass isn't versioned, so it is copied when first read
+                CompactOrderedMap copy = new CompactOrderedMap(map.size());
+                map.forEach((k, v) -> copy.put(k, v.deepCopy()));
+                entries = new Entries(copy);
+            }
+            this.entries = entries;
+        }
+        return entries;
+    }
+
+    @Override
+    public YamlElement get(int index) {
+        map();
+        return view(((Entries) entries).state.valueAt(index), ticket);
+    }
+
+    @Override
+    public int hashCode() {
+        // the entries never change, so the hash is only computed once
+        int hash = this.hash;
+        if (hash == 0)
+            this.hash = hash = super.hashCode();
+        return hash;
+    }
+
+    @Override
+    boolean isHashCached() {
+        return hash != 0;
+    }
+
+    @Override
+    public YamlObject snapshot() {
+        return this;
+    }
+
+    /**
+     * @param object An object
+     * @return Whether this is a snapshot of the object
+     */
+    boolean isSnapshotOf(YamlObject object) {
+        return source == object;
+    }
+
+    /**
+     * Calls the action with each path changed in the source since the snapshot was taken,
+     * as {@link YamlObject#diff(YamlObject, BiConsumer)} does. An object or an array not
+     * modified since only needs its children to be walked through, so only those that
+     * were are compared.
+     *
+     * @param action The action called with each path that changed, and its new value
+     */
+    void diffSource(BiConsumer<List<String>, YamlElement> action) {
+        diff(source, ticket, new ArrayList<>(), action);
+    }
+
+    private static void diff(YamlObject object, Versions.Ticket ticket, List<String> path,
+                             BiConsumer<List<String>, YamlElement> action) {
+        if (isUntouched(object))
+            return;
+        if (!(object.map instanceof CompactOrderedMap)) {
+            // a map replaced by a subclass isn't versioned
+            YamlObject.diff(view(object, ticket).getAsYamlObject(), object, path, action);
+            return;
+        }
+        CompactOrderedMap entries = (CompactOrderedMap) object.map;
+        if (entries.version() < ticket.version) {
+            // the entries are still those of the snapshot, but their children may have changed
+            entries.forEach((k, v) -> diffEntry(k, v, v, ticket, path, action));
+            return;
+        }
+        CompactOrderedMap state = entries.stateAt(ticket.version);
+        if (state == null)
+            state = new CompactOrderedMap();
+        state.forEach((k, v) -> diffEntry(k, v, entries.get(k), ticket, path, action));
+        CompactOrderedMap older = state;
+        entries.forEach((k, v) -> {
+            if (older.containsKey(k))
+                return;
+            path.add(k);
+            action.accept(new ArrayList<>(path), v);
+            path.remove(path.size() - 1);
+        });
+    }
+
+    private static void diffEntry(String key, YamlElement older, YamlElement newer, Versions.Ticket ticket,
+                                  List<String> path, BiConsumer<List<String>, YamlElement> action) {
+        path.add(key);
+        if (newer == null)
+            action.accept(new ArrayList<>(path), null);
+        else if (older == newer) {
+            // still the same object or array, which may have been modified since
+            if (newer instanceof YamlObject)
+                diff((YamlObject) newer, ticket, path, action);
+            else if (isChanged(newer, ticket))
+                action.accept(new ArrayList<>(path), newer);
+        } else if (older instanceof YamlObject && newer instanceof YamlObject)
+            YamlObject.diff((YamlObject) view(older, ticket), (YamlObject) newer, path, action);
+        else if (!view(older, ticket).equals(newer))
+            action.accept(new ArrayList<>(path), newer);
+        path.remove(path.size() - 1);
+    }
+
+    // Whether an element held by the source when the snapshot was taken was modified since
+    private static boolean isChanged(YamlElement element, Versions.Ticket ticket) {
+        if (element instanceof YamlObject) {
+            YamlObject object = (YamlObject) element;
+            if (isUntouched(object))
+                return false;
+            if (object.map instanceof CompactOrderedMap && ((CompactOrderedMap) object.map).version() < ticket.version) {
+                for (YamlElement value : object.map.values()) {
+                    if (isChanged(value, ticket))
+                        return true;
+                }
+                return false;
+            }
+        } else if (element instanceof YamlArray) {
+            YamlArray array = (YamlArray) element;
+            if (array instanceof FrozenYamlArray || array instanceof SnapshotYamlArray
+                    || array instanceof SharedYamlArray && ((SharedYamlArray) array).shared() != null
+                    || array instanceof LazyYamlArray && !((LazyYamlArray) array).isMaterialized())
+                return false;
+            List<YamlElement> list = array.list();
+            if (!(array instanceof DenseYamlArray) && list instanceof CompactList && ((CompactList) list).version() < ticket.version) {
+                for (YamlElement value : list) {
+                    if (isChanged(value, ticket))
+                        return true;
+                }
+                return false;
+            }
+        } else return false;
+        return !view(element, ticket).equals(element);
+    }
+
+    // Objects that were never modified, since they can't be or weren't even built yet
+    private static boolean isUntouched(YamlObject object) {
+        return object instanceof FrozenYamlObject || object instanceof SnapshotYamlObject
+                || object instanceof SharedYamlObject && ((SharedYamlObject) object).shared() != null
+                || object instanceof LazyYamlObject && !((LazyYamlObject) object).isMaterialized();
+    }
+
+    // The entries of the snapshot, whose objects and arrays are returned as views
+    private final class Entries extends AbstractMap<String, YamlElement> {
+
+        private final CompactOrderedMap state;
+
+        private Entries(CompactOrderedMap state) {
+            this.state = state;
+        }
+
+        @Override
+        public YamlElement get(Object key) {
+            YamlElement value = state.get(key);
+            return value == null ? null : view(value, ticket);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return state.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return state.size();
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return Collections.unmodifiableSet(state.keySet());
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super String, ? super YamlElement> action) {
+            state.forEach((k, v) -> action.accept(k, view(v, ticket)));
+        }
+
+        @Override
+        public Set<Entry<String, YamlElement>> entrySet() {
+            return new AbstractSet<Entry<String, YamlElement>>() {
+                @Override
+                public Iterator<Entry<String, YamlElement>> iterator() {
+                    Iterator<Entry<String, YamlElement>> iterator = state.entrySet().iterator();
+                    return new Iterator<Entry<String, YamlElement>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, YamlElement> next() {
+                            Entry<String, YamlElement> entry = iterator.next();
+                            return new SimpleImmutableEntry<>(entry.getKey(), view(entry.getValue(), ticket));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return state.size();
+                }
+            };
+        }
+
+    }
+
+}
@@ -0,0 +1,167 @@
+package org.fusionyaml.library.object;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The clock snapshots of {@link YamlObject}s and {@link YamlArray}s are taken with.
+ * <p>
+ * Every container records the time its contents were last copied. Taking a snapshot
+ * advances the clock, and a container written to after that keeps its previous contents
+ * in its history before changing them, as long as a snapshot still needs them. A snapshot
+ * taken at a given time then reads, in each container, the latest contents older than
+ * itself. Nothing is copied when a snapshot is taken, and only the containers modified
+ * afterwards are, one level at a time.
+ * <p>
+ * The snapshots still reachable are tracked through weak references, so that contents
+ * no snapshot can read anymore are dropped from the histories.
+ */
+final class Versions {
+
+    private static final AtomicLong CLOCK = new AtomicLong();
+    // the snapshots still reachable, by the time they were taken at
+    private static final ConcurrentSkipListMap<Long, TicketReference> LIVE = new ConcurrentSkipListMap<>();
+    private static final ReferenceQueue<Ticket> QUEUE = new ReferenceQueue<>();
+
+    private Versions() {
+    }
+
+    /**
+     * @return The current time of the clock
+     */
+    static long current() {
+        return CLOCK.get();
+    }
+
+    /**
+     * Advances the clock
+     *
+     * @return The {@link Ticket} of the snapshot, which has to be kept as long as
+     * the snapshot is used
+     */
+    static Ticket snapshot() {
+        expunge();
+        Ticket ticket = new Ticket(CLOCK.incrementAndGet());
+        LIVE.put(ticket.version, new TicketReference(ticket));
+        return ticket;
+    }
+
+    /**
+     * @param version The time contents were copied at
+     * @return Whether a snapshot still reachable was taken after that time, and reads
+     * the contents
+     */
+    static boolean isShared(long version) {
+        expunge();
+        return LIVE.higherKey(version) != null;
+    }
+
+    /**
+     * Adds contents replaced at the current time to a history, and drops the ones no
+     * snapshot reads anymore
+     *
+     * @param history  The history, latest contents first
+     * @param contents The contents replaced
+     * @param version  The time the contents were copied at
+     * @param <T>      The type of the contents
+     * @return The new history
+     */
+    static <T> State<T> push(State<T> history, T contents, long version) {
+        return new State<>(contents, version, prune(history, version));
+    }
+
+    // Keeps the contents read by a snapshot taken after they were copied, and before they were replaced
+    private static <T> State<T> prune(State<T> history, long replaced) {
+        if (history == null)
+            return null;
+        State<T> older = prune(history.older, history.version);
+        if (!LIVE.subMap(history.version, false, replaced, true).isEmpty())
+            return older == history.older ? history : new State<>(history.contents, history.version, older);
+        return older;
+    }
+
+    /**
+     * Stamps a lazy or shared object or array built while materializing a container with the
+     * time that container was created, since the contents of both were there all along
+     *
+     * @param element The element built
+     * @param created The time the container was created
+     */
+    static void backdate(YamlElement element, long created) {
+        if (element instanceof LazyYamlObject)
+            ((LazyYamlObject) element).backdate(created);
+        else if (element instanceof LazyYamlArray)
+            ((LazyYamlArray) element).backdate(created);
+        else if (element instanceof SharedYamlObject)
+            ((SharedYamlObject) element).backdate(created);
+        else if (element instanceof SharedYamlArray)
+            ((SharedYamlArray) element).backdate(created);
+    }
+
+    private static void expunge() {
+        Reference<? extends Ticket> reference;
+        while ((reference = QUEUE.poll()) != null)
+            LIVE.remove(((TicketReference) reference).version, reference);
+    }
+
+    /**
+     * Held by every element of a snapshot, so that the snapshot is tracked as reachable
+     * for as long as any part of it is
+     */
+    static final class Ticket {
+
+        final long version;
+
+        private Ticket(long version) {
+            this.version = version;
+        }
+
+    }
+
+    private static final class TicketReference extends WeakReference<Ticket> {
+
+        private final long version;
+
+        private TicketReference(Ticket ticket) {
+            super(ticket, QUEUE);
+            this.version = ticket.version;
+        }
+
+    }
+
+    /**
+     * Contents a container held before it was modified, which are never modified again
+     *
+     * @param <T> The type of the contents
+     */
+    static final class State<T> {
+
+        final T contents;
+        final long version;
+        final State<T> older;
+
+        private State(T contents, long version, State<T> older) {
+            this.contents = contents;
+            this.version = version;
+            this.older = older;
+        }
+
+        /**
+         * @param history The history, latest contents first
+         * @param version The time of a snapshot
+         * @param <T>     The type of the contents
+         * @return The latest contents in the history older than the snapshot, or {@code null}
+         */
+        static <T> T find(State<T> history, long version) {
+            for (State<T> state = history; state != null; state = state.older)
+                if (state.version < version)
+                    return state.contents;
+            return null;
+        }
+
+    }
+
+}
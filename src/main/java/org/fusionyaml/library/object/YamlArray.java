@@ -29,17 +29,23 @@ public class YamlArray implements YamlElement, Iterable<YamlElement> {
     /**
      * The {@link List} of {@link YamlElement}s
      */
-    private LinkedList<YamlElement> list = new LinkedList<>();
+    private List<YamlElement> list;
 
     /**
      * This constructor requires no objects to be passed into their parameters. An
-     * empty {@link LinkedList} is created upon initialization.
+     * empty {@link List} is created upon initialization.
      */
     public YamlArray() {
+        this(0);
     }
 
+    /**
+     * Creates an empty {@link YamlArray} with room for the given number of elements
+     *
+     * @param capacity The number of elements the array can hold before growing
+     */
     public YamlArray(int capacity) {
-        this.list = new LinkedList<>(new ArrayList<>(capacity));
+        this.list = new CompactList(capacity);
     }
 
     /**
@@ -47,7 +53,7 @@ public class YamlArray implements YamlElement, Iterable<YamlElement> {
      * passed into the constructor. The {@link Collection} containing {@link YamlElement}s
      * in this object will be set equal to the value passed into the constructor.
      * <p>
-     * It is encouraged to pass in a {@link LinkedList} object for predictable iteration
+     * It is encouraged to pass in a {@link List} object for predictable iteration
      * order.
      *
      * @param list The {@link List} of {@link YamlElement}s
@@ -61,13 +67,46 @@ public class YamlArray implements YamlElement, Iterable<YamlElement> {
      * passed into the constructor. The {@link Collection} containing {@link YamlElement}s
      * in this object will be set equal to the value passed into the constructor.
      * <p>
-     * It is encouraged to pass in a {@link LinkedList} object for predictable iteration
+     * It is encouraged to pass in a {@link List} object for predictable iteration
      * order.
      *
      * @param list The {@link Collection} of {@link YamlElement}s
      */
     public YamlArray(Collection<YamlElement> list) {
-        this.list = new LinkedList<>(list);
+        this.list = new CompactList(list);
+    }
+
+    /**
+     * Creates a {@link YamlArray} holding the elements. A long enough array whose
+     * elements are all integers, all doubles or all booleans is stored in a
+     * {@link LongYamlArray}, a {@link DoubleYamlArray} or a {@link BooleanYamlArray}
+     * respectively, which hold the values unboxed.
+     *
+     * @param elements The {@link Collection} of {@link YamlElement}s
+     * @return The {@link YamlArray}
+     */
+    public static YamlArray of(Collection<YamlElement> elements) {
+        YamlArray dense = DenseYamlArray.tryCreate(elements);
+        return dense != null ? dense : new YamlArray(elements);
+    }
+
+    /**
+     * Gets the {@link List} the elements are stored in. Every access to the
+     * elements goes through this method, so that subclasses can build the
+     * {@link List} when it is first needed.
+     *
+     * @return The {@link List} of {@link YamlElement}s
+     */
+    protected List<YamlElement> list() {
+        return list;
+    }
+
+    /**
+     * @return The {@link List} this class stores the elements in, without building it,
+     * which subclasses may not use
+     */
+    final List<YamlElement> storage() {
+        return list;
     }
 
     /**
@@ -76,7 +115,7 @@ public class YamlArray implements YamlElement, Iterable<YamlElement> {
      * @param value The {@link YamlElement} value
      */
     public void add(@NotNull YamlElement value) {
-        list.add(value);
+        list().add(value);
     }
 
     /**
@@ -85,7 +124,7 @@ public class YamlArray implements YamlElement, Iterable<YamlElement> {
      * @param value The {@code boolean} value
      */
     public void add(boolean value) {
-        list.add(new YamlPrimitive(value));
+        add(new YamlPrimitive(value));
     }
 
     /**
@@ -94,7 +133,7 @@ public class YamlArray implements YamlElement, Iterable<YamlElement> {
      * @param value The {@link String} value
      */
     public void add(@NotNull String value) {
-        list.add(new YamlPrimitive(value));
+        add(new YamlPrimitive(value));
     }
 
     /**
@@ -103,7 +142,7 @@ public class YamlArray implements YamlElement, Iterable<YamlElement> {
      * @param number The {@link String} value
      */
     public void add(@NotNull Number number) {
-        list.add(new YamlPrimitive(number));
+        add(new YamlPrimitive(number));
     }
     
     /**
@@ -113,7 +152,7 @@ public class YamlArray implements YamlElement, Iterable<YamlElement> {
      *              is found.
      */
     public void remove(int index) {
-        list.remove(index);
+        list().remove(index);
     }
     
     /**
@@ -124,7 +163,7 @@ public class YamlArray implements YamlElement, Iterable<YamlElement> {
      * @param value The value
      */
     public void set(int index, YamlElement value) {
-        list.set(index, value);
+        list().set(index, value);
     }
     
     /**
@@ -164,7 +203,7 @@ public class YamlArray implements YamlElement, Iterable<YamlElement> {
      * @return The {@link Collection} of {@link YamlElement}s
      */
     public Collection<YamlElement> getList() {
-        return list;
+        return list();
     }
     
     /**
@@ -175,15 +214,52 @@ public class YamlArray implements YamlElement, Iterable<YamlElement> {
     @NotNull
     @Override
     public Iterator<YamlElement> iterator() {
-        return list.iterator();
+        return list().iterator();
     }
 
     public int size() {
-        return list.size();
+        return list().size();
     }
 
     public YamlElement get(int index) {
-        return list.get(index);
+        return list().get(index);
+    }
+
+    /**
+     * Takes a snapshot of this array in constant time. The snapshot is a read-only
+     * {@link YamlArray} holding the elements this array holds now, down to the deepest
+     * children, and it isn't affected by any later change to this array. It can be read
+     * from any thread while this array is modified, as long as it was taken while the
+     * array wasn't being modified.
+     * <p>
+     * Nothing is copied when the snapshot is taken. Instead, each array and object of
+     * the tree modified afterwards copies its own level of entries the first time it is
+     * modified, and keeps the previous ones for as long as the snapshot is reachable.
+     * Modifying the snapshot throws an {@link UnsupportedOperationException}.
+     *
+     * @return The snapshot
+     */
+    public YamlArray snapshot() {
+        return new SnapshotYamlArray(this, Versions.snapshot());
+    }
+
+    /**
+     * Freezes this array into an immutable {@link YamlArray}, whose objects and arrays
+     * are frozen as well. Its elements are stored in an array sized to fit them, or in
+     * an array of primitives if they are all integers, all doubles or all booleans, and
+     * it can be read from any number of threads without locking or copying it. Modifying
+     * it throws an {@link UnsupportedOperationException}, and {@link #deepCopy()} turns
+     * it back into a regular array.
+     * <p>
+     * Unlike {@link #snapshot()}, freezing copies the whole tree, so it must not be
+     * modified while it is frozen. A tree shared with other threads can be frozen
+     * through a snapshot of it instead.
+     *
+     * @return The frozen array
+     */
+    @Override
+    public YamlArray freeze() {
+        return FrozenYamlArray.of(this);
     }
 
     /**
@@ -195,14 +271,53 @@ public class YamlArray implements YamlElement, Iterable<YamlElement> {
     @Override
     public YamlArray deepCopy() {
         YamlArray array = new YamlArray();
-        list.forEach(e -> array.add(e.deepCopy()));
+        list().forEach(e -> array.add(e.deepCopy()));
         return array;
     }
     
+    /**
+     * Compares the elements of this array with those of another one, down to the deepest
+     * children. If the hashes of both are cached, they are compared first, so that arrays
+     * that differ are usually told apart without reading their elements.
+     *
+     * @param obj The other array
+     * @return Whether the other array holds elements equal to these, in the same order
+     */
     @Override
     public boolean equals(Object obj) {
+        if (obj == this) return true;
         if (!(obj instanceof YamlArray)) return false;
-        YamlArray array = (YamlArray) obj;
-        return list.equals(array.list);
+        // occurrences of an array shared while loading are compared through it, without being copied
+        YamlArray self = SharedYamlArray.unwrap(this);
+        YamlArray array = SharedYamlArray.unwrap((YamlArray) obj);
+        if (array == self) return true;
+        int size = self.size();
+        if (size != array.size()) return false;
+        // hashes are only compared when both are cached, computing them would read every element anyway
+        if (self.isHashCached() && array.isHashCached() && self.hashCode() != array.hashCode()) return false;
+        for (int i = 0; i < size; i++)
+            if (!Objects.equals(self.get(i), array.get(i))) return false;
+        return true;
+    }
+
+    /**
+     * Gets the structural hash of this array, computed from the hashes of its elements as
+     * for any {@link List}. The hash is cached until this array or one of its children is
+     * modified, so that it can be used as a key in hash tables and compared in constant
+     * time. Frozen arrays keep their hash for good.
+     *
+     * @return The hash
+     */
+    @Override
+    public int hashCode() {
+        return list().hashCode();
+    }
+
+    /**
+     * @return Whether the hash of this array is cached and still valid, so that comparing
+     * it costs nothing
+     */
+    boolean isHashCached() {
+        return list instanceof CompactList && ((CompactList) list).isHashCached();
     }
 }
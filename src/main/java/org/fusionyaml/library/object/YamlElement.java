@@ -29,6 +29,19 @@ public interface YamlElement {
      */
     YamlElement deepCopy();
 
+    /**
+     * Converts this {@link YamlElement} into an immutable one, which can be shared
+     * between threads without locking or copying it. Objects and arrays are copied
+     * once into a compact form that rejects any modification with an
+     * {@link UnsupportedOperationException}, while primitives, which are immutable
+     * already, are returned as they are.
+     *
+     * @return An immutable {@link YamlElement} equal to this one
+     */
+    default YamlElement freeze() {
+        return this;
+    }
+
     /**
      * Converts the value in this {@link YamlPrimitive} object to a {@code boolean}.
      * If this method is invoked and this class isn't an instance of {@link YamlPrimitive},
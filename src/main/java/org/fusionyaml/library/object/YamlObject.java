@@ -17,6 +17,7 @@ package org.fusionyaml.library.object;
 
 
 import com.google.common.base.Splitter;
+import com.google.common.collect.Iterables;
 import org.fusionyaml.library.events.EntryChangeListener;
 import org.jetbrains.annotations.NotNull;
 
@@ -24,7 +25,7 @@ import java.util.*;
 import java.util.function.BiConsumer;
 
 /**
- * A {@code YamlObject} stores {@code YAML} key-value pairs in a {@link java.util.LinkedHashMap}
+ * A {@code YamlObject} stores {@code YAML} key-value pairs in insertion order,
  * ready to be converted into {@code JSON} and a {@code YAML} {@link String}.
  * <p>
  * A {@link YamlObject} can be thought of key-value pairs that can be retrieved, modified, and
@@ -38,10 +39,37 @@ public class YamlObject implements YamlElement {
     protected EntryChangeListener listener;
 
     /**
-     * A {@link LinkedHashMap} containing key-value pairs which essentially are where
-     * all the {@code YAML} data are stored.
+     * A {@link Map} containing key-value pairs which essentially are where
+     * all the {@code YAML} data are stored. Entries are kept in insertion order.
      */
-    protected Map<String, YamlElement> map = new LinkedHashMap<>();
+    protected Map<String, YamlElement> map;
+
+    /**
+     * Creates an empty {@link YamlObject}
+     */
+    public YamlObject() {
+        this(0);
+    }
+
+    /**
+     * Creates an empty {@link YamlObject} with room for the given number of entries
+     *
+     * @param capacity The number of entries the object can hold before growing
+     */
+    public YamlObject(int capacity) {
+        this.map = new CompactOrderedMap(capacity);
+    }
+
+    /**
+     * Gets the {@link Map} the entries are stored in. Every access to the entries
+     * goes through this method, so that subclasses can fill the {@link Map} when
+     * it is first needed.
+     *
+     * @return The {@link Map} of entries
+     */
+    protected Map<String, YamlElement> map() {
+        return map;
+    }
 
     /**
      * A method that sets the value in a given key. A value is removed from a
@@ -51,7 +79,9 @@ public class YamlObject implements YamlElement {
      * @param value The value the key holds
      */
     private void change(@NotNull String key, YamlElement value) {
-        map.put(key, value == null ? YamlNull.NULL : value);
+        if (value == null)
+            value = YamlNull.NULL;
+        map().put(key, value);
         if (listener != null)
             listener.onChange(this, Collections.singletonList(key), value);
     }
@@ -122,13 +152,15 @@ public class YamlObject implements YamlElement {
      */
     public YamlObject set(@NotNull List<String> paths, YamlElement value) {
         if (paths.size() == 0) return this; // empty path
-        if (listener != null)
-            listener.onChange(this, paths, value);
         if (paths.size() == 1) {
             set(paths.get(0), value);
             return this;
         }
-        setNestedYamlObject(paths, value != null ? value : YamlNull.NULL);
+        if (value == null)
+            value = YamlNull.NULL;
+        setNestedYamlObject(paths, value);
+        if (listener != null)
+            listener.onChange(this, paths, value);
         return this;
     }
 
@@ -150,7 +182,10 @@ public class YamlObject implements YamlElement {
      * @return this object
      */
     public YamlObject remove(@NotNull List<String> paths) {
+        if (paths.size() == 0) return this; // empty path
         setNestedYamlObject(paths, null);
+        if (listener != null)
+            listener.onChange(this, paths, null);
         return this;
     }
 
@@ -163,7 +198,9 @@ public class YamlObject implements YamlElement {
      * @return this object
      */
     public YamlObject remove(@NotNull String key) {
-        map.remove(key);
+        map().remove(key);
+        if (listener != null)
+            listener.onChange(this, Collections.singletonList(key), null);
         return this;
     }
 
@@ -179,40 +216,55 @@ public class YamlObject implements YamlElement {
     private YamlElement createElementPrimitive(Object o) {
         if (o == null)
             return YamlNull.NULL;
-        return new YamlPrimitive(o);
+        return YamlPrimitive.of(o);
     }
 
     public YamlElement get(String key) {
-        return map.get(key);
+        return map().get(key);
     }
 
     public Set<String> keySet() {
-        return map.keySet();
+        return map().keySet();
+    }
+
+    public Set<Map.Entry<String, YamlElement>> entrySet() {
+        return Collections.unmodifiableMap(map()).entrySet();
+    }
+
+    public Collection<YamlElement> values() {
+        return Collections.unmodifiableCollection(map().values());
     }
 
     public boolean containsKey(String key) {
-        return map.containsKey(key);
+        return map().containsKey(key);
     }
 
     public void forEach(BiConsumer<String, YamlElement> action) {
-        for (String key : keySet()) {
-            YamlElement value = map.get(key);
-            action.accept(key, value);
-        }
+        map().forEach(action);
     }
     
     public int size() {
-        return map.size();
+        return map().size();
     }
     
+    /**
+     * Gets the value of the entry at the position, in insertion order
+     *
+     * @param index The position
+     * @return The value
+     */
     public YamlElement get(int index) {
-        return map.get(new LinkedList<>(keySet()).get(index));
+        Map<String, YamlElement> map = map();
+        if (map instanceof CompactOrderedMap)
+            return ((CompactOrderedMap) map).valueAt(index);
+        return Iterables.get(map.values(), index);
     }
     
     /**
      * Sets the {@link EntryChangeListener} for the object. When an entry changed by adding,
      * removing, or modifying data, {@link EntryChangeListener#onChange(YamlObject, List, Object)}
-     * will be called.
+     * will be called once, after the change is made, with the full path that was changed.
+     * The value passed to the listener is {@code null} if the path was removed.
      *
      * @param listener The {@link EntryChangeListener
      */
@@ -221,6 +273,42 @@ public class YamlObject implements YamlElement {
         this.listener = listener;
     }
 
+    /**
+     * Takes a snapshot of this object in constant time. The snapshot is a read-only
+     * {@link YamlObject} holding the entries this object holds now, down to the deepest
+     * children, and it isn't affected by any later change to this object. It can be read
+     * from any thread while this object is modified, as long as it was taken while the
+     * object wasn't being modified.
+     * <p>
+     * Nothing is copied when the snapshot is taken. Instead, each object and array of
+     * the tree modified afterwards copies its own level of entries the first time it is
+     * modified, and keeps the previous ones for as long as the snapshot is reachable.
+     * Modifying the snapshot throws an {@link UnsupportedOperationException}.
+     *
+     * @return The snapshot
+     */
+    public YamlObject snapshot() {
+        return new SnapshotYamlObject(this, Versions.snapshot());
+    }
+
+    /**
+     * Freezes this object into an immutable {@link YamlObject}, whose objects and arrays
+     * are frozen as well. Its entries are stored in arrays sized to fit them, with no
+     * room left for changes, and it can be read from any number of threads without
+     * locking or copying it. Modifying it throws an {@link UnsupportedOperationException},
+     * and {@link #deepCopy()} turns it back into a regular object.
+     * <p>
+     * Unlike {@link #snapshot()}, freezing copies the whole tree, so it must not be
+     * modified while it is frozen. A tree shared with other threads can be frozen
+     * through a snapshot of it instead.
+     *
+     * @return The frozen object
+     */
+    @Override
+    public YamlObject freeze() {
+        return new FrozenYamlObject(this);
+    }
+
     /**
      * Copies all of the elements and the children contained
      * herein
@@ -229,17 +317,101 @@ public class YamlObject implements YamlElement {
      */
     @Override
     public YamlObject deepCopy() {
-        YamlObject object = new YamlObject();
-        map.forEach((k, v) -> object.set(k, v.deepCopy()));
+        YamlObject object = new YamlObject(size());
+        map().forEach((k, v) -> object.map.put(k, v.deepCopy()));
         return object;
     }
     
     
+    /**
+     * Compares the entries of this object with those of another one, down to the deepest
+     * children. If the hashes of both are cached, they are compared first, so that objects
+     * that differ are usually told apart without reading their entries.
+     *
+     * @param o The other object
+     * @return Whether the other object holds entries equal to these
+     */
     @Override
     public boolean equals(Object o) {
+        if (o == this) return true;
         if (!(o instanceof YamlObject)) return false;
-        YamlObject object = (YamlObject) o;
-        return object.map.equals(map);
+        // occurrences of an object shared while loading are compared through it, without being copied
+        YamlObject self = SharedYamlObject.unwrap(this);
+        YamlObject object = SharedYamlObject.unwrap((YamlObject) o);
+        if (object == self) return true;
+        // hashes are only compared when both are cached, computing them would read every entry anyway
+        if (self.isHashCached() && object.isHashCached() && object.hashCode() != self.hashCode()) return false;
+        return object.map().equals(self.map());
+    }
+
+    /**
+     * Gets the structural hash of this object, computed from its keys and the hashes of its
+     * values as for any {@link Map}. The hash is cached until this object or one of its
+     * children is modified, so that it can be used as a key in hash tables and compared
+     * in constant time. Frozen objects keep their hash for good.
+     *
+     * @return The hash
+     */
+    @Override
+    public int hashCode() {
+        return map().hashCode();
+    }
+
+    /**
+     * @return Whether the hash of this object is cached and still valid, so that comparing
+     * it costs nothing
+     */
+    boolean isHashCached() {
+        return map instanceof CompactOrderedMap && ((CompactOrderedMap) map).isHashCached();
+    }
+
+    /**
+     * Compares this object with a newer version of it, and calls the action with the path
+     * of each entry that differs between them, along with its value in the newer version.
+     * The value is {@code null} if the entry was removed. Objects found at the same path in
+     * both versions are compared entry by entry, so that only the entries that changed in
+     * them are reported, while arrays and scalars are reported as a whole.
+     * <p>
+     * Entries are compared through their hashes first, and the children the two versions
+     * share, such as those loaded with the same {@link ElementInterner}, are skipped without
+     * being read, so that comparing two versions of a document mostly costs as much as
+     * what changed between them. If this object is a {@link #snapshot()} of the newer one,
+     * only the objects and arrays modified since the snapshot was taken are compared, and
+     * the others are only walked through.
+     *
+     * @param newer  The newer version of this object
+     * @param action The action called with each path that differs, and its newer value
+     */
+    public void diff(@NotNull YamlObject newer, @NotNull BiConsumer<List<String>, YamlElement> action) {
+        if (this instanceof SnapshotYamlObject && ((SnapshotYamlObject) this).isSnapshotOf(newer))
+            ((SnapshotYamlObject) this).diffSource(action);
+        else diff(this, newer, new ArrayList<>(), action);
+    }
+
+    static void diff(YamlObject older, YamlObject newer, List<String> path,
+                             BiConsumer<List<String>, YamlElement> action) {
+        // the hashes of every child are cached on the way, and compared as the two versions are walked
+        if (older.hashCode() == newer.hashCode() && older.equals(newer))
+            return;
+        // the older version is only read, so its shared children don't need to be copied
+        SharedYamlObject.unwrap(older).forEach((k, v) -> {
+            path.add(k);
+            YamlElement value = newer.get(k);
+            if (value == null)
+                action.accept(new ArrayList<>(path), null);
+            else if (v instanceof YamlObject && value instanceof YamlObject)
+                diff((YamlObject) v, (YamlObject) value, path, action);
+            else if (!v.equals(value))
+                action.accept(new ArrayList<>(path), value);
+            path.remove(path.size() - 1);
+        });
+        newer.forEach((k, v) -> {
+            if (older.containsKey(k))
+                return;
+            path.add(k);
+            action.accept(new ArrayList<>(path), v);
+            path.remove(path.size() - 1);
+        });
     }
     
     private YamlObject setNestedYamlObject(List<String> keys, YamlElement value) {
@@ -256,9 +428,10 @@ public class YamlObject implements YamlElement {
                 v = new YamlObject();
             newValue = v.getAsYamlObject().setNestedYamlObject(nextKeys, value);
         }
+        // the listener is only called once, by the method the change started from
         if (newValue == null)
-            remove(key);
-        else set(key, newValue);
+            map().remove(key);
+        else map().put(key, newValue);
         return this;
     }
 
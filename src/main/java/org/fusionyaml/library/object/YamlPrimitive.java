@@ -29,13 +29,49 @@ import com.google.gson.internal.LazilyParsedNumber;
  * <li>int</li>
  * <li>long</li>
  * </ul>
+ * <p>
+ * Integers, longs and doubles are stored unboxed, so reading them with {@link #getAsInt()},
+ * {@link #getAsLong()} or {@link #getAsDouble()} doesn't allocate anything. They are only
+ * boxed the first time {@link #getValue()} is called. A numeric {@link String} is parsed
+ * the first time it is read as a number, and the parsed value is reused afterwards.
  */
 public class YamlPrimitive implements YamlElement {
 
+    // How the value is stored
+    static final byte OBJECT = 0;
+    static final byte INT = 1;
+    static final byte LONG = 2;
+    static final byte DOUBLE = 3;
+    static final byte BOOLEAN = 4;
+    static final byte STRING = 5;
+
+    // Cached in place of the parsed value of a string that isn't a number
+    private static final Object NOT_A_NUMBER = new Object();
+
+    private final byte kind;
+
     /**
-     * The primitive or {@link String} value
+     * The value of an int or a long, the bits of a double, or 1 for true
      */
-    private final Object value;
+    private final long bits;
+
+    /**
+     * The primitive or {@link String} value. Ints, longs and doubles are only boxed
+     * into it when they are first requested.
+     */
+    private Object value;
+
+    /**
+     * The {@link Long} or {@link Double} parsed from a {@link String} value, or
+     * {@link #NOT_A_NUMBER}
+     */
+    private Object parsed;
+
+    private YamlPrimitive(byte kind, long bits, Object value) {
+        this.kind = kind;
+        this.bits = bits;
+        this.value = value;
+    }
 
     /**
      * This constructor requires a {@link Boolean} to be passed into the
@@ -44,7 +80,7 @@ public class YamlPrimitive implements YamlElement {
      * @param bool The {@link Boolean}
      */
     public YamlPrimitive(Boolean bool) {
-        this.value = bool;
+        this(BOOLEAN, bool ? 1 : 0, bool);
     }
 
     /**
@@ -54,7 +90,7 @@ public class YamlPrimitive implements YamlElement {
      * @param number The {@link Number}
      */
     public YamlPrimitive(Number number) {
-        this.value = number;
+        this((Object) number);
     }
 
     /**
@@ -64,7 +100,7 @@ public class YamlPrimitive implements YamlElement {
      * @param string The {@link String}
      */
     public YamlPrimitive(String string) {
-        this.value = string;
+        this(STRING, 0, string);
     }
 
     /**
@@ -82,7 +118,96 @@ public class YamlPrimitive implements YamlElement {
     public YamlPrimitive(Object primitive) {
         if (!(primitive instanceof Number) && !(primitive instanceof String) && !(primitive instanceof Character) && !(primitive instanceof Boolean))
             throw new IllegalArgumentException(primitive.getClass().getName() + " is not a primitive type");
-        value = primitive;
+        if (primitive instanceof Integer) {
+            kind = INT;
+            bits = (Integer) primitive;
+        } else if (primitive instanceof Long) {
+            kind = LONG;
+            bits = (Long) primitive;
+        } else if (primitive instanceof Double) {
+            kind = DOUBLE;
+            bits = Double.doubleToRawLongBits((Double) primitive);
+        } else if (primitive instanceof Boolean) {
+            kind = BOOLEAN;
+            bits = (Boolean) primitive ? 1 : 0;
+        } else {
+            kind = primitive instanceof String ? STRING : OBJECT;
+            bits = 0;
+        }
+        // the boxes of numbers stored unboxed aren't kept
+        value = kind == INT || kind == LONG || kind == DOUBLE ? null : primitive;
+    }
+
+    /**
+     * @return How the value is stored, one of the constants above
+     */
+    byte kind() {
+        return kind;
+    }
+
+    /**
+     * @return The value of an int or a long, the bits of a double or 1 for true
+     */
+    long bits() {
+        return bits;
+    }
+
+    /**
+     * Creates a {@link YamlPrimitive} holding an {@code int}, without boxing it
+     *
+     * @param value The {@code int}
+     * @return The {@link YamlPrimitive}
+     */
+    public static YamlPrimitive of(int value) {
+        return new YamlPrimitive(INT, value, null);
+    }
+
+    /**
+     * Creates a {@link YamlPrimitive} holding a {@code long}, without boxing it
+     *
+     * @param value The {@code long}
+     * @return The {@link YamlPrimitive}
+     */
+    public static YamlPrimitive of(long value) {
+        return new YamlPrimitive(LONG, value, null);
+    }
+
+    /**
+     * Creates a {@link YamlPrimitive} holding a {@code double}, without boxing it
+     *
+     * @param value The {@code double}
+     * @return The {@link YamlPrimitive}
+     */
+    public static YamlPrimitive of(double value) {
+        return new YamlPrimitive(DOUBLE, Double.doubleToRawLongBits(value), null);
+    }
+
+    /**
+     * @param value The {@code boolean}
+     * @return A {@link YamlPrimitive} holding the {@code boolean}
+     */
+    public static YamlPrimitive of(boolean value) {
+        return new YamlPrimitive(BOOLEAN, value ? 1 : 0, value ? Boolean.TRUE : Boolean.FALSE);
+    }
+
+    /**
+     * @param value The {@link String}
+     * @return A {@link YamlPrimitive} holding the {@link String}
+     */
+    public static YamlPrimitive of(String value) {
+        return new YamlPrimitive(STRING, 0, value);
+    }
+
+    /**
+     * Creates a {@link YamlPrimitive} from a primitive wrapper or a {@link String}. Ints,
+     * longs and doubles are stored unboxed.
+     *
+     * @param value The primitive wrapper or {@link String}
+     * @return The {@link YamlPrimitive}
+     * @throws IllegalArgumentException If the {@link Object} isn't of primitive or {@link String} type
+     */
+    public static YamlPrimitive of(Object value) {
+        return new YamlPrimitive(value);
     }
 
     /**
@@ -93,7 +218,7 @@ public class YamlPrimitive implements YamlElement {
      */
     @Override
     public YamlPrimitive deepCopy() {
-        return new YamlPrimitive(this.value);
+        return new YamlPrimitive(kind, bits, value);
     }
 
     /**
@@ -106,7 +231,7 @@ public class YamlPrimitive implements YamlElement {
      */
     @Override
     public boolean getAsBoolean() {
-        return Boolean.parseBoolean(getAsString());
+        return kind == BOOLEAN ? bits != 0 : Boolean.parseBoolean(getAsString());
     }
 
     /**
@@ -119,7 +244,7 @@ public class YamlPrimitive implements YamlElement {
      */
     @Override
     public boolean isBoolean() {
-        return value instanceof Boolean;
+        return kind == BOOLEAN;
     }
 
     /**
@@ -147,7 +272,7 @@ public class YamlPrimitive implements YamlElement {
      */
     @Override
     public short getAsShort() {
-        return isNumber() ? getAsNumber().byteValue() : Byte.parseByte(getAsString());
+        return isNumber() ? getAsNumber().shortValue() : Short.parseShort(getAsString());
     }
 
     /**
@@ -161,7 +286,20 @@ public class YamlPrimitive implements YamlElement {
      */
     @Override
     public int getAsInt() {
-        return isNumber() ? getAsNumber().intValue() : Integer.parseInt(getAsString());
+        switch (kind) {
+            case INT:
+            case LONG:
+                return (int) bits;
+            case DOUBLE:
+                return (int) Double.longBitsToDouble(bits);
+            case STRING:
+                Object parsed = parse();
+                if (parsed instanceof Long && (Long) parsed == ((Long) parsed).intValue())
+                    return ((Long) parsed).intValue();
+                return Integer.parseInt((String) value);
+            default:
+                return isNumber() ? getAsNumber().intValue() : Integer.parseInt(getAsString());
+        }
     }
 
     /**
@@ -189,7 +327,20 @@ public class YamlPrimitive implements YamlElement {
      */
     @Override
     public double getAsDouble() {
-        return isNumber() ? getAsNumber().doubleValue() : Double.parseDouble(getAsString());
+        switch (kind) {
+            case INT:
+            case LONG:
+                return bits;
+            case DOUBLE:
+                return Double.longBitsToDouble(bits);
+            case STRING:
+                Object parsed = parse();
+                if (parsed != NOT_A_NUMBER)
+                    return ((Number) parsed).doubleValue();
+                return Double.parseDouble((String) value);
+            default:
+                return isNumber() ? getAsNumber().doubleValue() : Double.parseDouble(getAsString());
+        }
     }
 
     /**
@@ -203,13 +354,46 @@ public class YamlPrimitive implements YamlElement {
      */
     @Override
     public long getAsLong() {
-        return isNumber() ? getAsNumber().longValue() : Long.parseLong(getAsString());
+        switch (kind) {
+            case INT:
+            case LONG:
+                return bits;
+            case DOUBLE:
+                return (long) Double.longBitsToDouble(bits);
+            case STRING:
+                Object parsed = parse();
+                if (parsed instanceof Long)
+                    return (Long) parsed;
+                return Long.parseLong((String) value);
+            default:
+                return isNumber() ? getAsNumber().longValue() : Long.parseLong(getAsString());
+        }
+    }
+
+    // Parses a string value into a Long or a Double once, and caches the result
+    private Object parse() {
+        Object parsed = this.parsed;
+        if (parsed != null)
+            return parsed;
+        String str = (String) value;
+        try {
+            parsed = Long.parseLong(str);
+        } catch (NumberFormatException e) {
+            try {
+                parsed = Double.parseDouble(str);
+            } catch (NumberFormatException e1) {
+                parsed = NOT_A_NUMBER;
+            }
+        }
+        this.parsed = parsed;
+        return parsed;
     }
 
     /**
      * Casts {@link Number} to the value found in this {@link YamlPrimitive} object or
      * converts the value to {@link Number} if the value is not an instance of a {@link Number}
-     * object.
+     * object. A numeric {@link String} is converted to the {@link Long} or {@link Double} it
+     * is parsed into, which is cached.
      *
      * @return The {@link Number} converted from the value in this {@link YamlPrimitive} object
      * @throws UnsupportedOperationException if this class is not an instance of {@link YamlPrimitive}
@@ -217,7 +401,11 @@ public class YamlPrimitive implements YamlElement {
      */
     @Override
     public Number getAsNumber() {
-        return value instanceof String ? new LazilyParsedNumber((String) value) : (Number) value;
+        if (kind == STRING) {
+            Object parsed = parse();
+            return parsed != NOT_A_NUMBER ? (Number) parsed : new LazilyParsedNumber((String) value);
+        }
+        return (Number) getValue();
     }
 
     /**
@@ -230,7 +418,7 @@ public class YamlPrimitive implements YamlElement {
      */
     @Override
     public boolean isNumber() {
-        return value instanceof Number;
+        return kind == INT || kind == LONG || kind == DOUBLE || value instanceof Number;
     }
 
     /**
@@ -271,7 +459,7 @@ public class YamlPrimitive implements YamlElement {
      */
     @Override
     public boolean isString() {
-        return value instanceof String;
+        return kind == STRING;
     }
 
     /**
@@ -285,16 +473,35 @@ public class YamlPrimitive implements YamlElement {
      */
     @Override
     public String getAsString() {
-        if (isNumber()) {
-            return getAsNumber().toString();
-        } else if (isBoolean()) {
-            return ((Boolean) value).toString();
-        } else {
-            return (String) value;
+        switch (kind) {
+            case INT:
+            case LONG:
+                return Long.toString(bits);
+            case DOUBLE:
+                return Double.toString(Double.longBitsToDouble(bits));
+            case BOOLEAN:
+                return bits != 0 ? "true" : "false";
+            case STRING:
+                return (String) value;
+            default:
+                return value.toString();
         }
     }
 
+    /**
+     * @return The primitive wrapper or {@link String} value. Ints, longs and doubles
+     * are boxed the first time this method is called.
+     */
     public Object getValue() {
+        Object value = this.value;
+        if (value == null) {
+            if (kind == INT)
+                value = (int) bits;
+            else if (kind == LONG)
+                value = bits;
+            else value = Double.longBitsToDouble(bits);
+            this.value = value;
+        }
         return value;
     }
 
@@ -305,12 +512,22 @@ public class YamlPrimitive implements YamlElement {
         if (!(o instanceof YamlPrimitive))
             return false;
         YamlPrimitive other = (YamlPrimitive) o;
-        if (other.value instanceof Number && value instanceof Number) {
-            double a = getAsNumber().doubleValue();
-            double b = other.getAsNumber().doubleValue();
+        if (isNumber() && other.isNumber()) {
+            double a = getAsDouble();
+            double b = other.getAsDouble();
             return a == b || (Double.isNaN(a) && Double.isNaN(b));
         }
-        return value.equals(other.value);
+        return getValue().equals(other.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+        // numbers are equal when their values as doubles are, whatever their types
+        if (isNumber()) {
+            double value = getAsDouble();
+            return value == 0 ? 0 : Double.hashCode(value);
+        }
+        return getValue().hashCode();
     }
 
 
@@ -41,7 +41,7 @@ public class ReferenceConfiguration extends YamlConfiguration {
      * @param configuration The configuration
      */
     public ReferenceConfiguration(Configuration configuration) {
-        this(configuration, new FusionYAML());
+        this(configuration, FusionYAML.getDefault());
     }
     
     /**
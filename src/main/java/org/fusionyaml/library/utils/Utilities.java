@@ -45,7 +45,7 @@ public class Utilities {
         if (o instanceof YamlElement)
             return (YamlElement) o;
         if (isPrimitive(o))
-            return new YamlPrimitive(o);
+            return YamlPrimitive.of(o);
         if (o instanceof List) {
             YamlArray list = new YamlArray();
             List<Object> objList = (List<Object>) o;